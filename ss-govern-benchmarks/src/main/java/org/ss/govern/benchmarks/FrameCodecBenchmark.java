@@ -0,0 +1,184 @@
+package org.ss.govern.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ss.govern.server.node.network.BufferPool;
+import org.ss.govern.server.node.network.FrameBatch;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接读写路径上 4字节长度 + 消息体 的编解码
+ * 写：每条消息复制成一个带长度的缓冲区单独写出，与FrameBatch合并成一次gathering write
+ * 读：每条消息新分配缓冲区，与从BufferPool取缓冲区并在处理后归还
+ * 结果为每批消息的耗时，分配量看 -prof gc 的gc.alloc.rate.norm：
+ * java -jar ss-govern-benchmarks/target/benchmarks.jar FrameCodecBenchmark -prof gc
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameCodecBenchmark {
+
+    private static final int LENGTH_FIELD_SIZE = 4;
+
+    @Param({"16", "1024"})
+    private int frameSize;
+
+    @Param({"1", "32"})
+    private int framesPerBatch;
+
+    private ByteBuffer[] messages;
+
+    private FrameBatch frameBatch;
+
+    private final DiscardingChannel channel = new DiscardingChannel();
+
+    /**
+     * 连续framesPerBatch条消息编码后的数据，相当于一次从socket读到的内容
+     */
+    private ByteBuffer stream;
+
+    /**
+     * stream上的视图，读取时用来截取一条消息体，避免每条消息duplicate
+     */
+    private ByteBuffer window;
+
+    private BufferPool bufferPool;
+
+    @Setup
+    public void setup() {
+        messages = new ByteBuffer[framesPerBatch];
+        stream = ByteBuffer.allocate(framesPerBatch * (LENGTH_FIELD_SIZE + frameSize));
+        for (int i = 0; i < framesPerBatch; i++) {
+            ByteBuffer message = ByteBuffer.allocate(frameSize);
+            for (int j = 0; j < frameSize; j++) {
+                message.put((byte) j);
+            }
+            message.flip();
+            messages[i] = message;
+            stream.putInt(frameSize);
+            stream.put(message.duplicate());
+        }
+        stream.flip();
+        window = stream.duplicate();
+        frameBatch = new FrameBatch(framesPerBatch, Integer.MAX_VALUE);
+        bufferPool = new BufferPool(64 * 1024, false);
+    }
+
+    /**
+     * 原来的写路径：每条消息分配一个带长度的缓冲区，一次write写出一条
+     */
+    @Benchmark
+    public long writeCopyPerFrame() throws Exception {
+        long written = 0;
+        for (ByteBuffer message : messages) {
+            ByteBuffer frame = ByteBuffer.allocate(LENGTH_FIELD_SIZE + message.remaining());
+            frame.putInt(message.remaining());
+            frame.put(message.duplicate());
+            frame.flip();
+            written += channel.write(frame);
+        }
+        return written;
+    }
+
+    @Benchmark
+    public long writeBatched() throws Exception {
+        for (ByteBuffer message : messages) {
+            message.rewind();
+            frameBatch.add(message);
+        }
+        long written = frameBatch.writeTo(channel);
+        frameBatch.clear();
+        return written;
+    }
+
+    /**
+     * 原来的读路径：每条消息分配一个新的缓冲区
+     */
+    @Benchmark
+    public void readAllocating(Blackhole blackhole) {
+        stream.rewind();
+        while (stream.hasRemaining()) {
+            int messageLength = stream.getInt();
+            ByteBuffer message = ByteBuffer.allocate(messageLength);
+            copyMessage(message, messageLength);
+            blackhole.consume(message);
+        }
+    }
+
+    @Benchmark
+    public void readPooled(Blackhole blackhole) {
+        stream.rewind();
+        while (stream.hasRemaining()) {
+            int messageLength = stream.getInt();
+            ByteBuffer message = bufferPool.acquire(messageLength);
+            copyMessage(message, messageLength);
+            blackhole.consume(message);
+            bufferPool.release(message);
+        }
+    }
+
+    private void copyMessage(ByteBuffer message, int messageLength) {
+        int start = stream.position();
+        window.limit(start + messageLength).position(start);
+        message.put(window);
+        message.flip();
+        stream.position(start + messageLength);
+    }
+
+    /**
+     * 丢弃写入数据的channel，只统计字节数，排除系统调用的开销
+     */
+    static class DiscardingChannel implements GatheringByteChannel {
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            long written = 0;
+            for (int i = offset; i < offset + length; i++) {
+                written += write(srcs[i]);
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            int remaining = src.remaining();
+            src.position(src.limit());
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.ss.govern.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ss.govern.server.node.network.BoundedRingQueue;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网络线程和消息处理线程之间传递消息的队列对比
+ * 两个生产者一个消费者，与多个事件循环线程向同一个接收队列放入消息一致
+ * 队列满或空时offer/poll直接返回，结果中的吞吐量包含失败的调用，需要结合两个方法各自的结果看
+ * LinkedBlockingQueue每次入队分配一个节点，分配量看 -prof gc：
+ * java -jar ss-govern-benchmarks/target/benchmarks.jar QueueHandoffBenchmark -prof gc
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueHandoffBenchmark {
+
+    private static final ByteBuffer MESSAGE = ByteBuffer.allocate(16);
+
+    @Param({"LinkedBlockingQueue", "ArrayBlockingQueue", "BoundedRingQueue"})
+    private String queueType;
+
+    @Param({"1024"})
+    private int capacity;
+
+    private Queue<ByteBuffer> queue;
+
+    @Setup
+    public void setup() {
+        switch (queueType) {
+            case "LinkedBlockingQueue":
+                queue = new LinkedBlockingQueue<>(capacity);
+                break;
+            case "ArrayBlockingQueue":
+                queue = new ArrayBlockingQueue<>(capacity);
+                break;
+            case "BoundedRingQueue":
+                queue = new BoundedRingQueue<>(capacity);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown queue type " + queueType);
+        }
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(2)
+    public boolean offer() {
+        return queue.offer(MESSAGE);
+    }
+
+    @Benchmark
+    @Group("handoff")
+    @GroupThreads(1)
+    public ByteBuffer poll() {
+        return queue.poll();
+    }
+
+}
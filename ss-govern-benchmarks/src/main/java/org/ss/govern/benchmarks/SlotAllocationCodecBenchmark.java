@@ -0,0 +1,90 @@
+package org.ss.govern.benchmarks;
+
+import com.alibaba.fastjson.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ss.govern.server.node.slot.SlotAllocation;
+import org.ss.govern.server.node.slot.SlotAllocationCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 槽位分配数据 JSON 与二进制编解码的对比
+ * 运行：java -jar ss-govern-benchmarks/target/benchmarks.jar SlotAllocationCodecBenchmark
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlotAllocationCodecBenchmark {
+
+    @Param({"20", "1024", "16384"})
+    private int slotCount;
+
+    @Param({"3", "9"})
+    private int masters;
+
+    private int[] slotOwners;
+
+    private SlotAllocation allocation;
+
+    private List<Integer> slotOwnerList;
+
+    private byte[] jsonBytes;
+
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setup() {
+        //与Controller一致，每个节点分配连续的一段槽位，余下的槽位分配给最后一个节点
+        slotOwners = new int[slotCount];
+        int slotsPerNode = slotCount / masters;
+        for (int slot = 0; slot < slotCount; slot++) {
+            slotOwners[slot] = Math.min(slot / slotsPerNode, masters - 1) + 1;
+        }
+        slotOwnerList = new ArrayList<>(slotCount);
+        for (int owner : slotOwners) {
+            slotOwnerList.add(owner);
+        }
+        allocation = new SlotAllocation(1, 1, slotOwners);
+        jsonBytes = JSONObject.toJSONString(slotOwnerList).getBytes();
+        binaryBytes = SlotAllocationCodec.encode(allocation);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+        return JSONObject.toJSONString(slotOwnerList).getBytes();
+    }
+
+    @Benchmark
+    public List<Integer> jsonDecode() {
+        return JSONObject.parseArray(new String(jsonBytes), Integer.class);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return SlotAllocationCodec.encode(allocation);
+    }
+
+    @Benchmark
+    public SlotAllocation binaryDecode() {
+        return SlotAllocationCodec.decode(binaryBytes);
+    }
+
+}
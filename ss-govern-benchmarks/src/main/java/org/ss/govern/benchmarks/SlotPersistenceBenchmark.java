@@ -0,0 +1,87 @@
+package org.ss.govern.benchmarks;
+
+import com.alibaba.fastjson.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ss.govern.server.node.slot.SlotAllocation;
+import org.ss.govern.server.node.slot.SlotAllocationCodec;
+import org.ss.govern.utils.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 槽位分配持久化的耗时，每次写入都会force到磁盘，结果主要取决于磁盘的fsync延迟
+ * 同时对比JSON和二进制两种格式的文件大小对写入和读取的影响
+ * java -jar ss-govern-benchmarks/target/benchmarks.jar SlotPersistenceBenchmark -prof gc
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlotPersistenceBenchmark {
+
+    private static final String FILENAME = "slot_allocation";
+
+    @Param({"1024", "16384"})
+    private int slotCount;
+
+    @Param({"json", "binary"})
+    private String format;
+
+    private byte[] bytes;
+
+    private File dataDir;
+
+    @Setup
+    public void setup() throws IOException {
+        int masters = 9;
+        int[] slotOwners = new int[slotCount];
+        List<Integer> slotOwnerList = new ArrayList<>(slotCount);
+        int slotsPerNode = slotCount / masters;
+        for (int slot = 0; slot < slotCount; slot++) {
+            slotOwners[slot] = Math.min(slot / slotsPerNode, masters - 1) + 1;
+            slotOwnerList.add(slotOwners[slot]);
+        }
+        bytes = "json".equals(format) ? JSONObject.toJSONString(slotOwnerList).getBytes()
+                : SlotAllocationCodec.encode(new SlotAllocation(1, 1, slotOwners));
+        dataDir = Files.createTempDirectory("ss-govern-slots").toFile();
+        FileUtils.persistSlotsAllocation(bytes, dataDir.getPath(), FILENAME);
+    }
+
+    @TearDown
+    public void tearDown() {
+        new File(dataDir, FILENAME).delete();
+        dataDir.delete();
+    }
+
+    @Benchmark
+    public Boolean persist() {
+        return FileUtils.persistSlotsAllocation(bytes, dataDir.getPath(), FILENAME);
+    }
+
+    @Benchmark
+    public byte[] read() {
+        return FileUtils.readSlotsAllocation(dataDir.getPath(), FILENAME);
+    }
+
+}
@@ -0,0 +1,150 @@
+package org.ss.govern.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.ss.govern.server.node.master.Vote;
+import org.ss.govern.server.node.master.VoteBox;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 选举消息路径的对比：原来的装箱选票 + 每张选票重建HashMap计票，与选票箱 + 原始类型计票
+ * 关注每张选票的分配量，需要加上gc profiler：
+ * java -jar ss-govern-benchmarks/target/benchmarks.jar VoteBenchmark -prof gc
+ * 看gc.alloc.rate.norm，receiveAndTally应为0
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoteBenchmark {
+
+    @Param({"3", "9"})
+    private int candidates;
+
+    private int quorum;
+
+    private int term = 1;
+
+    private int nextVoter;
+
+    private VoteBox voteBox;
+
+    /**
+     * 收到的选票消息，已经读掉了消息类型
+     */
+    private ByteBuffer[] messages;
+
+    private Map<Integer, Integer> legacyTermVotes = new HashMap<>();
+
+    @Setup
+    public void setup() {
+        quorum = candidates / 2 + 1;
+        List<Integer> voterIds = new ArrayList<>();
+        messages = new ByteBuffer[candidates];
+        for (int voterId = 1; voterId <= candidates; voterId++) {
+            voterIds.add(voterId);
+            //每个人都投给自己，计票时永远达不到多数，每次都要完整统计
+            messages[voterId - 1] = new Vote(voterId, voterId, term).toRequestByteBuffer();
+        }
+        voteBox = new VoteBox(voterIds);
+    }
+
+    private ByteBuffer nextMessage() {
+        ByteBuffer message = messages[nextVoter];
+        nextVoter = (nextVoter + 1) % candidates;
+        message.position(4);
+        return message;
+    }
+
+    /**
+     * 原来的路径：解码为装箱的选票对象，放入Map，每张选票重新统计一遍
+     */
+    @Benchmark
+    public Integer legacyReceiveAndTally() {
+        ByteBuffer message = nextMessage();
+        Integer voterId = message.getInt();
+        Integer candidateId = message.getInt();
+        Integer voteTerm = message.getInt();
+        if (voteTerm != term) {
+            return null;
+        }
+        legacyTermVotes.put(voterId, candidateId);
+        Map<Integer, Integer> voteCountMap = new HashMap<>();
+        for (Integer votedId : legacyTermVotes.values()) {
+            Integer count = voteCountMap.get(votedId);
+            if (count == null) {
+                count = 0;
+            }
+            voteCountMap.put(votedId, ++count);
+        }
+        for (Map.Entry<Integer, Integer> entry : voteCountMap.entrySet()) {
+            if (entry.getValue() >= quorum) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public int receiveAndTally() {
+        ByteBuffer message = nextMessage();
+        int voterId = message.getInt();
+        int candidateId = message.getInt();
+        int voteTerm = message.getInt();
+        voteBox.offer(voterId, candidateId, voteTerm);
+        return voteBox.tally(term, quorum);
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        return new Vote(1, candidates, term).toRequestByteBuffer();
+    }
+
+    @Benchmark
+    public Vote decode() {
+        return new Vote(nextMessage());
+    }
+
+    /**
+     * 原来的路径：每个候选人重新创建选票并编码
+     */
+    @Benchmark
+    public void legacyBroadcast(Blackhole blackhole) {
+        for (int i = 1; i < candidates; i++) {
+            blackhole.consume(new Vote(1, candidates, term).toRequestByteBuffer());
+        }
+    }
+
+    /**
+     * 编码一次，每个候选人发送duplicate()
+     */
+    @Benchmark
+    public void sharedBroadcast(Blackhole blackhole) {
+        ByteBuffer message = new Vote(1, candidates, term).toRequestByteBuffer();
+        for (int i = 1; i < candidates; i++) {
+            blackhole.consume(message.duplicate());
+        }
+    }
+
+}
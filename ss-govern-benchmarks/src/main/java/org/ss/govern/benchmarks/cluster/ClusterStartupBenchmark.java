@@ -0,0 +1,189 @@
+package org.ss.govern.benchmarks.cluster;
+
+import org.ss.govern.server.node.master.StartupTimings;
+import org.ss.govern.server.node.network.LoopbackNetwork;
+import org.ss.govern.server.node.network.NioTransport;
+import org.ss.govern.server.node.network.TransportFactory;
+import org.ss.govern.server.node.slot.SlotAllocation;
+import org.ss.govern.utils.ThreadUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集群级别的启动和故障转移耗时测试
+ * 按生成的配置在当前JVM内启动不同规模的集群，每轮测量：
+ * master节点从启动到start返回的耗时及其中选举、槽位分配传播的耗时，slave节点连接的耗时，
+ * 以及停止controller后其余节点选出新controller并同步槽位分配的耗时、原controller重新加入集群的耗时
+ *
+ * 参数都是key=value，其余的key作为节点配置项，例如 controller.lease.timeout.ms=1500：
+ * java -cp ss-govern-benchmarks/target/benchmarks.jar org.ss.govern.benchmarks.cluster.ClusterStartupBenchmark \
+ *     masters=3,5,9,15 slaves=300 rounds=5 transport=loopback restart=true gate.startup.p99.ms=2000
+ * transport=tcp时节点之间通过127.0.0.1上的真实端口通信，端口从port.base开始；
+ * loopback下消息同样经过控制和批量两个发送通道和背压策略，但不合并写出，也没有系统调用，耗时会低于tcp
+ * 设置gate.*.p99.ms后，对应耗时的p99超过该值时以非0状态退出，可以作为启动和故障转移性能的回归检查
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class ClusterStartupBenchmark {
+
+    private static final long START_TIMEOUT_MILLIS = 60000;
+
+    private static final long FAILOVER_TIMEOUT_MILLIS = 60000;
+
+    /**
+     * 每轮使用不同的端口，避免TCP端口还处于TIME_WAIT
+     */
+    private static final int PORTS_PER_ROUND = 20;
+
+    private static final int MAX_PORT_OFFSET = 900;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("masters", "3,5,9,15");
+        options.put("slaves", "200");
+        options.put("rounds", "3");
+        options.put("transport", "loopback");
+        options.put("restart", "true");
+        options.put("port.base", "30000");
+        Properties overrides = new Properties();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("argument must be key=value: " + arg);
+            }
+            String key = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+            if (options.containsKey(key) || key.startsWith("gate.")) {
+                options.put(key, value);
+            } else {
+                overrides.setProperty(key, value);
+            }
+        }
+        int slaves = Integer.parseInt(options.get("slaves"));
+        int rounds = Integer.parseInt(options.get("rounds"));
+        boolean tcp = "tcp".equals(options.get("transport"));
+        boolean restart = Boolean.parseBoolean(options.get("restart"));
+        int portBase = Integer.parseInt(options.get("port.base"));
+
+        boolean passed = true;
+        int run = 0;
+        for (String mastersOption : options.get("masters").split(",")) {
+            int masters = Integer.parseInt(mastersOption.trim());
+            Map<String, LatencyStats> stats = newStats();
+            for (int round = 1; round <= rounds; round++) {
+                TransportFactory transportFactory = tcp ? NioTransport::new : new LoopbackNetwork();
+                int roundPortBase = portBase + (run++ * PORTS_PER_ROUND) % MAX_PORT_OFFSET;
+                Path dataDir = Files.createTempDirectory("ss-govern-cluster");
+                LocalCluster cluster = new LocalCluster(masters, roundPortBase, dataDir, transportFactory, overrides);
+                try {
+                    runRound(cluster, masters, slaves, restart, stats);
+                } finally {
+                    cluster.shutdown();
+                    deleteRecursively(dataDir.toFile());
+                }
+                System.out.println(String.format("masters=%d round %d/%d finished", masters, round, rounds));
+            }
+            System.out.println(String.format("==== masters=%d slaves=%d rounds=%d transport=%s ====",
+                    masters, slaves, rounds, tcp ? "tcp" : "loopback"));
+            for (LatencyStats latencyStats : stats.values()) {
+                System.out.println(latencyStats);
+            }
+            passed &= checkGate(options, "startup", stats.get("startup"));
+            passed &= checkGate(options, "election", stats.get("election"));
+            passed &= checkGate(options, "slots", stats.get("slots"));
+            passed &= checkGate(options, "attach", stats.get("attach"));
+            passed &= checkGate(options, "failover", stats.get("failover"));
+            passed &= checkGate(options, "rejoin", stats.get("rejoin"));
+        }
+        //节点的部分线程不是守护线程
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static Map<String, LatencyStats> newStats() {
+        Map<String, LatencyStats> stats = new LinkedHashMap<>();
+        for (String name : new String[]{"startup", "connect", "election", "slots", "attach", "failover", "rejoin"}) {
+            stats.put(name, new LatencyStats(name));
+        }
+        return stats;
+    }
+
+    private static void runRound(LocalCluster cluster, int masters, int slaves, boolean restart,
+                                 Map<String, LatencyStats> stats) throws Exception {
+        if (!cluster.startMasters(START_TIMEOUT_MILLIS)) {
+            throw new IllegalStateException(masters + " masters did not start in " + START_TIMEOUT_MILLIS + " ms");
+        }
+        for (int nodeId = 1; nodeId <= masters; nodeId++) {
+            LocalCluster.RunningMaster master = cluster.getMaster(nodeId);
+            StartupTimings timings = master.getMasterNode().getStartupTimings();
+            stats.get("startup").record(master.getStartMillis());
+            stats.get("connect").record(timings.getPhaseMillis("connect"));
+            stats.get("election").record(timings.getPhaseMillis("election"));
+            stats.get("slots").record(timings.getPhaseMillis("slots"));
+        }
+        for (long attachMillis : cluster.attachSlaves(slaves)) {
+            stats.get("attach").record(attachMillis);
+        }
+        if (!restart) {
+            return;
+        }
+        int controllerId = waitForController(cluster, SlotAllocation.NO_EPOCH);
+        long epoch = cluster.getSlotsEpoch(controllerId);
+        long stopTime = System.nanoTime();
+        cluster.shutdownMaster(controllerId);
+        waitForController(cluster, epoch + 1);
+        stats.get("failover").record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stopTime));
+        LocalCluster.RunningMaster restarted = cluster.startMaster(controllerId);
+        if (!restarted.awaitStarted(START_TIMEOUT_MILLIS)) {
+            throw new IllegalStateException("master " + controllerId + " did not rejoin in "
+                    + START_TIMEOUT_MILLIS + " ms");
+        }
+        stats.get("rejoin").record(restarted.getStartMillis());
+    }
+
+    /**
+     * 等待所有运行中的master节点认可同一个controller，且槽位分配的epoch不小于minEpoch
+     */
+    private static int waitForController(LocalCluster cluster, long minEpoch) {
+        long deadline = System.currentTimeMillis() + FAILOVER_TIMEOUT_MILLIS;
+        int controllerId;
+        while ((controllerId = cluster.agreedController(minEpoch)) == SlotAllocation.UNKNOWN_CONTROLLER) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("masters did not agree on a controller with epoch >= "
+                        + minEpoch + " in " + FAILOVER_TIMEOUT_MILLIS + " ms");
+            }
+            ThreadUtils.sleep(1);
+        }
+        return controllerId;
+    }
+
+    private static boolean checkGate(Map<String, String> options, String name, LatencyStats latencyStats) {
+        String limit = options.get("gate." + name + ".p99.ms");
+        if (limit == null || latencyStats.count() == 0) {
+            return true;
+        }
+        long p99 = latencyStats.percentile(99);
+        if (p99 > Long.parseLong(limit)) {
+            System.out.println("GATE FAILED: " + name + " p99 " + p99 + " ms > " + limit + " ms");
+            return false;
+        }
+        return true;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+}
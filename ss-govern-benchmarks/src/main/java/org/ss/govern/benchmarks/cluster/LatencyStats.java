@@ -0,0 +1,61 @@
+package org.ss.govern.benchmarks.cluster;
+
+import java.util.Arrays;
+
+/**
+ * 收集一项耗时的所有样本，输出百分位数
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class LatencyStats {
+
+    private final String name;
+
+    private long[] samples = new long[64];
+
+    private int count;
+
+    public LatencyStats(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long millis) {
+        if (millis < 0) {
+            return;
+        }
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = millis;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * 最近秩法计算百分位数，没有样本时返回-1
+     *
+     * @param percentile 0到100之间
+     */
+    public synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (count == 0) {
+            return String.format("%-18s no samples", name);
+        }
+        return String.format("%-18s n=%-6d p50=%-6d p90=%-6d p99=%-6d max=%d (ms)", name, count,
+                percentile(50), percentile(90), percentile(99), percentile(100));
+    }
+
+}
@@ -0,0 +1,262 @@
+package org.ss.govern.benchmarks.cluster;
+
+import org.ss.govern.server.ConfigurationException;
+import org.ss.govern.server.config.GovernServerConfig;
+import org.ss.govern.server.node.NodeContext;
+import org.ss.govern.server.node.NodeStatus;
+import org.ss.govern.server.node.master.MasterNode;
+import org.ss.govern.server.node.network.TransportFactory;
+import org.ss.govern.server.node.slave.SlaveNode;
+import org.ss.govern.server.node.slot.SlotAllocation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在当前JVM内运行的一个集群，每个节点有自己的配置、状态和数据目录
+ * 节点的配置按节点id生成，使用127.0.0.1上从portBase开始的端口，
+ * 节点之间通过传入的TransportFactory通信，可以是TCP也可以是LoopbackNetwork
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class LocalCluster {
+
+    private static final String LOCALHOST = "127.0.0.1";
+
+    /**
+     * master端口、slave端口、client端口之间的间隔
+     */
+    private static final int PORT_RANGE = 1000;
+
+    private static final int FIRST_SLAVE_ID = 10000;
+
+    private final int masters;
+
+    private final int portBase;
+
+    private final Path dataDir;
+
+    private final TransportFactory transportFactory;
+
+    /**
+     * 覆盖生成配置的配置项，例如缩短租约超时
+     */
+    private final Properties overrides;
+
+    private final Map<Integer, RunningMaster> masterNodes = new ConcurrentHashMap<>();
+
+    private final List<SlaveNode> slaveNodes = new ArrayList<>();
+
+    public LocalCluster(int masters, int portBase, Path dataDir, TransportFactory transportFactory,
+                        Properties overrides) {
+        this.masters = masters;
+        this.portBase = portBase;
+        this.dataDir = dataDir;
+        this.transportFactory = transportFactory;
+        this.overrides = overrides;
+    }
+
+    /**
+     * 同时启动所有master节点，等待全部启动完成
+     *
+     * @return 是否在超时时间内全部启动
+     */
+    public boolean startMasters(long timeoutMillis) throws Exception {
+        List<RunningMaster> starting = new ArrayList<>();
+        for (int nodeId = 1; nodeId <= masters; nodeId++) {
+            starting.add(startMaster(nodeId));
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (RunningMaster master : starting) {
+            if (!master.awaitStarted(deadline - System.currentTimeMillis())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 在后台线程启动一个master节点，节点之前的数据目录会保留，用于模拟节点重启
+     */
+    public RunningMaster startMaster(int nodeId) throws Exception {
+        MasterNode masterNode = new MasterNode(newContext(masterProperties(nodeId)));
+        RunningMaster master = new RunningMaster(nodeId, masterNode);
+        masterNodes.put(nodeId, master);
+        master.start();
+        return master;
+    }
+
+    public void shutdownMaster(int nodeId) {
+        RunningMaster master = masterNodes.remove(nodeId);
+        if (master != null) {
+            master.masterNode.shutdown();
+        }
+    }
+
+    /**
+     * 按节点id轮流分配到各个master节点，依次连接
+     *
+     * @return 每个slave节点连接master节点的耗时
+     */
+    public List<Long> attachSlaves(int count) throws Exception {
+        List<Long> attachMillis = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int slaveId = FIRST_SLAVE_ID + slaveNodes.size();
+            int masterId = slaveNodes.size() % masters + 1;
+            SlaveNode slaveNode = new SlaveNode(newContext(slaveProperties(slaveId, masterId)));
+            long startTime = System.nanoTime();
+            slaveNode.start();
+            attachMillis.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            slaveNodes.add(slaveNode);
+        }
+        return attachMillis;
+    }
+
+    public RunningMaster getMaster(int nodeId) {
+        return masterNodes.get(nodeId);
+    }
+
+    /**
+     * 运行中的master节点都认可同一个controller和同一个槽位分配epoch时返回该controller
+     *
+     * @return 节点之间还不一致时返回UNKNOWN_CONTROLLER
+     */
+    public int agreedController(long minEpoch) {
+        int controllerId = SlotAllocation.UNKNOWN_CONTROLLER;
+        long epoch = SlotAllocation.NO_EPOCH;
+        for (RunningMaster master : masterNodes.values()) {
+            if (!master.isStarted()) {
+                return SlotAllocation.UNKNOWN_CONTROLLER;
+            }
+            int nodeControllerId = master.masterNode.getSlotsManager().getControllerId();
+            long nodeEpoch = master.masterNode.getSlotsManager().getSlotsEpoch();
+            if (nodeEpoch < minEpoch || (controllerId != SlotAllocation.UNKNOWN_CONTROLLER
+                    && (nodeControllerId != controllerId || nodeEpoch != epoch))) {
+                return SlotAllocation.UNKNOWN_CONTROLLER;
+            }
+            controllerId = nodeControllerId;
+            epoch = nodeEpoch;
+        }
+        return controllerId;
+    }
+
+    public long getSlotsEpoch(int nodeId) {
+        return masterNodes.get(nodeId).masterNode.getSlotsManager().getSlotsEpoch();
+    }
+
+    public void shutdown() {
+        for (SlaveNode slaveNode : slaveNodes) {
+            slaveNode.shutdown();
+        }
+        slaveNodes.clear();
+        for (Integer nodeId : new ArrayList<>(masterNodes.keySet())) {
+            shutdownMaster(nodeId);
+        }
+    }
+
+    private NodeContext newContext(Properties properties) throws ConfigurationException {
+        GovernServerConfig config = new GovernServerConfig();
+        config.parse(properties);
+        NodeStatus status = new NodeStatus();
+        status.setStatus(NodeStatus.RUNNING);
+        return new NodeContext(config, status, transportFactory);
+    }
+
+    private Properties masterProperties(int nodeId) throws IOException {
+        StringBuilder servers = new StringBuilder();
+        for (int id = 1; id <= masters; id++) {
+            if (servers.length() > 0) {
+                servers.append(';');
+            }
+            servers.append(id).append(':').append(address(id));
+        }
+        Properties properties = new Properties();
+        properties.putAll(overrides);
+        properties.setProperty("node.role", "master");
+        properties.setProperty("node.id", String.valueOf(nodeId));
+        properties.setProperty("is.controller.candidate", "true");
+        properties.setProperty("node.address", address(nodeId));
+        properties.setProperty("master.node.servers", servers.toString());
+        properties.setProperty("data.dir", Files.createDirectories(dataDir.resolve("m" + nodeId)).toString());
+        return properties;
+    }
+
+    private Properties slaveProperties(int nodeId, int masterId) {
+        Properties properties = new Properties();
+        properties.putAll(overrides);
+        properties.setProperty("node.role", "slave");
+        properties.setProperty("node.id", String.valueOf(nodeId));
+        properties.setProperty("master.node.address", LOCALHOST);
+        properties.setProperty("master.node.port", String.valueOf(portBase + PORT_RANGE + masterId));
+        return properties;
+    }
+
+    private String address(int nodeId) {
+        return LOCALHOST + ":" + (portBase + nodeId) + ":" + (portBase + PORT_RANGE + nodeId)
+                + ":" + (portBase + 2 * PORT_RANGE + nodeId);
+    }
+
+    /**
+     * 一个在后台线程启动的master节点
+     */
+    public static class RunningMaster {
+
+        private final int nodeId;
+
+        private final MasterNode masterNode;
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private volatile long startMillis = -1;
+
+        RunningMaster(int nodeId, MasterNode masterNode) {
+            this.nodeId = nodeId;
+            this.masterNode = masterNode;
+        }
+
+        private void start() {
+            long startTime = System.nanoTime();
+            Thread thread = new Thread(() -> {
+                try {
+                    masterNode.start();
+                    startMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+                    started.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "master-" + nodeId + "-start");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        public boolean awaitStarted(long timeoutMillis) throws InterruptedException {
+            return started.await(Math.max(timeoutMillis, 0), TimeUnit.MILLISECONDS);
+        }
+
+        public boolean isStarted() {
+            return started.getCount() == 0;
+        }
+
+        public MasterNode getMasterNode() {
+            return masterNode;
+        }
+
+        /**
+         * 从创建启动线程到start返回的耗时，此时已经选出controller、收到槽位分配并开始监听slave连接
+         */
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+    }
+
+}
@@ -9,4 +9,18 @@ public class NodeRequestType {
 
     public static final int VOTE = 1;
     public static final int SLOTS_ALLOCATION = 2;
+    public static final int CONTROLLER_LEASE = 3;
+    public static final int HEARTBEAT = 4;
+    public static final int RPC_REQUEST = 5;
+    public static final int RPC_RESPONSE = 6;
+
+    /**
+     * 是否为控制消息，控制消息走单独的发送通道，总是先于槽位分配等批量数据发送，
+     * 避免投票、租约和心跳被大消息阻塞而引起不必要的重新选举；未知的类型按批量数据处理
+     * 控制消息同时也是幂等的，只关心同类型的最新一条，发送队列满时可以丢弃旧消息而不必阻塞发送方；
+     * 槽位分配和RPC需要按顺序完整送达，既不走控制通道也不能丢弃。新增类型时两点要同时满足才能加入这里
+     */
+    public static boolean isControl(int requestType) {
+        return requestType == VOTE || requestType == CONTROLLER_LEASE || requestType == HEARTBEAT;
+    }
 }
@@ -5,6 +5,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.ss.govern.core.constants.NodeRole;
 import org.ss.govern.server.config.GovernServerConfig;
+import org.ss.govern.server.node.NodeContext;
 import org.ss.govern.server.node.NodeStatus;
 import org.ss.govern.server.node.master.MasterNode;
 import org.ss.govern.server.node.slave.SlaveNode;
@@ -37,7 +38,7 @@ public class GovernServer {
             config.parse(configPath);
             nodeStatus.setStatus(NodeStatus.RUNNING);
             String nodeRole = config.getNodeRole();
-            startNode(nodeRole);
+            startNode(nodeRole, NodeContext.global());
             LOG.info("start govern finish.....");
             waitForShutdown();
         } catch (ConfigurationException e) {
@@ -55,18 +56,18 @@ public class GovernServer {
         }
     }
 
-    private static void startNode(String nodeRole) throws InterruptedException {
+    private static void startNode(String nodeRole, NodeContext context) throws InterruptedException {
         if(NodeRole.MASTER.equals(nodeRole)) {
-            MasterNode master = new MasterNode();
+            MasterNode master = new MasterNode(context);
             master.start();
         } else if(NodeRole.SLAVE.equals(nodeRole)) {
-            SlaveNode slave = new SlaveNode();
+            SlaveNode slave = new SlaveNode(context);
             slave.start();
         }
     }
 
     private static void waitForShutdown() throws InterruptedException {
-        while (NodeStatus.RUNNING == NodeStatus.get()) {
+        while (NodeStatus.getInstance().isRunning()) {
             Thread.sleep(NodeStatus.SHUTDOWN_CHECK_INTERVAL);
         }
         LOG.error("govern server is not running, it will exit at once.....");
@@ -13,7 +13,7 @@ import java.util.regex.Pattern;
  **/
 public class ConfigValidates {
 
-    private static final String MASTER_IP_PORT_REGEX = "(\\d+)\\:(\\d+\\.\\d+\\.\\d+\\.\\d+)\\:(\\d+)\\:(\\d+)\\:(\\d+)";
+    private static final String MASTER_IP_PORT_REGEX = "(\\d+)\\:(\\d+\\.\\d+\\.\\d+\\.\\d+)\\:(\\d+)\\:(\\d+)\\:(\\d+)(\\:([1-9]\\d*))?";
     private static final String NODE_ID_REGEX = "(\\d+)";
 
     public static boolean checkNodeRole(String nodeRole) {
@@ -56,6 +56,49 @@ public class ConfigValidates {
         return isMatch;
     }
 
+    /**
+     * 校验可选的正整数配置项
+     * @return 配置了合法的值返回true，未配置返回false
+     */
+    public static boolean checkPositiveNumber(String name, String value) {
+        if(StringUtils.isEmpty(value)) {
+            return false;
+        }
+        if(!Pattern.matches(NODE_ID_REGEX, value) || Integer.parseInt(value) <= 0) {
+            throw new IllegalArgumentException(name + " must be a positive number");
+        }
+        return true;
+    }
+
+    /**
+     * 校验可选的布尔配置项
+     * @return 配置了合法的值返回true，未配置返回false
+     */
+    public static boolean checkBoolean(String name, String value) {
+        if(StringUtils.isEmpty(value)) {
+            return false;
+        }
+        if(value.equals(Boolean.TRUE.toString()) ||
+            value.equals(Boolean.FALSE.toString())) {
+            return true;
+        }
+        throw new IllegalArgumentException(name + " must be true or false");
+    }
+
+    /**
+     * 校验发送队列满时的处理策略，丢弃旧消息只用于幂等消息，不能作为全局策略
+     * @return 配置了合法的值返回true，未配置返回false
+     */
+    public static boolean checkSendQueuePolicy(String policy) {
+        if(StringUtils.isEmpty(policy)) {
+            return false;
+        }
+        if(policy.equals("block") || policy.equals("fail_fast")) {
+            return true;
+        }
+        throw new IllegalArgumentException("network.send.queue.policy must be block or fail_fast");
+    }
+
     public static boolean checkIsControllerCandidate(String isControllerCandidate) {
         if(StringUtils.isEmpty(isControllerCandidate)) {
             return true;
@@ -12,11 +12,17 @@ import java.util.List;
  **/
 public class ConfigurationParser {
 
-    private ConfigurationParser() {
+    private final GovernServerConfig config;
+
+    /**
+     * 解析指定节点的配置，getInstance()解析进程默认节点的配置
+     */
+    public ConfigurationParser(GovernServerConfig config) {
+        this.config = config;
     }
 
     private static class Singleton {
-        static ConfigurationParser instance = new ConfigurationParser();
+        static ConfigurationParser instance = new ConfigurationParser(GovernServerConfig.getInstance());
     }
 
     public static ConfigurationParser getInstance() {
@@ -24,7 +30,6 @@ public class ConfigurationParser {
     }
 
     public List<NodeAddress> parseMasterNodeServers() {
-        GovernServerConfig config = GovernServerConfig.getInstance();
         String masterNodeServers = config.getMasterNodeServers();
         List<NodeAddress> nodeInfoList = new ArrayList<>();
         for (String masterNodeServer : masterNodeServers.split(";")) {
@@ -34,14 +39,15 @@ public class ConfigurationParser {
             Integer masterConnectPort = Integer.valueOf(splitInfo[2]);
             Integer slaveConnectPort = Integer.valueOf(splitInfo[3]);
             Integer clientConnectPort = Integer.valueOf(splitInfo[4]);
-            nodeInfoList.add(new NodeAddress(nodeId, ip, masterConnectPort, slaveConnectPort, clientConnectPort));
+            //第6项为可选的节点权重
+            Integer weight = splitInfo.length > 5 ? Integer.valueOf(splitInfo[5]) : NodeAddress.DEFAULT_WEIGHT;
+            nodeInfoList.add(new NodeAddress(nodeId, ip, masterConnectPort, slaveConnectPort, clientConnectPort, weight));
         }
         nodeInfoList.sort(Comparator.comparing(NodeAddress::getNodeId));
         return nodeInfoList;
     }
 
     public NodeAddress getSelfNodePeer() {
-        GovernServerConfig config = GovernServerConfig.getInstance();
         String nodeAddr = config.getNodeAddr();
         Integer nodeId = config.getNodeId();
         String[] splitInfo = nodeAddr.split(":");
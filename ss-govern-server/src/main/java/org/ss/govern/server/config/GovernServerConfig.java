@@ -6,6 +6,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.ss.govern.core.constants.NodeRole;
 import org.ss.govern.server.ConfigurationException;
+import org.ss.govern.server.node.network.BackpressurePolicy;
+import org.ss.govern.server.node.slot.SlotAllocationCodec;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -23,7 +25,10 @@ public class GovernServerConfig {
 
     private static final Logger LOG = LoggerFactory.getLogger(GovernServerConfig.class);
 
-    private GovernServerConfig() {
+    /**
+     * 同一个JVM内运行多个节点时，每个节点使用自己的配置实例，getInstance()为进程默认节点的配置
+     */
+    public GovernServerConfig() {
     }
 
     private static class Singleton {
@@ -80,6 +85,153 @@ public class GovernServerConfig {
     @Getter
     private String dataDir;
 
+    private static final int DEFAULT_NETWORK_IO_THREADS =
+            Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 负责网络读写的事件循环线程数量
+     */
+    @Getter
+    private Integer networkIoThreads = DEFAULT_NETWORK_IO_THREADS;
+
+    /**
+     * 接收连接后等待对方完成握手的最长时间，超时后关闭连接
+     */
+    @Getter
+    private Integer handshakeTimeoutMs = 3000;
+
+    /**
+     * 监听端口的accept队列长度，大量slave同时重新连接时避免连接被拒绝
+     */
+    @Getter
+    private Integer acceptBacklog = 1024;
+
+    /**
+     * rpc调用的默认超时时间
+     */
+    @Getter
+    private Integer rpcTimeoutMs = 3000;
+
+    /**
+     * 每个远程节点允许同时未完成的rpc请求数
+     */
+    @Getter
+    private Integer rpcMaxInFlightPerPeer = 256;
+
+    /**
+     * 处理rpc请求的线程数
+     */
+    @Getter
+    private Integer rpcHandlerThreads = 4;
+
+    /**
+     * 合并写出时一批最多包含的消息条数
+     */
+    @Getter
+    private Integer writeBatchMaxFrames = 64;
+
+    /**
+     * 合并写出时一批最多包含的字节数
+     */
+    @Getter
+    private Integer writeBatchMaxBytes = 256 * 1024;
+
+    /**
+     * 允许接收的最大消息长度，超过该长度的消息会被拒绝
+     */
+    @Getter
+    private Integer maxFrameSize = 8 * 1024 * 1024;
+
+    /**
+     * 接收缓冲区池是否使用堆外内存
+     */
+    @Getter
+    private Boolean bufferPoolDirect = Boolean.FALSE;
+
+    /**
+     * 每个远程节点发送队列的容量
+     */
+    @Getter
+    private Integer sendQueueCapacity = 4096;
+
+    /**
+     * 批量发送队列满时的处理策略，默认快速失败，避免一个处理慢的节点阻塞发送线程；控制队列总是快速失败
+     */
+    @Getter
+    private BackpressurePolicy sendQueuePolicy = BackpressurePolicy.FAIL_FAST;
+
+    /**
+     * 每个slave节点接收队列的容量
+     */
+    @Getter
+    private Integer slaveRecvQueueCapacity = 4096;
+
+    /**
+     * 处理slave消息的工作线程数，每个线程负责 slaveId % 线程数 相同的slave
+     */
+    @Getter
+    private Integer slaveWorkerThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 槽位总数，集群内所有master节点必须一致
+     */
+    @Getter
+    private Integer slotsCount = 16384;
+
+    /**
+     * controller选举一个任期的超时时间，实际超时在该值和两倍该值之间随机
+     */
+    @Getter
+    private Integer electionTimeoutMs = 3000;
+
+    /**
+     * controller续期租约的间隔
+     */
+    @Getter
+    private Integer leaseRenewIntervalMs = 1000;
+
+    /**
+     * 超过该时间没有收到controller的租约续期即认为controller失效，必须大于续期间隔
+     */
+    @Getter
+    private Integer leaseTimeoutMs = 3000;
+
+    /**
+     * 向其他节点发送心跳的间隔
+     */
+    @Getter
+    private Integer heartbeatIntervalMs = 500;
+
+    /**
+     * phi值超过该阈值时认为节点疑似失效
+     */
+    @Getter
+    private Integer phiThreshold = 8;
+
+    /**
+     * 可以容忍的心跳停顿时间，比如GC停顿，避免误判节点失效
+     */
+    @Getter
+    private Integer acceptableHeartbeatPauseMs = 1000;
+
+    /**
+     * 和master节点断开后第一次重新连接前的等待时间，之后每次失败翻倍
+     */
+    @Getter
+    private Integer reconnectBackoffInitialMs = 100;
+
+    /**
+     * 重新连接等待时间的上限
+     */
+    @Getter
+    private Integer reconnectBackoffMaxMs = 5000;
+
+    /**
+     * 启动时超过半数master节点连接成功后，再等待其余master节点连接的最长时间
+     */
+    @Getter
+    private Integer startupPeerGraceMs = 3000;
+
     /**
      * 解析配置文件
      *
@@ -91,55 +243,251 @@ public class GovernServerConfig {
             Properties configProperties;
             configProperties = loadConfigurationFile(configPath);
             LOG.info("successfully loading configuration from file " + configPath);
-            String nodeRole = configProperties.getProperty("node.role");
-            if (ConfigValidates.checkNodeRole(nodeRole)) {
-                this.nodeRole = nodeRole;
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("debug parameter value : master.role=" + nodeRole);
-                }
+            parseProperties(configProperties);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("error processing " + configPath, e);
+        } catch (FileNotFoundException e) {
+            throw new ConfigurationException("file not found " + configPath, e);
+        } catch (IOException e) {
+            throw new ConfigurationException("error processing IO " + configPath, e);
+        }
+    }
+
+    /**
+     * 解析已经加载好的配置项，在同一个JVM内启动多个节点时不需要配置文件
+     *
+     * @param configProperties
+     */
+    public void parse(Properties configProperties) throws ConfigurationException {
+        try {
+            parseProperties(configProperties);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("error processing configuration properties", e);
+        }
+    }
+
+    private void parseProperties(Properties configProperties) {
+        String nodeRole = configProperties.getProperty("node.role");
+        if (ConfigValidates.checkNodeRole(nodeRole)) {
+            this.nodeRole = nodeRole;
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : master.role=" + nodeRole);
             }
-            String masterNodeServers = configProperties.getProperty("master.node.servers");
-            if (ConfigValidates.checkMasterNodeServers(masterNodeServers, nodeRole)) {
-                this.masterNodeServers = masterNodeServers;
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("debug parameter value : master.node.servers=" + masterNodeServers);
-                }
+        }
+        String masterNodeServers = configProperties.getProperty("master.node.servers");
+        if (ConfigValidates.checkMasterNodeServers(masterNodeServers, nodeRole)) {
+            this.masterNodeServers = masterNodeServers;
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : master.node.servers=" + masterNodeServers);
+            }
+        }
+        String nodeId = configProperties.getProperty("node.id");
+        if (ConfigValidates.checkNodeId(nodeId)) {
+            this.nodeId = Integer.valueOf(nodeId);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : node.id=" + nodeId);
             }
-            String nodeId = configProperties.getProperty("node.id");
-            if (ConfigValidates.checkNodeId(nodeId)) {
-                this.nodeId = Integer.valueOf(nodeId);
+        }
+        String isControllerCandidate = configProperties.getProperty("is.controller.candidate");
+        if (ConfigValidates.checkIsControllerCandidate(isControllerCandidate)) {
+            if (NodeRole.SLAVE.equals(nodeRole)) {
+                this.isControllerCandidate = Boolean.TRUE;
+            } else if (StringUtils.isEmpty(isControllerCandidate)
+                    && NodeRole.MASTER.equals(nodeRole)) {
+                this.isControllerCandidate = Boolean.FALSE;
+            } else {
+                this.isControllerCandidate = Boolean.valueOf(isControllerCandidate);
                 if (LOG.isDebugEnabled()) {
-                    LOG.debug("debug parameter value : node.id=" + nodeId);
+                    LOG.debug("debug parameter value : is.controller.candidate=" + isControllerCandidate);
                 }
             }
-            String isControllerCandidate = configProperties.getProperty("is.controller.candidate");
-            if (ConfigValidates.checkIsControllerCandidate(isControllerCandidate)) {
-                if (NodeRole.SLAVE.equals(nodeRole)) {
-                    this.isControllerCandidate = Boolean.TRUE;
-                } else if (StringUtils.isEmpty(isControllerCandidate)
-                        && NodeRole.MASTER.equals(nodeRole)) {
-                    this.isControllerCandidate = Boolean.FALSE;
-                } else {
-                    this.isControllerCandidate = Boolean.valueOf(isControllerCandidate);
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("debug parameter value : is.controller.candidate=" + isControllerCandidate);
-                    }
-                }
+        }
+        this.nodeAddr = configProperties.getProperty("node.address");
+        if(NodeRole.SLAVE.equals(nodeRole)) {
+            this.masterNodeAddress = configProperties.getProperty("master.node.address");
+            this.masterNodePort = Integer.valueOf(configProperties.getProperty("master.node.port"));
+        }
+        this.dataDir = configProperties.getProperty("data.dir");
+        String handshakeTimeoutMs = configProperties.getProperty("network.handshake.timeout.ms");
+        if (ConfigValidates.checkPositiveNumber("network.handshake.timeout.ms", handshakeTimeoutMs)) {
+            this.handshakeTimeoutMs = Integer.valueOf(handshakeTimeoutMs);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : network.handshake.timeout.ms=" + handshakeTimeoutMs);
             }
-            this.nodeAddr = configProperties.getProperty("node.address");
-            if(NodeRole.SLAVE.equals(nodeRole)) {
-                this.masterNodeAddress = configProperties.getProperty("master.node.address");
-                this.masterNodePort = Integer.valueOf(configProperties.getProperty("master.node.port"));
+        }
+        String acceptBacklog = configProperties.getProperty("network.accept.backlog");
+        if (ConfigValidates.checkPositiveNumber("network.accept.backlog", acceptBacklog)) {
+            this.acceptBacklog = Integer.valueOf(acceptBacklog);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : network.accept.backlog=" + acceptBacklog);
+            }
+        }
+        String rpcTimeoutMs = configProperties.getProperty("rpc.timeout.ms");
+        if (ConfigValidates.checkPositiveNumber("rpc.timeout.ms", rpcTimeoutMs)) {
+            this.rpcTimeoutMs = Integer.valueOf(rpcTimeoutMs);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : rpc.timeout.ms=" + rpcTimeoutMs);
+            }
+        }
+        String rpcMaxInFlightPerPeer = configProperties.getProperty("rpc.max.inflight.per.peer");
+        if (ConfigValidates.checkPositiveNumber("rpc.max.inflight.per.peer", rpcMaxInFlightPerPeer)) {
+            this.rpcMaxInFlightPerPeer = Integer.valueOf(rpcMaxInFlightPerPeer);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : rpc.max.inflight.per.peer=" + rpcMaxInFlightPerPeer);
+            }
+        }
+        String rpcHandlerThreads = configProperties.getProperty("rpc.handler.threads");
+        if (ConfigValidates.checkPositiveNumber("rpc.handler.threads", rpcHandlerThreads)) {
+            this.rpcHandlerThreads = Integer.valueOf(rpcHandlerThreads);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : rpc.handler.threads=" + rpcHandlerThreads);
+            }
+        }
+        String networkIoThreads = configProperties.getProperty("network.io.threads");
+        if (ConfigValidates.checkPositiveNumber("network.io.threads", networkIoThreads)) {
+            this.networkIoThreads = Integer.valueOf(networkIoThreads);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : network.io.threads=" + networkIoThreads);
+            }
+        }
+        String writeBatchMaxFrames = configProperties.getProperty("network.write.batch.max.frames");
+        if (ConfigValidates.checkPositiveNumber("network.write.batch.max.frames", writeBatchMaxFrames)) {
+            this.writeBatchMaxFrames = Integer.valueOf(writeBatchMaxFrames);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : network.write.batch.max.frames=" + writeBatchMaxFrames);
+            }
+        }
+        String writeBatchMaxBytes = configProperties.getProperty("network.write.batch.max.bytes");
+        if (ConfigValidates.checkPositiveNumber("network.write.batch.max.bytes", writeBatchMaxBytes)) {
+            this.writeBatchMaxBytes = Integer.valueOf(writeBatchMaxBytes);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : network.write.batch.max.bytes=" + writeBatchMaxBytes);
+            }
+        }
+        String maxFrameSize = configProperties.getProperty("network.max.frame.size");
+        if (ConfigValidates.checkPositiveNumber("network.max.frame.size", maxFrameSize)) {
+            this.maxFrameSize = Integer.valueOf(maxFrameSize);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : network.max.frame.size=" + maxFrameSize);
+            }
+        }
+        String bufferPoolDirect = configProperties.getProperty("network.buffer.pool.direct");
+        if (ConfigValidates.checkBoolean("network.buffer.pool.direct", bufferPoolDirect)) {
+            this.bufferPoolDirect = Boolean.valueOf(bufferPoolDirect);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : network.buffer.pool.direct=" + bufferPoolDirect);
+            }
+        }
+        String sendQueueCapacity = configProperties.getProperty("network.send.queue.capacity");
+        if (ConfigValidates.checkPositiveNumber("network.send.queue.capacity", sendQueueCapacity)) {
+            this.sendQueueCapacity = Integer.valueOf(sendQueueCapacity);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : network.send.queue.capacity=" + sendQueueCapacity);
+            }
+        }
+        String sendQueuePolicy = configProperties.getProperty("network.send.queue.policy");
+        if (ConfigValidates.checkSendQueuePolicy(sendQueuePolicy)) {
+            this.sendQueuePolicy = BackpressurePolicy.parse(sendQueuePolicy);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : network.send.queue.policy=" + sendQueuePolicy);
+            }
+        }
+        String slaveWorkerThreads = configProperties.getProperty("slave.worker.threads");
+        if (ConfigValidates.checkPositiveNumber("slave.worker.threads", slaveWorkerThreads)) {
+            this.slaveWorkerThreads = Integer.valueOf(slaveWorkerThreads);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : slave.worker.threads=" + slaveWorkerThreads);
+            }
+        }
+        String slaveRecvQueueCapacity = configProperties.getProperty("network.slave.recv.queue.capacity");
+        if (ConfigValidates.checkPositiveNumber("network.slave.recv.queue.capacity", slaveRecvQueueCapacity)) {
+            this.slaveRecvQueueCapacity = Integer.valueOf(slaveRecvQueueCapacity);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : network.slave.recv.queue.capacity=" + slaveRecvQueueCapacity);
+            }
+        }
+        String slotsCount = configProperties.getProperty("slots.count");
+        if (ConfigValidates.checkPositiveNumber("slots.count", slotsCount)) {
+            this.slotsCount = Integer.valueOf(slotsCount);
+            if (this.slotsCount > SlotAllocationCodec.MAX_SLOT_COUNT) {
+                throw new IllegalArgumentException("slots.count must not exceed " + SlotAllocationCodec.MAX_SLOT_COUNT);
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : slots.count=" + slotsCount);
+            }
+        }
+        String electionTimeoutMs = configProperties.getProperty("controller.election.timeout.ms");
+        if (ConfigValidates.checkPositiveNumber("controller.election.timeout.ms", electionTimeoutMs)) {
+            this.electionTimeoutMs = Integer.valueOf(electionTimeoutMs);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : controller.election.timeout.ms=" + electionTimeoutMs);
+            }
+        }
+        String leaseRenewIntervalMs = configProperties.getProperty("controller.lease.renew.interval.ms");
+        if (ConfigValidates.checkPositiveNumber("controller.lease.renew.interval.ms", leaseRenewIntervalMs)) {
+            this.leaseRenewIntervalMs = Integer.valueOf(leaseRenewIntervalMs);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : controller.lease.renew.interval.ms=" + leaseRenewIntervalMs);
+            }
+        }
+        String leaseTimeoutMs = configProperties.getProperty("controller.lease.timeout.ms");
+        if (ConfigValidates.checkPositiveNumber("controller.lease.timeout.ms", leaseTimeoutMs)) {
+            this.leaseTimeoutMs = Integer.valueOf(leaseTimeoutMs);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : controller.lease.timeout.ms=" + leaseTimeoutMs);
+            }
+        }
+        if (this.leaseTimeoutMs <= this.leaseRenewIntervalMs) {
+            throw new IllegalArgumentException("controller.lease.timeout.ms must be greater than "
+                    + "controller.lease.renew.interval.ms");
+        }
+        String heartbeatIntervalMs = configProperties.getProperty("heartbeat.interval.ms");
+        if (ConfigValidates.checkPositiveNumber("heartbeat.interval.ms", heartbeatIntervalMs)) {
+            this.heartbeatIntervalMs = Integer.valueOf(heartbeatIntervalMs);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : heartbeat.interval.ms=" + heartbeatIntervalMs);
+            }
+        }
+        String phiThreshold = configProperties.getProperty("failure.detector.phi.threshold");
+        if (ConfigValidates.checkPositiveNumber("failure.detector.phi.threshold", phiThreshold)) {
+            this.phiThreshold = Integer.valueOf(phiThreshold);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : failure.detector.phi.threshold=" + phiThreshold);
+            }
+        }
+        String acceptableHeartbeatPauseMs = configProperties.getProperty("failure.detector.acceptable.pause.ms");
+        if (ConfigValidates.checkPositiveNumber("failure.detector.acceptable.pause.ms", acceptableHeartbeatPauseMs)) {
+            this.acceptableHeartbeatPauseMs = Integer.valueOf(acceptableHeartbeatPauseMs);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : failure.detector.acceptable.pause.ms=" + acceptableHeartbeatPauseMs);
+            }
+        }
+        String reconnectBackoffInitialMs = configProperties.getProperty("reconnect.backoff.initial.ms");
+        if (ConfigValidates.checkPositiveNumber("reconnect.backoff.initial.ms", reconnectBackoffInitialMs)) {
+            this.reconnectBackoffInitialMs = Integer.valueOf(reconnectBackoffInitialMs);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : reconnect.backoff.initial.ms=" + reconnectBackoffInitialMs);
+            }
+        }
+        String reconnectBackoffMaxMs = configProperties.getProperty("reconnect.backoff.max.ms");
+        if (ConfigValidates.checkPositiveNumber("reconnect.backoff.max.ms", reconnectBackoffMaxMs)) {
+            this.reconnectBackoffMaxMs = Integer.valueOf(reconnectBackoffMaxMs);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : reconnect.backoff.max.ms=" + reconnectBackoffMaxMs);
+            }
+        }
+        if (this.reconnectBackoffMaxMs < this.reconnectBackoffInitialMs) {
+            throw new IllegalArgumentException("reconnect.backoff.max.ms must not be less than "
+                    + "reconnect.backoff.initial.ms");
+        }
+        String startupPeerGraceMs = configProperties.getProperty("startup.peer.grace.ms");
+        if (ConfigValidates.checkPositiveNumber("startup.peer.grace.ms", startupPeerGraceMs)) {
+            this.startupPeerGraceMs = Integer.valueOf(startupPeerGraceMs);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("debug parameter value : startup.peer.grace.ms=" + startupPeerGraceMs);
             }
-            this.dataDir = configProperties.getProperty("data.dir");
-            LOG.info("successfully validation all configuration entries");
-        } catch (IllegalArgumentException e) {
-            throw new ConfigurationException("error processing " + configPath, e);
-        } catch (FileNotFoundException e) {
-            throw new ConfigurationException("file not found " + configPath, e);
-        } catch (IOException e) {
-            throw new ConfigurationException("error processing IO " + configPath, e);
         }
+        LOG.info("successfully validation all configuration entries");
     }
 
     private Properties loadConfigurationFile(String configPath) throws IOException {
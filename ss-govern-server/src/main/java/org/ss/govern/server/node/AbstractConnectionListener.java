@@ -9,6 +9,7 @@ import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.ServerSocketChannel;
 
 /**
  * @author wangsz
@@ -18,7 +19,7 @@ public abstract class AbstractConnectionListener extends Thread {
 
     private static final Logger LOG = LoggerFactory.getLogger(AbstractConnectionListener.class);
 
-    protected ServerSocket serverSocket;
+    protected volatile ServerSocket serverSocket;
 
     /**
      * 已重试次数
@@ -32,10 +33,13 @@ public abstract class AbstractConnectionListener extends Thread {
      */
     protected int bindPort;
 
-    private NetworkManager networkManager;
+    protected final NodeContext context;
 
-    public AbstractConnectionListener(NetworkManager networkManager) {
-        this.networkManager = networkManager;
+    private final NodeStatus nodeStatus;
+
+    public AbstractConnectionListener(NodeContext context) {
+        this.context = context;
+        this.nodeStatus = context.getStatus();
     }
 
     private void setSockOpts(Socket sock) throws SocketException {
@@ -47,17 +51,18 @@ public abstract class AbstractConnectionListener extends Thread {
     @Override
     public void run() {
         Socket client = null;
-        while (NodeStatus.isRunning() && retyies <= DEFAULT_RETRIES) {
+        while (nodeStatus.isRunning() && retyies <= DEFAULT_RETRIES) {
             try {
                 InetSocketAddress endpoint = new InetSocketAddress(bindPort);
-                serverSocket = new ServerSocket();
+                //通过channel创建server socket，接收到的连接才能交给事件循环处理
+                serverSocket = ServerSocketChannel.open().socket();
                 //与其他节点意外断开连接后，此时连接处于timeout状态，无法重新绑定端口号
                 //也就说服务端此时还没有真正关闭这个端口
                 //设置为true后，允许重新对端口号进行绑定连接
                 serverSocket.setReuseAddress(true);
-                serverSocket.bind(endpoint);
+                serverSocket.bind(endpoint, context.getConfig().getAcceptBacklog());
                 LOG.info("binding port " + bindPort + " success");
-                while (NodeStatus.isRunning()) {
+                while (nodeStatus.isRunning()) {
                     client = this.serverSocket.accept();
                     setSockOpts(client);
                     LOG.info("Received connection request "
@@ -66,7 +71,7 @@ public abstract class AbstractConnectionListener extends Thread {
                     retyies = 0;
                 }
             } catch (IOException e) {
-                if (!NodeStatus.isRunning()) {
+                if (!nodeStatus.isRunning()) {
                     break;
                 }
                 LOG.error("Exception while listening", e);
@@ -77,13 +82,27 @@ public abstract class AbstractConnectionListener extends Thread {
                 closeSocket(client);
             }
         }
-        NodeStatus nodeStatus = NodeStatus.getInstance();
-        nodeStatus.setStatus(NodeStatus.FATAL);
+        if (!nodeStatus.isRunning()) {
+            LOG.info("stop listening port " + bindPort);
+            return;
+        }
+        nodeStatus.fatal();
         LOG.error("failed to listen other node's connection. going to shutdown system");
     }
 
-    protected boolean checkNodeIsConnected(Integer nodeId) {
-        return networkManager.getConnectByNodeId(nodeId) != null;
+    /**
+     * 停止监听，节点状态需要先切换为非运行状态，否则会重新绑定端口
+     */
+    public void shutdown() {
+        ServerSocket socket = serverSocket;
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            LOG.error("Error closing server socket", e);
+        }
     }
 
     private void closeSocket(Socket client) {
@@ -96,7 +115,14 @@ public abstract class AbstractConnectionListener extends Thread {
             LOG.error("ConnectionListener Interrupted while sleeping. " +
                     "Ignoring exception", ie);
         }
-        networkManager.closeSocket(client);
+        if (client == null) {
+            return;
+        }
+        try {
+            client.close();
+        } catch (IOException ie) {
+            LOG.error("Exception while closing", ie);
+        }
     }
 
     protected abstract void doAccept(Socket client);
@@ -1,18 +1,24 @@
 package org.ss.govern.server.node;
 
-import com.alibaba.fastjson.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.ss.govern.core.constants.NodeRequestType;
-import org.ss.govern.server.node.master.Vote;
+import org.ss.govern.server.node.master.ControllerLease;
+import org.ss.govern.server.node.dispatch.ExecutorPolicy;
+import org.ss.govern.server.node.dispatch.MessageDispatcher;
+import org.ss.govern.server.node.master.VoteBox;
+import org.ss.govern.server.node.slot.SlotAllocation;
+import org.ss.govern.server.node.slot.SlotAllocationCodec;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 通信数据接收组件
+ * 从master接收队列取出消息交给分发器，按请求类型由注册的处理器处理
  * @author wangsz
  * @create 2020-07-15
  **/
@@ -26,55 +32,143 @@ public class MessageReceiver extends Thread {
     private NetworkManager networkManager;
 
     /**
-     * 投票消息接收队列
+     * 选票箱，收到的选票直接写入，不创建选票对象
      */
-    private LinkedBlockingQueue<Vote> voteReceiveQueue =
-            new LinkedBlockingQueue<>();
+    private final VoteBox voteBox;
+
     /**
      * 槽位数据接收队列
      */
-    private LinkedBlockingQueue<List<Integer>> slotsAllocationReceiveQueue =
+    private LinkedBlockingQueue<SlotAllocation> slotsAllocationReceiveQueue =
             new LinkedBlockingQueue<>();
 
+    /**
+     * controller的租约，收到续期消息时更新
+     */
+    private final ControllerLease controllerLease = new ControllerLease();
+
+    /**
+     * 最近收到的槽位分配，选举期间用来判断是否已经有controller在工作
+     */
+    private volatile SlotAllocation latestSlotsAllocation;
+
+    /**
+     * 按请求类型分发消息
+     */
+    private final MessageDispatcher dispatcher;
+
+    private final NodeStatus nodeStatus;
+
+    /**
+     * 配置的槽位数量，收到的槽位分配必须与之一致
+     */
+    private final int slotsCount;
+
     public MessageReceiver(NetworkManager networkManager) {
         this.networkManager = networkManager;
+        this.nodeStatus = networkManager.getContext().getStatus();
+        this.slotsCount = networkManager.getContext().getConfig().getSlotsCount();
+        List<Integer> masterNodeIds = new ArrayList<>();
+        for (NodeAddress nodeAddress : networkManager.getContext().getConfigurationParser().parseMasterNodeServers()) {
+            masterNodeIds.add(nodeAddress.getNodeId());
+        }
+        this.voteBox = new VoteBox(masterNodeIds);
+        this.dispatcher = new MessageDispatcher(networkManager::releaseMessage);
+        //投票和租约处理很快，直接在接收线程内处理；槽位分配需要解码，交给单独的线程
+        dispatcher.register(NodeRequestType.VOTE, "vote", ExecutorPolicy.INLINE, this::handleVote);
+        dispatcher.register(NodeRequestType.CONTROLLER_LEASE, "controller-lease", ExecutorPolicy.INLINE,
+                this::handleControllerLease);
+        dispatcher.register(NodeRequestType.SLOTS_ALLOCATION, "slots-allocation", ExecutorPolicy.DEDICATED,
+                this::handleSlotsAllocation);
     }
 
     @Override
     public void run() {
-        while(NodeStatus.isRunning()) {
+        while(nodeStatus.isRunning()) {
             try {
-                ByteBuffer message = networkManager.takeMasterRecvMessage();
-                int messageType = message.getInt();
-
-                if (messageType == NodeRequestType.VOTE) {
-                    Vote vote = new Vote(message);
-                    voteReceiveQueue.put(vote);
-                } else if (messageType == NodeRequestType.SLOTS_ALLOCATION) {
-                    //获取剩余的数据，即除去总长度和类型之后
-                    int remaining = message.remaining();
-                    byte[] slotsAllocationByteArray = new byte[remaining];
-                    message.get(slotsAllocationByteArray);
-                    String slotsAllocationJSON = new String(slotsAllocationByteArray);
-                    List<Integer> slotsAllocation = JSONObject.parseArray(slotsAllocationJSON, Integer.class);
-                    slotsAllocationReceiveQueue.put(slotsAllocation);
+                dispatcher.dispatch(networkManager.takeMasterRecvMessage());
+            } catch (InterruptedException e) {
+                if (nodeStatus.isRunning()) {
+                    LOGGER.error("receive message interrupted......", e);
                 }
             } catch(Exception e) {
                 LOGGER.error("receive message error......", e);
             }
         }
+        LOGGER.info("message receiver stopped, " + dispatcher.getMetrics());
+        dispatcher.shutdown();
+    }
+
+    private void handleVote(ByteBuffer message) {
+        int voterId = message.getInt();
+        int candidateId = message.getInt();
+        int term = message.getInt();
+        if (!voteBox.offer(voterId, candidateId, term) && LOGGER.isDebugEnabled()) {
+            LOGGER.debug("discard vote of " + voterId + " for " + candidateId + ", term " + term);
+        }
+    }
+
+    private void handleControllerLease(ByteBuffer message) {
+        int controllerId = message.getInt();
+        int term = message.getInt();
+        if (!controllerLease.renew(controllerId, term) && LOGGER.isDebugEnabled()) {
+            LOGGER.debug("ignore stale lease of controller " + controllerId + ", term " + term);
+        }
     }
 
-    public Vote takeVote() {
+    private void handleSlotsAllocation(ByteBuffer message) throws InterruptedException {
+        //剩余的数据，即除去总长度和类型之后，为编码后的槽位分配
+        SlotAllocation slotsAllocation;
         try {
-            return voteReceiveQueue.take();
-        } catch(Exception e) {
-            LOGGER.error("take vote message error......", e);
-            return null;
+            slotsAllocation = SlotAllocationCodec.decode(message);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("discard corrupted slots allocation: " + e.getMessage());
+            return;
         }
+        //槽位数量和本节点配置不一致时不能使用，否则会安装错误大小的槽位表并持久化
+        if (slotsAllocation.getSlotOwners().length != slotsCount) {
+            LOGGER.warn("discard slots allocation with " + slotsAllocation.getSlotOwners().length
+                    + " slots from controller " + slotsAllocation.getControllerId()
+                    + ", slots.count is " + slotsCount);
+            return;
+        }
+        SlotAllocation latest = latestSlotsAllocation;
+        if (latest == null || slotsAllocation.getEpoch() > latest.getEpoch()) {
+            latestSlotsAllocation = slotsAllocation;
+        }
+        slotsAllocationReceiveQueue.put(slotsAllocation);
+    }
+
+    /**
+     * 其他组件为自己负责的消息类型注册处理器
+     */
+    public MessageDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public VoteBox getVoteBox() {
+        return voteBox;
+    }
+
+    public ControllerLease getControllerLease() {
+        return controllerLease;
+    }
+
+    /**
+     * 最近收到的epoch最大的槽位分配，还没有收到时返回null
+     */
+    public SlotAllocation getLatestSlotsAllocation() {
+        return latestSlotsAllocation;
+    }
+
+    /**
+     * 获取槽位分配，超时返回null
+     */
+    public SlotAllocation pollSlotsAllocation(long timeoutMillis) throws InterruptedException {
+        return slotsAllocationReceiveQueue.poll(timeoutMillis, TimeUnit.MILLISECONDS);
     }
 
-    public List<Integer> takeSlotsAllocation() {
+    public SlotAllocation takeSlotsAllocation() {
         try {
             return slotsAllocationReceiveQueue.take();
         } catch(Exception e) {
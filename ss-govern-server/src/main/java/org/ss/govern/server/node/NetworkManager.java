@@ -3,73 +3,111 @@ package org.ss.govern.server.node;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.ss.govern.server.config.ConfigurationParser;
 import org.ss.govern.server.config.GovernServerConfig;
-import org.ss.govern.server.node.master.MasterConnectionListener;
+import org.ss.govern.server.node.dispatch.SlaveRequestPipeline;
 import org.ss.govern.server.node.master.MasterNodePeer;
-import org.ss.govern.server.node.master.NetworkReadThread;
-import org.ss.govern.server.node.master.NetworkWriteThread;
-import org.ss.govern.server.node.master.SlaveConnectionListener;
+import org.ss.govern.server.node.network.BufferPool;
+import org.ss.govern.server.node.network.Connection;
+import org.ss.govern.server.node.network.ConnectionMetrics;
+import org.ss.govern.server.node.network.HandshakeMetrics;
+import org.ss.govern.server.node.network.MasterHandshake;
+import org.ss.govern.server.node.network.MasterTransportHandler;
+import org.ss.govern.server.node.network.ReconnectMetrics;
+import org.ss.govern.server.node.network.SendLane;
+import org.ss.govern.server.node.network.SendQueue;
+import org.ss.govern.server.node.network.TimerWheel;
+import org.ss.govern.server.node.network.Transport;
 import org.ss.govern.server.node.slave.SlaveNodePeer;
-import org.ss.govern.utils.ThreadUtils;
-
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.net.Socket;
+import org.ss.govern.server.node.slot.SlotAllocation;
+
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
 
 /**
  * 集群节点间的通信管理组件
  * master和master  master和slave之间通信
  * 1、和其他master节点建立网络连接，避免出现重复的链接
- * 2、底层基于队列和线程，发送请求给其他节点，接收其他节点
+ * 2、底层基于队列和可替换的Transport，发送请求给其他节点，接收其他节点
  * 发送过来的请求放入接收队列
  *
  * @author wangsz
  * @create 2020-04-09
  **/
-public class NetworkManager {
+public class NetworkManager implements MasterTransportHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(NetworkManager.class);
 
-    private final int DEFAULT_RETRIES = 3;
-    private final int CONNECT_TIMEOUT = 5000;
+    /**
+     * 等待节点连接时检查节点状态的间隔
+     */
+    private final int CONNECTED_CHECK_INTERVAL = 500;
+
+    /**
+     * 工作线程每次从一个slave的接收队列最多取出的消息数
+     */
+    private static final int SLAVE_MESSAGE_BATCH_SIZE = 64;
+
+    private static final long TIMER_TICK_MILLIS = 50;
+
+    private static final int TIMER_WHEEL_SIZE = 512;
+
+    private NodeContext context;
 
     private NodeManager nodeManager;
 
     private GovernServerConfig config;
 
     /**
-     * 等待重试发起连接的master列表
+     * 建立连接和收发消息的方式，默认基于TCP
+     */
+    private Transport transport;
+
+    /**
+     * 连接失败或断开的master节点由调度器按指数退避重新连接
+     */
+    private ReconnectScheduler reconnectScheduler;
+
+    /**
+     * 重新连接和握手超时共用的定时器
+     */
+    private TimerWheel timerWheel = new TimerWheel("network-timer", TIMER_TICK_MILLIS, TIMER_WHEEL_SIZE);
+
+    /**
+     * 和master节点的连接断开且没有新连接替代时通知的监听器，参数为nodeId
+     */
+    private List<Consumer<Integer>> masterConnectionClosedListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 有远程节点连接成功时唤醒等待启动的线程
      */
-    private List<NodeAddress> retryConnectOtherMasterNodes = new CopyOnWriteArrayList<>();
+    private final Object nodeConnectedLock = new Object();
 
     /**
-     * 其他远程节点建立好的连接
+     * 与其他master节点建立好的连接，每个连接持有自己的发送队列
      * key nodeId
-     * value socket
      */
-    private ConcurrentHashMap<Integer, Socket> remoteNodeSockets = new ConcurrentHashMap<>();
+    private Map<Integer, Connection> masterConnections = new ConcurrentHashMap<>();
 
     /**
-     * master节点向外发送数据队列
+     * 连接到本节点的slave的连接，slave的id和master的id可能重复，所以和master的连接分开保存
+     * key slaveId
      */
-    private Map<Integer, LinkedBlockingQueue<ByteBuffer>> queueSendMap = new ConcurrentHashMap<>();
+    private Map<Integer, Connection> slaveConnections = new ConcurrentHashMap<>();
 
     /**
-     * slave节点发送的数据接收队列
+     * slave节点发送消息的处理流水线，持有每个slave的接收队列，有界队列满时暂停读取该slave的连接
      */
-    private Map<Integer, LinkedBlockingQueue<ByteBuffer>> slaveQueueRecvMap = new ConcurrentHashMap<>();
+    private SlaveRequestPipeline slaveRequestPipeline;
 
     /**
      * master节点发送的数据接收队列
@@ -78,16 +116,62 @@ public class NetworkManager {
 
     private NodeAddress self;
 
-    public NetworkManager(NodeManager nodeManager) {
-        this.config = GovernServerConfig.getInstance();
+    /**
+     * 接收消息的缓冲区池
+     */
+    private BufferPool bufferPool;
+
+    /**
+     * 本地持久化的槽位分配epoch和controller，握手时报告给其他master节点
+     */
+    private volatile long localSlotsEpoch = SlotAllocation.NO_EPOCH;
+
+    private volatile int localSlotsControllerId = SlotAllocation.UNKNOWN_CONTROLLER;
+
+    public NetworkManager(NodeContext context, NodeManager nodeManager) {
+        this.context = context;
+        this.config = context.getConfig();
         this.nodeManager = nodeManager;
-        ConfigurationParser configurationParser = ConfigurationParser.getInstance();
-        this.self = configurationParser.getSelfNodePeer();
-        new RetryConnectMasterNodeThread().start();
+        this.self = context.getConfigurationParser().getSelfNodePeer();
+        this.bufferPool = new BufferPool(config.getMaxFrameSize(), config.getBufferPoolDirect());
+        this.slaveRequestPipeline = new SlaveRequestPipeline(context.getStatus(), config.getSlaveWorkerThreads(),
+                SLAVE_MESSAGE_BATCH_SIZE, this::releaseMessage);
+        this.slaveRequestPipeline.start();
+        this.timerWheel.start();
+        this.transport = context.getTransportFactory().create(context, this);
+        this.reconnectScheduler = new ReconnectScheduler(this, timerWheel);
     }
 
     public void waitOtherMasterNodesConnect() {
-        new MasterConnectionListener(this).start();
+        NodeAddress selfAddress = getSelf();
+        if (selfAddress != null) {
+            transport.listenMasterConnections(selfAddress);
+            announceToAfterMasterNodes();
+        }
+    }
+
+    /**
+     * 开始监听后通知id比自己大的节点，本节点重启时它们正在退避等待重新连接，收到通知后可以立即重试
+     * 集群首次启动时对方没有在重新连接，忽略通知即可
+     */
+    private void announceToAfterMasterNodes() {
+        Integer nodeId = config.getNodeId();
+        List<NodeAddress> afterMasterNodes = new ArrayList<>();
+        for (NodeAddress nodeInfo : context.getConfigurationParser().parseMasterNodeServers()) {
+            if (nodeInfo.getNodeId() > nodeId) {
+                afterMasterNodes.add(nodeInfo);
+            }
+        }
+        if (afterMasterNodes.isEmpty()) {
+            return;
+        }
+        Thread announceThread = new Thread(() -> {
+            for (NodeAddress afterMasterNode : afterMasterNodes) {
+                transport.announceMaster(afterMasterNode);
+            }
+        }, "master-announce");
+        announceThread.setDaemon(true);
+        announceThread.start();
     }
 
     public void connectOtherMasterNodes() {
@@ -95,8 +179,14 @@ public class NetworkManager {
         if (CollectionUtils.isEmpty(beforeMasterNodes)) {
             return;
         }
+        //连接和握手都在事件循环上异步完成并有超时，启动耗时取决于最慢的节点而不是所有节点之和，
+        //不应答的节点也只会在超时后转为重新连接
         for (NodeAddress beforeMasterNode : beforeMasterNodes) {
-            connectBeforeMasterNode(beforeMasterNode);
+            connectMasterNode(beforeMasterNode).thenAccept(connected -> {
+                if (!connected) {
+                    reconnectScheduler.schedule(beforeMasterNode);
+                }
+            });
         }
     }
 
@@ -104,121 +194,121 @@ public class NetworkManager {
      * 等待自己的slave节点发起连接
      */
     public void waitSlaveNodeConnect() {
-        new SlaveConnectionListener(this).start();
+        NodeAddress selfAddress = getSelf();
+        if (selfAddress != null) {
+            transport.listenSlaveConnections(selfAddress);
+        }
     }
 
     /**
      * 等待大多数节点启动
+     * 超过一半的节点连接成功后即可开始选举，之后最多再等待startup.peer.grace.ms让其余节点加入，
+     * 每次有节点连接成功都会唤醒等待线程，不再轮询
      */
-    public void waitAllNodesConnected() {
-        //无需等待所有节点连接，只需要超过一半的节点建立成功即可开始选举
+    public void waitAllNodesConnected() throws InterruptedException {
         Integer masterNumInCluster = nodeManager.getMasterNumInCluster();
-        while (NodeStatus.isRunning() && remoteNodeSockets.size() < masterNumInCluster - 1) {
-            LOG.info("wait for other node connect....");
-            ThreadUtils.sleep(2000);
-        }
-        LOG.info("most node connect successful.....`");
-    }
-
-    private boolean connectBeforeMasterNode(NodeAddress nodeInfo) {
-        String ip = nodeInfo.getIp();
-        int port = nodeInfo.getMasterConnectPort();
-        int nodeId = nodeInfo.getNodeId();
-        LOG.info("try to connect master node :" + ip + ":" + port);
-        int retries = 0;
-        while (NodeStatus.isRunning() && retries <= DEFAULT_RETRIES) {
-            try {
-                InetSocketAddress endpoint = new InetSocketAddress(ip, port);
-                Socket socket = new Socket();
-                socket.setTcpNoDelay(true);
-                socket.setSoTimeout(0);
-                socket.connect(endpoint, CONNECT_TIMEOUT);
-                LOG.info("successfully connected master node :" + ip + ":" + port);
-                addSocket(nodeId, socket);
-                addRemoteMasterNode(new MasterNodePeer(nodeId, true));
-                if(!initiateConnection(socket, self.getNodeId())) {
-                    break;
-                }
-                startMasterSocketIOThreads(nodeId, socket);
-                return true;
-            } catch (IOException e) {
-                LOG.error("connect with " + ip + " fail");
-                retries++;
-                if (retries <= DEFAULT_RETRIES) {
-                    LOG.info(String.format("connect with %s fail, retry to connect %s times",
-                            ip, retries));
-                }
+        int otherMasterNum = masterNumInCluster - 1;
+        //加上自己超过半数
+        int quorum = masterNumInCluster / 2;
+        long startTime = System.currentTimeMillis();
+        synchronized (nodeConnectedLock) {
+            while (context.isRunning() && masterConnections.size() < quorum) {
+                nodeConnectedLock.wait(CONNECTED_CHECK_INTERVAL);
+            }
+            LOG.info("quorum of master nodes connected in " + (System.currentTimeMillis() - startTime) + " ms");
+            long deadline = System.currentTimeMillis() + config.getStartupPeerGraceMs();
+            long remaining;
+            while (context.isRunning() && masterConnections.size() < otherMasterNum
+                    && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                nodeConnectedLock.wait(remaining);
             }
         }
-        if (!retryConnectOtherMasterNodes.contains(nodeInfo)) {
-            retryConnectOtherMasterNodes.add(nodeInfo);
-            LOG.error("retried connect master node :" + ip + ":" + port + "failed, " +
-                    "and it into retry connect list");
-        }
-        return false;
+        LOG.info(masterConnections.size() + " of " + otherMasterNum + " master nodes connected in "
+                + (System.currentTimeMillis() - startTime) + " ms");
     }
 
     /**
-     * master节点响应其他master的连接
-     * @param sock
-     * @param sid
+     * 向id比自己小的master节点发起一次连接，不阻塞调用线程，失败后由调用方决定何时重试
+     *
+     * @return 连接和握手是否成功
      */
-    public boolean initiateConnection(final Socket sock, final Integer sid) {
-        DataOutputStream dout;
-        try {
-            BufferedOutputStream buf = new BufferedOutputStream(sock.getOutputStream());
-            dout = new DataOutputStream(buf);
-
-            GovernServerConfig serverConfig = GovernServerConfig.getInstance();
-            dout.writeInt(sid);
-            dout.writeInt(serverConfig.getIsControllerCandidate() ? 1 : 0);
-            dout.flush();
-            return true;
-        } catch (IOException e) {
-            LOG.warn("Ignoring exception reading or writing challenge: ", e);
-            closeSocket(sock);
-            return false;
+    public CompletableFuture<Boolean> connectMasterNode(NodeAddress nodeInfo) {
+        return transport.connectMaster(nodeInfo);
+    }
+
+    /**
+     * 握手时报告自己的id、是否为controller候选节点和本地槽位分配的epoch
+     */
+    @Override
+    public MasterHandshake getLocalHandshake() {
+        return new MasterHandshake(config.getNodeId(), config.getIsControllerCandidate(),
+                localSlotsEpoch, localSlotsControllerId);
+    }
+
+    /**
+     * master节点的消息共用一个接收队列，slave重新连接时替换旧的接收队列，旧连接关闭时不会再移除新队列
+     */
+    @Override
+    public Queue<ByteBuffer> newRecvQueue(Integer remoteNodeId, boolean slave) {
+        if (!slave) {
+            return masterQueueRecv;
+        }
+        Connection current = slaveConnections.get(remoteNodeId);
+        if (current != null && current.isOpen()) {
+            //id重复的连接握手完成后会被拒绝，不能替换正在使用的接收队列，拒绝前连接还没有开始读取
+            return new LinkedBlockingQueue<>(1);
+        }
+        return slaveRequestPipeline.attach(remoteNodeId, config.getSlaveRecvQueueCapacity());
+    }
+
+    @Override
+    public void onMasterConnected(MasterHandshake remote, Connection connection) {
+        MasterNodePeer masterNodePeer = new MasterNodePeer(remote.getNodeId(), remote.isControllerCandidate());
+        masterNodePeer.setSlotsEpoch(remote.getSlotsEpoch());
+        masterNodePeer.setSlotsControllerId(remote.getSlotsControllerId());
+        if (!addConnection(masterConnections, "master", remote.getNodeId(), connection)) {
+            return;
+        }
+        addRemoteMasterNode(masterNodePeer);
+        synchronized (nodeConnectedLock) {
+            nodeConnectedLock.notifyAll();
         }
     }
 
     /**
-     * @param sock
-     * @return remoteNodeId
+     * id比自己小的节点重启了，不必等到退避时间结束再重新连接
      */
-    public Integer receiveMasterConnection(final Socket sock) {
-        DataInputStream din = null;
-        Integer remoteNodeId = null;
-        try {
-            din = new DataInputStream(
-                    new BufferedInputStream(sock.getInputStream()));
-            remoteNodeId = din.readInt();
-            boolean isControllerCandidate = din.readInt() == 1 ? true : false;
-            nodeManager.updateNodeIsControllerCandidate(remoteNodeId, isControllerCandidate);
-            addRemoteMasterNode(new MasterNodePeer(remoteNodeId, isControllerCandidate));
-            addSocket(remoteNodeId, sock);
-        } catch (IOException e) {
-            LOG.error("Exception handling connection, addr: {}, closing server connection",
-                    sock.getRemoteSocketAddress());
-            closeSocket(sock);
+    @Override
+    public void onMasterAnnounced(MasterHandshake remote) {
+        Integer nodeId = remote.getNodeId();
+        if (nodeId >= config.getNodeId()) {
+            LOG.warn("ignore announce of master node " + nodeId + ", only nodes with a smaller id announce");
+            return;
         }
-        return remoteNodeId;
+        reconnectScheduler.retryNow(nodeId);
     }
 
-    public Integer receiveSlaveConnection(final Socket sock) {
-        DataInputStream din = null;
-        Integer remoteNodeId = null;
-        try {
-            din = new DataInputStream(
-                    new BufferedInputStream(sock.getInputStream()));
-            remoteNodeId = din.readInt();
-            addSocket(remoteNodeId, sock);
-            addRemoteSlaveNode(new SlaveNodePeer(remoteNodeId));
-        } catch (IOException e) {
-            LOG.error("Exception handling connection, addr: {}, closing server connection",
-                    sock.getRemoteSocketAddress());
-            closeSocket(sock);
+    @Override
+    public void onSlaveConnected(Integer slaveId, Connection connection) {
+        if (addConnection(slaveConnections, "slave", slaveId, connection)) {
+            addRemoteSlaveNode(new SlaveNodePeer(slaveId));
         }
-        return remoteNodeId;
+    }
+
+    public HandshakeMetrics getHandshakeMetrics() {
+        return transport.getHandshakeMetrics();
+    }
+
+    /**
+     * 网络组件共用的定时器，定时任务在定时器线程内执行，不能阻塞
+     */
+    @Override
+    public TimerWheel getTimerWheel() {
+        return timerWheel;
+    }
+
+    public void addMasterConnectionClosedListener(Consumer<Integer> listener) {
+        masterConnectionClosedListeners.add(listener);
     }
 
     /**
@@ -227,10 +317,9 @@ public class NetworkManager {
      * @return
      */
     private List<NodeAddress> getBeforeMasterNodes() {
-        Integer nodeId = GovernServerConfig.getInstance().getNodeId();
+        Integer nodeId = config.getNodeId();
         List<NodeAddress> beforeMasterNode = new ArrayList<>();
-        ConfigurationParser configurationParser = ConfigurationParser.getInstance();
-        List<NodeAddress> peers = configurationParser.parseMasterNodeServers();
+        List<NodeAddress> peers = context.getConfigurationParser().parseMasterNodeServers();
         for (NodeAddress nodeInfo : peers) {
             if (nodeInfo.getNodeId() < nodeId) {
                 beforeMasterNode.add(nodeInfo);
@@ -240,25 +329,25 @@ public class NetworkManager {
     }
 
     /**
-     * 缓存建立好的连接
+     * 缓存握手完成的连接
+     * 同一个节点的旧连接已经不可用时才替换，比如远程节点重启后重新连接过来；
+     * 旧连接仍然正常时拒绝并关闭新连接，避免id重复的节点把正常的连接挤掉，
+     * 远程节点重启但旧连接还没有发现对方已经断开时，对方会在旧连接关闭后重新连接
      *
-     * @param client
-     */
-    public void addSocket(Integer nodeId, Socket client) {
-        InetSocketAddress remoteAddr = (InetSocketAddress) client.getRemoteSocketAddress();
-        String remoteAddrHostName = remoteAddr.getHostName();
-        if (nodeId == null) {
-            //接收到了没有再配置文件里的其他节点的连接
-            LOG.error("established connection is not in the right remote address " + remoteAddrHostName + " nodeId = " + nodeId);
-            try {
-                client.close();
-            } catch (IOException e) {
-                LOG.error("close connection in unknown remote address failed", e);
-            }
-        } else {
-            LOG.info("receive client's node id is " + nodeId + ",and put it in cache[" + remoteNodeSockets.keys() + "]");
-            remoteNodeSockets.put(nodeId, client);
+     * @return 是否接受了新连接
+     */
+    private boolean addConnection(Map<Integer, Connection> connections, String role, Integer nodeId,
+                                  Connection connection) {
+        Connection current = connections.compute(nodeId,
+                (id, previous) -> previous == null || !previous.isOpen() ? connection : previous);
+        if (current != connection) {
+            LOG.warn("reject connection of " + role + " node " + nodeId + ", connection " + current.getConnectionId()
+                    + " of the same node id is still " + current.getState());
+            connection.abort();
+            return false;
         }
+        LOG.info("receive " + role + " node id " + nodeId + ", and put it in cache[" + connections.keySet() + "]");
+        return true;
     }
 
     /**
@@ -277,61 +366,66 @@ public class NetworkManager {
         nodeManager.addRemoteSlaveNode(slaveNodePeer);
     }
 
-    public Socket getConnectByNodeId(Integer nodeId) {
-        return remoteNodeSockets.get(nodeId);
-    }
-
-    public void closeSocket(Socket sock) {
-        if (sock == null) {
+    /**
+     * 设置握手时报告给其他master节点的本地槽位分配
+     *
+     * @param allocation 本地持久化的分配数据，没有时为null
+     */
+    public void setLocalSlotsAllocation(SlotAllocation allocation) {
+        if (allocation == null) {
             return;
         }
-        try {
-            sock.close();
-        } catch (IOException ie) {
-            LOG.error("Exception while closing", ie);
-        }
+        this.localSlotsEpoch = allocation.getEpoch();
+        this.localSlotsControllerId = allocation.getControllerId();
     }
 
     public NodeAddress getSelf() {
         if (self != null) {
             return self;
         }
-        Integer nodeId = GovernServerConfig.getInstance().getNodeId();
+        Integer nodeId = config.getNodeId();
         LOG.error(String.format("nodeId = %s addr config can not find", nodeId));
-        NodeStatus nodeStatus = NodeStatus.getInstance();
-        nodeStatus.setStatus(NodeStatus.FATAL);
+        context.getStatus().fatal();
         return null;
     }
 
-    public void startMasterSocketIOThreads(Integer remoteNodeId, Socket socket) {
-        LinkedBlockingQueue<ByteBuffer> masterQueueSend = new LinkedBlockingQueue<>();
-        if(queueSendMap.putIfAbsent(remoteNodeId, masterQueueSend) != null) {
-            throw new IllegalArgumentException("nodeId : " + remoteNodeId + " is already exist");
-        }
-        new NetworkWriteThread(remoteNodeId, socket, masterQueueSend,this).start();
-        new NetworkReadThread(remoteNodeId, socket, masterQueueRecv,this).start();
+    public NodeContext getContext() {
+        return context;
     }
 
-    public void startSlaveSocketIOThreads(Integer remoteNodeId, Socket socket) {
-        LinkedBlockingQueue<ByteBuffer> slaveQueueSend = new LinkedBlockingQueue<>();
-        if(queueSendMap.putIfAbsent(remoteNodeId, slaveQueueSend) != null) {
-            throw new IllegalArgumentException("nodeId : " + remoteNodeId + " is already exist");
-        }
-        LinkedBlockingQueue<ByteBuffer> slaveQueueRecv = new LinkedBlockingQueue<>();
-        if(slaveQueueRecvMap.putIfAbsent(remoteNodeId, slaveQueueRecv) != null) {
-            throw new IllegalArgumentException("nodeId : " + remoteNodeId + " is already exist");
-        }
-        new NetworkWriteThread(remoteNodeId, socket, slaveQueueSend,this).start();
-        new NetworkReadThread(remoteNodeId, socket, slaveQueueRecv,this).start();
+    /**
+     * 向指定master节点发送信息
+     * 消息体为request中position到limit之间的数据，调用后不能再修改request
+     *
+     * @return 连接不存在，或者发送队列已满且背压策略为快速失败时返回false
+     */
+    public Boolean sendMessage(Integer remoteNodeId, ByteBuffer request) {
+        return send(masterConnections.get(remoteNodeId), remoteNodeId, request);
     }
 
     /**
-     * 向指定远程节点发送信息
+     * 向连接到本节点的slave发送信息，要求同sendMessage
      */
-    public Boolean sendMessage(Integer remoteNodeId, ByteBuffer request) {
+    public Boolean sendSlaveMessage(Integer slaveId, ByteBuffer request) {
+        return send(slaveConnections.get(slaveId), slaveId, request);
+    }
+
+    private Boolean send(Connection connection, Integer remoteNodeId, ByteBuffer request) {
         try {
-            LinkedBlockingQueue<ByteBuffer> sendQueue = queueSendMap.get(remoteNodeId);
-            sendQueue.put(request);
+            if (connection == null) {
+                LOG.error("connection of remote node is not established, remoteNodeId = " + remoteNodeId);
+                return false;
+            }
+            if (!connection.isOpen()) {
+                LOG.warn("connection of remote node " + remoteNodeId + " is " + connection.getState());
+                return false;
+            }
+            if (!connection.send(request)) {
+                SendLane lane = SendLane.of(request);
+                LOG.warn(lane + " send queue of remote node " + remoteNodeId + " is full, "
+                        + connection.getSendQueue(lane));
+                return false;
+            }
         } catch (InterruptedException e) {
             LOG.error("put request into sendQueue error, remoteNodeId = " + remoteNodeId, e);
             return false;
@@ -339,8 +433,120 @@ public class NetworkManager {
         return true;
     }
 
-    public void removeSendQueue(Integer nodeId) {
-        this.queueSendMap.remove(nodeId);
+    /**
+     * 获取和远程节点之间连接的读写统计
+     */
+    public ConnectionMetrics getConnectionMetrics(Integer remoteNodeId) {
+        Connection connection = masterConnections.get(remoteNodeId);
+        return connection == null ? null : connection.getMetrics();
+    }
+
+    /**
+     * 获取每个远程节点批量数据发送队列的占用比例，用来判断哪个节点处理滞后
+     * key nodeId
+     */
+    public Map<Integer, Double> getSendQueueOccupancy() {
+        Map<Integer, Double> occupancy = new HashMap<>();
+        for (Map.Entry<Integer, Connection> entry : masterConnections.entrySet()) {
+            occupancy.put(entry.getKey(), entry.getValue().getSendQueue(SendLane.BULK).occupancy());
+        }
+        return occupancy;
+    }
+
+    public SendQueue getSendQueue(Integer remoteNodeId, SendLane lane) {
+        Connection connection = masterConnections.get(remoteNodeId);
+        return connection == null ? null : connection.getSendQueue(lane);
+    }
+
+    /**
+     * 和远程节点的连接是否正常
+     */
+    public boolean isConnected(Integer remoteNodeId) {
+        Connection connection = masterConnections.get(remoteNodeId);
+        return connection != null && connection.isOpen();
+    }
+
+    /**
+     * 所有已建立连接的master节点
+     */
+    public Set<Integer> getConnectedNodeIds() {
+        return masterConnections.keySet();
+    }
+
+    /**
+     * 所有连接到本节点的slave
+     */
+    public Set<Integer> getConnectedSlaveIds() {
+        return slaveConnections.keySet();
+    }
+
+    /**
+     * 收到远程节点的心跳，由网络事件循环线程调用
+     */
+    @Override
+    public void onHeartbeat(Integer remoteNodeId) {
+        nodeManager.heartbeat(remoteNodeId);
+    }
+
+    public ReconnectMetrics getReconnectMetrics() {
+        return reconnectScheduler.getMetrics();
+    }
+
+    /**
+     * 和远程节点当前连接的id，用来判断远程节点是否重新连接过，没有连接时返回-1
+     */
+    public long getConnectionId(Integer remoteNodeId) {
+        Connection connection = masterConnections.get(remoteNodeId);
+        return connection == null || !connection.isOpen() ? -1 : connection.getConnectionId();
+    }
+
+    /**
+     * 优雅关闭和远程节点的连接，发送队列中剩余的消息写完后关闭
+     */
+    public void closeConnection(Integer nodeId) {
+        Connection connection = masterConnections.get(nodeId);
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * 连接关闭后只清理该连接自己的资源，节点上的其他连接不受影响
+     * 远程节点重新连接后可能已经替换了这里的记录，所以只移除属于该连接的记录
+     */
+    @Override
+    public void onConnectionClosed(Connection connection) {
+        Integer nodeId = connection.getRemoteNodeId();
+        if (connection.getQueueRecv() != masterQueueRecv) {
+            //slave会重新发起连接，未处理的消息随旧队列一起丢弃
+            slaveConnections.remove(nodeId, connection);
+            slaveRequestPipeline.detach(nodeId, connection.getQueueRecv());
+            return;
+        }
+        masterConnections.remove(nodeId, connection);
+        if (!masterConnections.containsKey(nodeId)) {
+            //断开期间没有心跳，不能把整个断开时长当作一次心跳间隔计入故障检测器
+            nodeManager.resetFailureDetector(nodeId);
+            for (Consumer<Integer> listener : masterConnectionClosedListeners) {
+                listener.accept(nodeId);
+            }
+        }
+        if (context.isRunning()) {
+            scheduleReconnect(nodeId);
+        }
+    }
+
+    /**
+     * id比自己小的master节点由自己重新发起连接，id比自己大的master节点会重新连接过来
+     */
+    private void scheduleReconnect(Integer nodeId) {
+        for (NodeAddress nodeInfo : getBeforeMasterNodes()) {
+            if (nodeInfo.getNodeId().equals(nodeId)) {
+                LOG.info("schedule reconnecting master node " + nodeId);
+                reconnectScheduler.schedule(nodeInfo);
+                return;
+            }
+        }
     }
 
     /**
@@ -352,34 +558,37 @@ public class NetworkManager {
         return masterQueueRecv.take();
     }
 
-    public void recvSlaveMessage(Integer nodeId, ByteBuffer message) {
-        slaveQueueRecvMap.get(nodeId).offer(message);
+    /**
+     * 消息处理完后归还接收缓冲区，归还后不能再访问该消息
+     */
+    public void releaseMessage(ByteBuffer message) {
+        bufferPool.release(message);
     }
 
-    class RetryConnectMasterNodeThread extends Thread {
-        private final Logger LOG = LoggerFactory.getLogger(RetryConnectMasterNodeThread.class);
-        private final int RETRY_CONNECT_MASTER_NODE_INTERVAL = 5 * 60 * 1000;
+    @Override
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
 
-        @Override
-        public void run() {
-            while (NodeStatus.isRunning()) {
-                List<NodeAddress> retryConnectSuccessNodes = new ArrayList<>();
-                for (NodeAddress nodeInfo : retryConnectOtherMasterNodes) {
-                    if (connectBeforeMasterNode(nodeInfo)) {
-                        retryConnectSuccessNodes.add(nodeInfo);
-                    }
-                }
-                for (NodeAddress successNode : retryConnectSuccessNodes) {
-                    retryConnectOtherMasterNodes.remove(successNode);
-                }
-                try {
-                    Thread.sleep(RETRY_CONNECT_MASTER_NODE_INTERVAL);
-                } catch (InterruptedException e) {
-                    LOG.error("retryConnectMasterNodeThread Interrupted while sleeping. " +
-                            "Ignoring exception", e);
-                }
-            }
+    /**
+     * 其他组件为slave发送的消息类型注册处理器
+     */
+    public SlaveRequestPipeline getSlaveRequestPipeline() {
+        return slaveRequestPipeline;
+    }
+
+    /**
+     * 停止接收连接并关闭所有连接，节点状态需要先切换为非运行状态
+     */
+    public void shutdown() {
+        transport.shutdown();
+        for (Connection connection : masterConnections.values()) {
+            connection.abort();
+        }
+        for (Connection connection : slaveConnections.values()) {
+            connection.abort();
         }
+        timerWheel.stop();
     }
 
 }
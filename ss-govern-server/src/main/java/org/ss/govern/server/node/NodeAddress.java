@@ -31,13 +31,29 @@ public class NodeAddress {
      */
     private Integer clientConnectPort;
 
+    /**
+     * 节点权重，按权重比例分配槽位
+     */
+    private Integer weight;
+
+    /**
+     * 未配置权重时的默认权重
+     */
+    public static final int DEFAULT_WEIGHT = 1;
+
     public NodeAddress(Integer nodeId, String ip, Integer masterConnectPort,
                        Integer slaveConnectPort, Integer clientConnectPort) {
+        this(nodeId, ip, masterConnectPort, slaveConnectPort, clientConnectPort, DEFAULT_WEIGHT);
+    }
+
+    public NodeAddress(Integer nodeId, String ip, Integer masterConnectPort,
+                       Integer slaveConnectPort, Integer clientConnectPort, Integer weight) {
         this.nodeId = nodeId;
         this.ip = ip;
         this.masterConnectPort = masterConnectPort;
         this.slaveConnectPort = slaveConnectPort;
         this.clientConnectPort = clientConnectPort;
+        this.weight = weight;
     }
 
     public Integer getNodeId() {
@@ -59,4 +75,8 @@ public class NodeAddress {
     public Integer getClientConnectPort() {
         return clientConnectPort;
     }
+
+    public Integer getWeight() {
+        return weight;
+    }
 }
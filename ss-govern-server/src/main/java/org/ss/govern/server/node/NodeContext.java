@@ -0,0 +1,48 @@
+package org.ss.govern.server.node;
+
+import lombok.Getter;
+import org.ss.govern.server.config.ConfigurationParser;
+import org.ss.govern.server.config.GovernServerConfig;
+import org.ss.govern.server.node.network.NioTransport;
+import org.ss.govern.server.node.network.TransportFactory;
+
+/**
+ * 一个节点运行所需的配置、状态和网络传输方式
+ * 节点内的组件都从这里获取，不再依赖进程级的单例，同一个JVM内可以运行多个节点
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class NodeContext {
+
+    @Getter
+    private final GovernServerConfig config;
+
+    @Getter
+    private final NodeStatus status;
+
+    @Getter
+    private final ConfigurationParser configurationParser;
+
+    @Getter
+    private final TransportFactory transportFactory;
+
+    public NodeContext(GovernServerConfig config, NodeStatus status, TransportFactory transportFactory) {
+        this.config = config;
+        this.status = status;
+        this.configurationParser = new ConfigurationParser(config);
+        this.transportFactory = transportFactory;
+    }
+
+    /**
+     * 进程默认节点的上下文，使用配置和状态的单例，节点之间通过TCP通信
+     */
+    public static NodeContext global() {
+        return new NodeContext(GovernServerConfig.getInstance(), NodeStatus.getInstance(), NioTransport::new);
+    }
+
+    public boolean isRunning() {
+        return status.isRunning();
+    }
+
+}
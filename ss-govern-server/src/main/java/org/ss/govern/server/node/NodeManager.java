@@ -1,14 +1,18 @@
 package org.ss.govern.server.node;
 
 import lombok.Getter;
-import org.ss.govern.server.config.ConfigurationParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.ss.govern.server.config.GovernServerConfig;
+import org.ss.govern.server.node.heartbeat.PhiAccrualFailureDetector;
 import org.ss.govern.server.node.master.MasterNodePeer;
 import org.ss.govern.server.node.slave.SlaveNodePeer;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -18,6 +22,8 @@ import java.util.concurrent.ConcurrentHashMap;
  **/
 public class NodeManager {
 
+    private static final Logger LOG = LoggerFactory.getLogger(NodeManager.class);
+
     /**
      * 远程master节点集合
      */
@@ -28,6 +34,17 @@ public class NodeManager {
      */
     private Map<Integer, SlaveNodePeer> slaveNodePeerMap = new ConcurrentHashMap<>();
 
+    /**
+     * 每个远程节点的故障检测器，收到第一次心跳时创建
+     * key nodeId
+     */
+    private Map<Integer, PhiAccrualFailureDetector> failureDetectors = new ConcurrentHashMap<>();
+
+    /**
+     * 疑似失效的远程节点
+     */
+    private Set<Integer> suspectedNodes = ConcurrentHashMap.newKeySet();
+
     private GovernServerConfig serverConfig;
 
     /**
@@ -75,10 +92,69 @@ public class NodeManager {
         return allOtherControllerCandidates;
     }
 
-    public NodeManager() {
-        this.serverConfig = GovernServerConfig.getInstance();
-        ConfigurationParser configurationParser = ConfigurationParser.getInstance();
-        List<NodeAddress> nodeInfoList = configurationParser.parseMasterNodeServers();
+    /**
+     * 收到远程节点的心跳
+     */
+    public boolean heartbeat(Integer nodeId) {
+        failureDetectors.computeIfAbsent(nodeId, id -> new PhiAccrualFailureDetector(
+                serverConfig.getPhiThreshold(),
+                serverConfig.getAcceptableHeartbeatPauseMs(),
+                serverConfig.getHeartbeatIntervalMs())).heartbeat();
+        if (suspectedNodes.remove(nodeId)) {
+            LOG.info("node " + nodeId + " is available again");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 和远程节点的连接断开后丢弃它的心跳历史，重新连接后按新的心跳重新统计
+     */
+    public void resetFailureDetector(Integer nodeId) {
+        failureDetectors.remove(nodeId);
+    }
+
+    /**
+     * 检查所有远程节点的心跳，记录新出现的疑似失效节点
+     */
+    public void checkFailures() {
+        for (Map.Entry<Integer, PhiAccrualFailureDetector> entry : failureDetectors.entrySet()) {
+            PhiAccrualFailureDetector detector = entry.getValue();
+            if (!detector.isAvailable() && suspectedNodes.add(entry.getKey())) {
+                LOG.warn(String.format("node %s is suspected to be failed, phi = %.2f, " +
+                                "no heartbeat for %s ms", entry.getKey(), detector.phi(),
+                        detector.millisSinceLastHeartbeat()));
+            }
+        }
+    }
+
+    /**
+     * 远程节点的怀疑程度即phi值，还没有收到过该节点的心跳时为0
+     */
+    public double getSuspicionLevel(Integer nodeId) {
+        PhiAccrualFailureDetector detector = failureDetectors.get(nodeId);
+        return detector == null ? 0 : detector.phi();
+    }
+
+    /**
+     * 所有收到过心跳的远程节点的怀疑程度
+     * key nodeId
+     */
+    public Map<Integer, Double> getSuspicionLevels() {
+        Map<Integer, Double> suspicionLevels = new HashMap<>();
+        for (Map.Entry<Integer, PhiAccrualFailureDetector> entry : failureDetectors.entrySet()) {
+            suspicionLevels.put(entry.getKey(), entry.getValue().phi());
+        }
+        return suspicionLevels;
+    }
+
+    public boolean isSuspected(Integer nodeId) {
+        return suspectedNodes.contains(nodeId);
+    }
+
+    public NodeManager(NodeContext context) {
+        this.serverConfig = context.getConfig();
+        List<NodeAddress> nodeInfoList = context.getConfigurationParser().parseMasterNodeServers();
         this.masterNumInCluster = nodeInfoList.size();
     }
 
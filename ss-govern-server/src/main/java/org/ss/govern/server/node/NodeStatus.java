@@ -1,6 +1,9 @@
 package org.ss.govern.server.node;
 
 /**
+ * 节点状态
+ * 每个节点持有自己的实例，同一个JVM内运行多个节点时互不影响，getInstance()为进程默认节点的状态
+ *
  * @author wangsz
  * @create 2020-04-08
  **/
@@ -13,23 +16,23 @@ public class NodeStatus {
 
     public static final int SHUTDOWN_CHECK_INTERVAL = 300;
 
-    private NodeStatus() {
+    public NodeStatus() {
     }
 
     public static NodeStatus getInstance() {
         return Singleton.instance;
     }
 
-    public static boolean isRunning() {
-        return NodeStatus.RUNNING == NodeStatus.get();
+    public boolean isRunning() {
+        return NodeStatus.RUNNING == status;
     }
 
-    public static boolean isFatal() {
-        return NodeStatus.FATAL == NodeStatus.get();
+    public boolean isFatal() {
+        return NodeStatus.FATAL == status;
     }
 
-    public static void fatal() {
-        getInstance().setStatus(FATAL);
+    public void fatal() {
+        setStatus(FATAL);
     }
 
     /**
@@ -45,10 +48,6 @@ public class NodeStatus {
         return this.status;
     }
 
-    public static int get() {
-        return getInstance().getStatus();
-    }
-
     private static class Singleton {
         static NodeStatus instance = new NodeStatus();
     }
@@ -0,0 +1,138 @@
+package org.ss.govern.server.node;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.ss.govern.server.config.GovernServerConfig;
+import org.ss.govern.server.node.network.ExponentialBackoff;
+import org.ss.govern.server.node.network.ReconnectMetrics;
+import org.ss.govern.server.node.network.TimerWheel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * master节点重新连接的调度器
+ * 每个需要由自己发起连接的master节点独立做指数退避，由时间轮定时触发，
+ * 连接和握手在事件循环上异步完成并有超时，一个不应答的节点不会耽误其他节点的重新连接；
+ * 对方重启后会发来通知，收到通知时立即重试，不再等待退避时间
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class ReconnectScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReconnectScheduler.class);
+
+    private final NetworkManager networkManager;
+
+    private final TimerWheel timerWheel;
+
+    /**
+     * 正在重新连接的节点，连接成功后移除
+     * key nodeId
+     */
+    private final Map<Integer, ReconnectState> reconnectStates = new ConcurrentHashMap<>();
+
+    private final ReconnectMetrics metrics = new ReconnectMetrics();
+
+    private final GovernServerConfig config;
+
+    private final NodeStatus nodeStatus;
+
+    public ReconnectScheduler(NetworkManager networkManager, TimerWheel timerWheel) {
+        this.networkManager = networkManager;
+        this.timerWheel = timerWheel;
+        this.config = networkManager.getContext().getConfig();
+        this.nodeStatus = networkManager.getContext().getStatus();
+    }
+
+    /**
+     * 开始重新连接节点，节点已经在重新连接时忽略
+     */
+    public void schedule(NodeAddress nodeAddress) {
+        ReconnectState state = new ReconnectState(nodeAddress);
+        if (reconnectStates.putIfAbsent(nodeAddress.getNodeId(), state) != null) {
+            return;
+        }
+        scheduleNextAttempt(state);
+    }
+
+    /**
+     * 节点重新出现时立即重试，比如收到了它重启后发来的通知
+     */
+    public void retryNow(Integer nodeId) {
+        ReconnectState state = reconnectStates.get(nodeId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            if (state.timeout != null && state.timeout.cancel()) {
+                LOG.info("master node " + nodeId + " is seen again, retry connecting immediately");
+                state.backoff.reset();
+                attempt(state);
+            }
+        }
+    }
+
+    public boolean isReconnecting(Integer nodeId) {
+        return reconnectStates.containsKey(nodeId);
+    }
+
+    public ReconnectMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void scheduleNextAttempt(ReconnectState state) {
+        synchronized (state) {
+            long delay = state.backoff.nextDelayMillis();
+            state.timeout = timerWheel.newTimeout(() -> attempt(state), delay);
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("reconnect master node " + state.nodeAddress.getNodeId() + " in " + delay + " ms");
+            }
+        }
+    }
+
+    private void attempt(ReconnectState state) {
+        if (!nodeStatus.isRunning()) {
+            return;
+        }
+        Integer nodeId = state.nodeAddress.getNodeId();
+        if (networkManager.isConnected(nodeId)) {
+            onAttemptFinished(state, true);
+            return;
+        }
+        networkManager.connectMasterNode(state.nodeAddress)
+                .thenAccept(connected -> onAttemptFinished(state, connected));
+    }
+
+    private void onAttemptFinished(ReconnectState state, boolean connected) {
+        Integer nodeId = state.nodeAddress.getNodeId();
+        metrics.recordAttempt(connected);
+        if (!connected) {
+            scheduleNextAttempt(state);
+            return;
+        }
+        reconnectStates.remove(nodeId, state);
+        long reconnectMillis = System.currentTimeMillis() - state.startTime;
+        metrics.recordReconnect(reconnectMillis);
+        LOG.info("reconnected master node " + nodeId + " after " + state.backoff.getAttempts()
+                + " attempts in " + reconnectMillis + " ms, " + metrics);
+    }
+
+    private class ReconnectState {
+
+        private final NodeAddress nodeAddress;
+
+        private final ExponentialBackoff backoff = new ExponentialBackoff(
+                config.getReconnectBackoffInitialMs(), config.getReconnectBackoffMaxMs());
+
+        private final long startTime = System.currentTimeMillis();
+
+        private TimerWheel.Timeout timeout;
+
+        private ReconnectState(NodeAddress nodeAddress) {
+            this.nodeAddress = nodeAddress;
+        }
+    }
+
+}
@@ -1,15 +1,18 @@
 package org.ss.govern.server.node;
 
-import com.alibaba.fastjson.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.ss.govern.core.constants.Slot;
 import org.ss.govern.server.config.GovernServerConfig;
-import org.ss.govern.utils.FileUtils;
+import org.ss.govern.server.node.master.MasterNodePeer;
+import org.ss.govern.server.node.slot.SlotAllocation;
+import org.ss.govern.server.node.slot.SlotAllocationStore;
+import org.ss.govern.server.node.slot.SlotHashCache;
+import org.ss.govern.server.node.slot.SlotTable;
 
-import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * 槽位数据管理
@@ -21,38 +24,253 @@ public class SlotsManager {
     private static final Logger LOG = LoggerFactory.getLogger(SlotsManager.class);
 
     /**
-     * 槽位分配存储文件的名字
+     * 服务名到槽位缓存的条目数
      */
-    private static final String SLOTS_ALLOCATION_FILENAME = "/slot_allocation";
+    private static final int SLOT_HASH_CACHE_SIZE = 1024;
 
-    List<Slot> slots;
+    /**
+     * 槽位路由表，重新分配槽位时整体替换
+     */
+    private volatile SlotTable slotTable;
+
+    /**
+     * 当前的槽位分配
+     */
+    private volatile SlotAllocation currentAllocation;
 
-    private GovernServerConfig config = GovernServerConfig.getInstance();
+    private final SlotAllocationStore slotAllocationStore;
+
+    /**
+     * 启动时从磁盘读取并校验通过的分配数据，没有时为null
+     */
+    private final SlotAllocation persistedAllocation;
+
+    private GovernServerConfig config;
+
+    private NodeStatus nodeStatus;
 
     private MessageReceiver messageReceiver;
 
-    public SlotsManager(MessageReceiver messageReceiver) {
+    /**
+     * 槽位分配变化时更新握手报告给其他master节点的epoch
+     */
+    private NetworkManager networkManager;
+
+    /**
+     * 最近计算过的服务名到槽位的缓存
+     */
+    private final SlotHashCache slotHashCache;
+
+    /**
+     * 所有master节点的地址，key为nodeId
+     */
+    private final Map<Integer, NodeAddress> masterNodeAddresses = new HashMap<>();
+
+    public SlotsManager(MessageReceiver messageReceiver, NetworkManager networkManager) {
         this.messageReceiver = messageReceiver;
+        this.networkManager = networkManager;
+        this.config = networkManager.getContext().getConfig();
+        this.nodeStatus = networkManager.getContext().getStatus();
+        this.slotHashCache = new SlotHashCache(SLOT_HASH_CACHE_SIZE, config.getSlotsCount());
+        this.slotAllocationStore = new SlotAllocationStore(config.getDataDir(), config.getSlotsCount());
+        this.persistedAllocation = slotAllocationStore.load();
+        networkManager.setLocalSlotsAllocation(persistedAllocation);
+        for (NodeAddress nodeAddress : networkManager.getContext().getConfigurationParser().parseMasterNodeServers()) {
+            masterNodeAddresses.put(nodeAddress.getNodeId(), nodeAddress);
+        }
     }
 
     public void waitForSlotsAllocation() {
-        List<Integer> slotsAllocation = messageReceiver.takeSlotsAllocation();
-        if(LOG.isDebugEnabled()) {
-            LOG.debug("接收到槽位数据：" + slotsAllocation);
-        }
-        slots = slotsAllocation.stream()
-                .map(slotIndex -> {
-                    Slot slot = new Slot(slotIndex, config.getNodeId());
-                    return slot;
-                }).collect(Collectors.toList());
+        SlotAllocation slotsAllocation = messageReceiver.takeSlotsAllocation();
+        applySlotsAllocation(slotsAllocation);
+    }
+
+    /**
+     * 等待controller发送槽位分配
+     *
+     * @return 超时返回false
+     */
+    public boolean waitForSlotsAllocation(long timeoutMillis) throws InterruptedException {
+        SlotAllocation slotsAllocation = messageReceiver.pollSlotsAllocation(timeoutMillis);
+        if (slotsAllocation == null) {
+            return false;
+        }
+        applySlotsAllocation(slotsAllocation);
+        return true;
+    }
+
+    /**
+     * 重启后加入正在运行的集群：其他master节点报告了比本地更新的槽位分配，且该分配的controller已连接，
+     * 说明集群已经有controller，等待它重新发送槽位分配即可，不需要重新选举
+     *
+     * @param masterNodePeers 已连接的远程master节点
+     * @return 正在运行的controller，没有时返回SlotAllocation.UNKNOWN_CONTROLLER
+     */
+    public int findRunningController(List<MasterNodePeer> masterNodePeers) {
+        long localEpoch = persistedAllocation == null ? SlotAllocation.NO_EPOCH : persistedAllocation.getEpoch();
+        MasterNodePeer latest = null;
+        for (MasterNodePeer masterNodePeer : masterNodePeers) {
+            if (latest == null || masterNodePeer.getSlotsEpoch() > latest.getSlotsEpoch()) {
+                latest = masterNodePeer;
+            }
+        }
+        if (latest == null || latest.getSlotsEpoch() <= localEpoch) {
+            return SlotAllocation.UNKNOWN_CONTROLLER;
+        }
+        int controllerId = latest.getSlotsControllerId();
+        for (MasterNodePeer masterNodePeer : masterNodePeers) {
+            if (masterNodePeer.getNodeId() == controllerId) {
+                return controllerId;
+            }
+        }
+        return SlotAllocation.UNKNOWN_CONTROLLER;
+    }
+
+    /**
+     * 启动后台线程接收controller之后发送的槽位分配，比如controller故障切换后重新发送的分配
+     * epoch不比当前分配新的数据直接忽略
+     */
+    public void startSlotsAllocationListener() {
+        Thread listener = new Thread(() -> {
+            while (nodeStatus.isRunning()) {
+                SlotAllocation slotsAllocation = messageReceiver.takeSlotsAllocation();
+                if (slotsAllocation == null) {
+                    continue;
+                }
+                SlotAllocation current = currentAllocation;
+                if (current != null && slotsAllocation.getEpoch() <= current.getEpoch()) {
+                    LOG.info("ignore stale slots allocation, epoch " + slotsAllocation.getEpoch()
+                            + ", current epoch " + current.getEpoch());
+                    continue;
+                }
+                applySlotsAllocation(slotsAllocation);
+            }
+        }, "slots-allocation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    private void applySlotsAllocation(SlotAllocation slotsAllocation) {
+        LOG.info("接收到槽位数据，槽位数量：" + slotsAllocation.getSlotOwners().length
+                + "，epoch：" + slotsAllocation.getEpoch() + "，controller：" + slotsAllocation.getControllerId());
+        updateSlotsAllocation(slotsAllocation);
         //持久化槽位数据到磁盘
-        String jsonSlots = JSONObject.toJSONString(slotsAllocation);
-        byte[] slotsByte = jsonSlots.getBytes();
-        FileUtils.persistSlotsAllocation(slotsByte, config.getDataDir(), SLOTS_ALLOCATION_FILENAME);
+        slotAllocationStore.persist(slotsAllocation);
     }
 
-    public Slot findSlot(Integer slotHash) {
-        return slots.get(slotHash);
+    /**
+     * 尝试直接使用本地持久化的槽位分配，跳过controller选举
+     * 只有所有master节点都已连接，且握手时报告的epoch和controller与本地持久化的完全一致时才可以，
+     * 这样每个节点看到的信息相同，要么都跳过选举，要么都参与选举
+     *
+     * @param masterNodePeers 所有远程master节点
+     * @return 是否已经使用持久化的分配数据
+     */
+    public boolean recoverPersistedSlotsAllocation(List<MasterNodePeer> masterNodePeers, int masterNumInCluster) {
+        if (persistedAllocation == null || persistedAllocation.getEpoch() == SlotAllocation.NO_EPOCH) {
+            LOG.info("no usable persisted slots allocation, need controller election");
+            return false;
+        }
+        if (masterNodePeers.size() != masterNumInCluster - 1) {
+            LOG.info("only " + masterNodePeers.size() + " of " + (masterNumInCluster - 1)
+                    + " master nodes connected, need controller election");
+            return false;
+        }
+        for (MasterNodePeer masterNodePeer : masterNodePeers) {
+            if (masterNodePeer.getSlotsEpoch() != persistedAllocation.getEpoch()
+                    || masterNodePeer.getSlotsControllerId() != persistedAllocation.getControllerId()) {
+                LOG.info("master node " + masterNodePeer.getNodeId() + " has slots epoch "
+                        + masterNodePeer.getSlotsEpoch() + ", local epoch is " + persistedAllocation.getEpoch()
+                        + ", need controller election");
+                return false;
+            }
+        }
+        updateSlotsAllocation(persistedAllocation);
+        LOG.info("recover persisted slots allocation, epoch " + persistedAllocation.getEpoch()
+                + ", controller " + persistedAllocation.getControllerId());
+        return true;
+    }
+
+    /**
+     * 更新槽位路由表，controller节点分配完槽位后直接调用
+     */
+    public void updateSlotsAllocation(SlotAllocation slotsAllocation) {
+        this.slotTable = new SlotTable(slotsAllocation.getSlotOwners());
+        this.currentAllocation = slotsAllocation;
+        networkManager.setLocalSlotsAllocation(slotsAllocation);
+    }
+
+    /**
+     * 启动时从磁盘读取的分配数据，没有或者校验失败时为null
+     */
+    public SlotAllocation getPersistedAllocation() {
+        return persistedAllocation;
+    }
+
+    /**
+     * 当前的槽位分配，还没有分配时为null
+     */
+    public SlotAllocation getCurrentAllocation() {
+        return currentAllocation;
+    }
+
+    public long getSlotsEpoch() {
+        SlotAllocation current = currentAllocation;
+        return current == null ? SlotAllocation.NO_EPOCH : current.getEpoch();
+    }
+
+    public int getControllerId() {
+        SlotAllocation current = currentAllocation;
+        return current == null ? SlotAllocation.UNKNOWN_CONTROLLER : current.getControllerId();
+    }
+
+    public Slot findSlot(int slotHash) {
+        return requireSlotTable().getSlot(slotHash);
+    }
+
+    /**
+     * 负责该槽位的节点id
+     */
+    public int findSlotOwner(int slotHash) {
+        return requireSlotTable().getNodeId(slotHash);
+    }
+
+    /**
+     * 收到第一次槽位分配之前无法路由
+     */
+    private SlotTable requireSlotTable() {
+        SlotTable table = slotTable;
+        if (table == null) {
+            throw new IllegalStateException("slots not allocated yet");
+        }
+        return table;
+    }
+
+    /**
+     * 服务名对应的槽位编号
+     */
+    public int slotOf(String serviceName) {
+        return slotHashCache.slotOf(serviceName);
+    }
+
+    /**
+     * 负责该服务的master节点地址
+     */
+    public NodeAddress route(String serviceName) {
+        int nodeId = findSlotOwner(slotOf(serviceName));
+        NodeAddress nodeAddress = masterNodeAddresses.get(nodeId);
+        if (nodeAddress == null) {
+            throw new IllegalStateException("slot owner " + nodeId + " of service "
+                    + serviceName + " is not a configured master node");
+        }
+        return nodeAddress;
+    }
+
+    /**
+     * 槽位数据是否已经分配
+     */
+    public boolean isSlotsAllocated() {
+        return slotTable != null;
     }
 
 }
@@ -0,0 +1,26 @@
+package org.ss.govern.server.node.dispatch;
+
+/**
+ * 消息处理器的执行方式
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public enum ExecutorPolicy {
+
+    /**
+     * 在分发线程内直接处理，只用于很快且不会阻塞的处理器，比如投票和租约
+     */
+    INLINE,
+
+    /**
+     * 该类型独占一个线程，按接收顺序处理，慢的处理器不会阻塞其他类型
+     */
+    DEDICATED,
+
+    /**
+     * 多个线程并发处理，不保证处理顺序
+     */
+    POOL
+
+}
@@ -0,0 +1,167 @@
+package org.ss.govern.server.node.dispatch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 按请求类型分发消息
+ * 各个组件为自己负责的消息类型注册处理器并指定执行方式，慢的处理器不会阻塞其他类型的消息
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class MessageDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MessageDispatcher.class);
+
+    /**
+     * key 请求类型
+     */
+    private final Map<Integer, Registration> registrations = new ConcurrentHashMap<>();
+
+    /**
+     * 没有注册处理器的消息数
+     */
+    private final AtomicInteger unhandled = new AtomicInteger();
+
+    /**
+     * 处理完成后归还消息缓冲区
+     */
+    private final Consumer<ByteBuffer> releaser;
+
+    public MessageDispatcher(Consumer<ByteBuffer> releaser) {
+        this.releaser = releaser;
+    }
+
+    /**
+     * 注册在分发线程内直接执行或独占一个线程的处理器
+     */
+    public void register(int requestType, String name, ExecutorPolicy policy, MessageHandler handler) {
+        register(requestType, name, policy, 1, handler);
+    }
+
+    /**
+     * 注册处理器，每种请求类型只能注册一个
+     *
+     * @param threads 执行方式为POOL时的线程数
+     */
+    public void register(int requestType, String name, ExecutorPolicy policy, int threads,
+                         MessageHandler handler) {
+        ExecutorService executor = null;
+        if (policy == ExecutorPolicy.DEDICATED) {
+            executor = Executors.newSingleThreadExecutor(newThreadFactory(name));
+        } else if (policy == ExecutorPolicy.POOL) {
+            executor = Executors.newFixedThreadPool(threads, newThreadFactory(name));
+        }
+        Registration registration = new Registration(name, executor, handler);
+        if (registrations.putIfAbsent(requestType, registration) != null) {
+            if (executor != null) {
+                executor.shutdown();
+            }
+            throw new IllegalStateException("handler of request type " + requestType + " is already registered");
+        }
+        LOG.info("register handler " + name + " of request type " + requestType + ", policy is " + policy);
+    }
+
+    /**
+     * 分发一条消息，消息的position在请求类型处，分发后由处理器所在的线程归还缓冲区
+     */
+    public void dispatch(ByteBuffer message) {
+        long startNanos = System.nanoTime();
+        //不足请求类型长度的消息无法分发，直接归还缓冲区
+        if (message.remaining() < 4) {
+            unhandled.incrementAndGet();
+            LOG.warn("discard message of " + message.remaining() + " bytes without request type");
+            releaser.accept(message);
+            return;
+        }
+        int requestType = message.getInt();
+        Registration registration = registrations.get(requestType);
+        if (registration == null) {
+            unhandled.incrementAndGet();
+            LOG.warn("no handler registered for request type " + requestType);
+            releaser.accept(message);
+            return;
+        }
+        registration.metrics.recordReceived();
+        if (registration.executor == null) {
+            registration.handle(message, startNanos);
+        } else {
+            registration.executor.execute(() -> registration.handle(message, startNanos));
+        }
+    }
+
+    /**
+     * 各请求类型的处理统计
+     * key 处理器名称
+     */
+    public Map<String, MessageTypeMetrics> getMetrics() {
+        Map<String, MessageTypeMetrics> metrics = new TreeMap<>();
+        for (Registration registration : registrations.values()) {
+            metrics.put(registration.name, registration.metrics);
+        }
+        return metrics;
+    }
+
+    public int getUnhandled() {
+        return unhandled.get();
+    }
+
+    public void shutdown() {
+        for (Registration registration : registrations.values()) {
+            if (registration.executor != null) {
+                registration.executor.shutdownNow();
+            }
+        }
+    }
+
+    private static ThreadFactory newThreadFactory(String name) {
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "dispatch-" + name + "-" + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private class Registration {
+
+        private final String name;
+
+        private final ExecutorService executor;
+
+        private final MessageHandler handler;
+
+        private final MessageTypeMetrics metrics = new MessageTypeMetrics();
+
+        private Registration(String name, ExecutorService executor, MessageHandler handler) {
+            this.name = name;
+            this.executor = executor;
+            this.handler = handler;
+        }
+
+        private void handle(ByteBuffer message, long startNanos) {
+            boolean success = false;
+            try {
+                handler.handle(message);
+                success = true;
+            } catch (Exception e) {
+                LOG.error("handle message of " + name + " error", e);
+            } finally {
+                releaser.accept(message);
+                metrics.recordHandled(System.nanoTime() - startNanos, success);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.ss.govern.server.node.dispatch;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个消息类型的处理统计
+ * 处理延迟从分发线程取出消息开始计算，包含在执行器队列中等待的时间
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class MessageTypeMetrics {
+
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicLong received = new AtomicLong();
+
+    private final AtomicLong handled = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    void recordReceived() {
+        received.incrementAndGet();
+    }
+
+    void recordHandled(long latencyNanos, boolean success) {
+        handled.incrementAndGet();
+        if (!success) {
+            failed.incrementAndGet();
+        }
+        totalLatencyNanos.addAndGet(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    public long getHandled() {
+        return handled.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * 开始统计以来平均每秒接收的消息数
+     */
+    public double getRatePerSecond() {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        return elapsedNanos <= 0 ? 0 : received.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public double getAverageLatencyMicros() {
+        long count = handled.get();
+        return count == 0 ? 0 : (double) TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos.get()) / count;
+    }
+
+    public long getMaxLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxLatencyNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return "MessageTypeMetrics{" +
+                "received=" + received +
+                ", handled=" + handled +
+                ", failed=" + failed +
+                ", ratePerSecond=" + String.format("%.2f", getRatePerSecond()) +
+                ", averageLatencyMicros=" + String.format("%.2f", getAverageLatencyMicros()) +
+                ", maxLatencyMicros=" + getMaxLatencyMicros() +
+                '}';
+    }
+
+}
@@ -0,0 +1,20 @@
+package org.ss.govern.server.node.dispatch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * slave发送的某一类消息的处理器，在负责该slave的工作线程内按接收顺序调用
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+@FunctionalInterface
+public interface SlaveMessageHandler {
+
+    /**
+     * 处理一条消息，消息的position已经越过请求类型
+     * 返回后消息的缓冲区会被归还，不能在其他线程继续使用
+     */
+    void handle(int slaveId, ByteBuffer message) throws Exception;
+
+}
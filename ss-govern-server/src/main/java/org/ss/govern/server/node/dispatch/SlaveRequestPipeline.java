@@ -0,0 +1,323 @@
+package org.ss.govern.server.node.dispatch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.ss.govern.server.node.NodeStatus;
+import org.ss.govern.server.node.network.BoundedRingQueue;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * slave消息的处理流水线
+ * 固定数量的工作线程，按 slaveId % 线程数 划分每个线程负责的slave，
+ * 工作线程轮流从自己负责的每个slave的接收队列批量取出消息，按请求类型交给注册的处理器；
+ * 同一个slave的消息总是由同一个线程按顺序处理，吞吐量随线程数而不是slave数量增长
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class SlaveRequestPipeline {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SlaveRequestPipeline.class);
+
+    /**
+     * 没有消息时工作线程的最长等待时间，有消息入队时会被立即唤醒
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Worker[] workers;
+
+    /**
+     * 每次从一个slave的队列最多取出的消息数，避免一个slave占满工作线程
+     */
+    private final int batchSize;
+
+    /**
+     * key 请求类型
+     */
+    private final Map<Integer, Registration> registrations = new ConcurrentHashMap<>();
+
+    /**
+     * 没有注册处理器的消息数
+     */
+    private final AtomicLong unhandled = new AtomicLong();
+
+    /**
+     * 处理完成后归还消息缓冲区
+     */
+    private final Consumer<ByteBuffer> releaser;
+
+    private final NodeStatus nodeStatus;
+
+    public SlaveRequestPipeline(NodeStatus nodeStatus, int workerThreads, int batchSize,
+                                Consumer<ByteBuffer> releaser) {
+        if (workerThreads <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("workerThreads and batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+        this.releaser = releaser;
+        this.nodeStatus = nodeStatus;
+        this.workers = new Worker[workerThreads];
+        for (int i = 0; i < workerThreads; i++) {
+            workers[i] = new Worker("slave-worker-" + i);
+        }
+    }
+
+    public void start() {
+        for (Worker worker : workers) {
+            worker.start();
+        }
+        LOG.info("start slave request pipeline with " + workers.length + " workers");
+    }
+
+    /**
+     * 注册处理器，每种请求类型只能注册一个
+     */
+    public void register(int requestType, String name, SlaveMessageHandler handler) {
+        if (registrations.putIfAbsent(requestType, new Registration(name, handler)) != null) {
+            throw new IllegalStateException("handler of request type " + requestType + " is already registered");
+        }
+        LOG.info("register slave handler " + name + " of request type " + requestType);
+    }
+
+    /**
+     * 为slave的新连接创建接收队列并交给负责该slave的工作线程
+     * slave重新连接时替换旧的队列，旧队列中未处理的消息被丢弃，由slave重新发送
+     */
+    public BoundedRingQueue<ByteBuffer> attach(int slaveId, int capacity) {
+        Worker worker = workerOf(slaveId);
+        SlaveQueue queue = new SlaveQueue(slaveId, capacity, worker);
+        SlaveQueue previous = worker.queues.put(slaveId, queue);
+        if (previous != null) {
+            worker.retire(previous);
+        }
+        return queue;
+    }
+
+    /**
+     * slave的连接关闭后移除它的接收队列，只移除属于该连接的队列
+     */
+    public void detach(int slaveId, Queue<ByteBuffer> queue) {
+        Worker worker = workerOf(slaveId);
+        if (queue instanceof SlaveQueue && worker.queues.remove(slaveId, queue)) {
+            worker.retire((SlaveQueue) queue);
+        }
+    }
+
+    private Worker workerOf(int slaveId) {
+        return workers[Math.floorMod(slaveId, workers.length)];
+    }
+
+    /**
+     * 各请求类型的处理统计
+     * key 处理器名称
+     */
+    public Map<String, MessageTypeMetrics> getMetrics() {
+        Map<String, MessageTypeMetrics> metrics = new TreeMap<>();
+        for (Registration registration : registrations.values()) {
+            metrics.put(registration.name, registration.metrics);
+        }
+        return metrics;
+    }
+
+    public long getUnhandled() {
+        return unhandled.get();
+    }
+
+    /**
+     * 每个工作线程处理过的消息数，用来观察分片是否均衡
+     */
+    public long[] getProcessedPerWorker() {
+        long[] processed = new long[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            processed[i] = workers[i].processed.get();
+        }
+        return processed;
+    }
+
+    private void dispatch(int slaveId, ByteBuffer message) {
+        long startNanos = System.nanoTime();
+        Registration registration = null;
+        boolean success = false;
+        try {
+            if (message.remaining() < 4) {
+                unhandled.incrementAndGet();
+                LOG.warn("discard message of " + message.remaining() + " bytes without request type from slave "
+                        + slaveId);
+                return;
+            }
+            int requestType = message.getInt();
+            registration = registrations.get(requestType);
+            if (registration == null) {
+                if (unhandled.incrementAndGet() == 1 || LOG.isDebugEnabled()) {
+                    LOG.warn("no slave handler registered for request type " + requestType + " from slave " + slaveId);
+                }
+                return;
+            }
+            registration.metrics.recordReceived();
+            registration.handler.handle(slaveId, message);
+            success = true;
+        } catch (Exception e) {
+            LOG.error("handle message of slave " + slaveId + " error", e);
+        } finally {
+            releaser.accept(message);
+            if (registration != null) {
+                registration.metrics.recordHandled(System.nanoTime() - startNanos, success);
+            }
+        }
+    }
+
+    /**
+     * 入队后唤醒空闲的工作线程
+     */
+    private static class SlaveQueue extends BoundedRingQueue<ByteBuffer> {
+
+        private final int slaveId;
+
+        private final Worker worker;
+
+        private SlaveQueue(int slaveId, int capacity, Worker worker) {
+            super(capacity);
+            this.slaveId = slaveId;
+            this.worker = worker;
+        }
+
+        @Override
+        public boolean offer(ByteBuffer message) {
+            if (!super.offer(message)) {
+                return false;
+            }
+            worker.wakeup();
+            return true;
+        }
+    }
+
+    private class Worker extends Thread {
+
+        /**
+         * 该线程负责的slave的接收队列
+         * key slaveId
+         */
+        private final Map<Integer, SlaveQueue> queues = new ConcurrentHashMap<>();
+
+        /**
+         * 已经被替换或移除的队列，由工作线程丢弃其中剩余的消息并归还缓冲区
+         */
+        private final Queue<SlaveQueue> retiredQueues = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean idle = new AtomicBoolean(false);
+
+        private final AtomicLong processed = new AtomicLong();
+
+        private Worker(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        private void retire(SlaveQueue queue) {
+            retiredQueues.offer(queue);
+            wakeup();
+        }
+
+        private void wakeup() {
+            //CAS保证入队的消息对工作线程可见后再判断是否需要唤醒
+            if (idle.compareAndSet(true, false)) {
+                LockSupport.unpark(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (nodeStatus.isRunning()) {
+                if (processQueues() || discardRetiredQueues()) {
+                    continue;
+                }
+                idle.set(true);
+                //进入空闲前再检查一次，避免错过生产者的唤醒
+                if (hasPendingMessages()) {
+                    idle.set(false);
+                    continue;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                idle.set(false);
+            }
+        }
+
+        /**
+         * 从每个slave的队列取出一批消息处理
+         *
+         * @return 是否处理了消息
+         */
+        private boolean processQueues() {
+            boolean worked = false;
+            for (SlaveQueue queue : queues.values()) {
+                ByteBuffer message;
+                int count = 0;
+                while (count < batchSize && (message = queue.poll()) != null) {
+                    dispatch(queue.slaveId, message);
+                    count++;
+                }
+                if (count > 0) {
+                    processed.addAndGet(count);
+                    worked = true;
+                }
+            }
+            return worked;
+        }
+
+        private boolean discardRetiredQueues() {
+            boolean worked = false;
+            SlaveQueue queue;
+            while ((queue = retiredQueues.poll()) != null) {
+                int discarded = 0;
+                ByteBuffer message;
+                while ((message = queue.poll()) != null) {
+                    releaser.accept(message);
+                    discarded++;
+                }
+                if (discarded > 0) {
+                    LOG.info("discard " + discarded + " unprocessed messages of slave " + queue.slaveId);
+                }
+                worked = true;
+            }
+            return worked;
+        }
+
+        private boolean hasPendingMessages() {
+            if (!retiredQueues.isEmpty()) {
+                return true;
+            }
+            for (SlaveQueue queue : queues.values()) {
+                if (!queue.isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class Registration {
+
+        private final String name;
+
+        private final SlaveMessageHandler handler;
+
+        private final MessageTypeMetrics metrics = new MessageTypeMetrics();
+
+        private Registration(String name, SlaveMessageHandler handler) {
+            this.name = name;
+            this.handler = handler;
+        }
+    }
+
+}
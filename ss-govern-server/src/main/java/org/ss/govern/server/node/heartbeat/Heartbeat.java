@@ -0,0 +1,40 @@
+package org.ss.govern.server.node.heartbeat;
+
+import org.ss.govern.core.constants.NodeRequestType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 心跳消息：类型 + 发送者id
+ * 心跳在网络读取时直接处理，不进入接收队列，接收队列积压时也不会误判节点失效
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class Heartbeat {
+
+    public static final int MESSAGE_SIZE = 8;
+
+    private Heartbeat() {
+    }
+
+    /**
+     * 编码心跳消息，发给多个节点时每个节点发送duplicate()
+     */
+    public static ByteBuffer toRequestByteBuffer(int nodeId) {
+        ByteBuffer message = ByteBuffer.allocate(MESSAGE_SIZE);
+        message.putInt(NodeRequestType.HEARTBEAT);
+        message.putInt(nodeId);
+        message.flip();
+        return message;
+    }
+
+    /**
+     * 是否为心跳消息，不改变message的position
+     */
+    public static boolean isHeartbeat(ByteBuffer message) {
+        return message.remaining() >= 4
+                && message.getInt(message.position()) == NodeRequestType.HEARTBEAT;
+    }
+
+}
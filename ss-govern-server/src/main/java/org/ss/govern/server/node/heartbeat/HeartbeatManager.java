@@ -0,0 +1,62 @@
+package org.ss.govern.server.node.heartbeat;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.ss.govern.server.config.GovernServerConfig;
+import org.ss.govern.server.node.NetworkManager;
+import org.ss.govern.server.node.NodeManager;
+import org.ss.govern.server.node.NodeStatus;
+import org.ss.govern.utils.ThreadUtils;
+
+import java.nio.ByteBuffer;
+
+/**
+ * master节点的心跳线程
+ * 定期向所有已连接的master和slave节点发送心跳，并检查每个节点的故障检测器
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class HeartbeatManager extends Thread {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HeartbeatManager.class);
+
+    private NetworkManager networkManager;
+
+    private NodeManager nodeManager;
+
+    private GovernServerConfig config;
+
+    private NodeStatus nodeStatus;
+
+    public HeartbeatManager(NetworkManager networkManager, NodeManager nodeManager) {
+        super("heartbeat-manager");
+        setDaemon(true);
+        this.networkManager = networkManager;
+        this.nodeManager = nodeManager;
+        this.config = networkManager.getContext().getConfig();
+        this.nodeStatus = networkManager.getContext().getStatus();
+    }
+
+    @Override
+    public void run() {
+        LOG.info("start heartbeat manager, heartbeat interval is " + config.getHeartbeatIntervalMs() + " ms");
+        //所有节点共用同一份编码后的心跳消息
+        ByteBuffer heartbeat = Heartbeat.toRequestByteBuffer(config.getNodeId());
+        while (nodeStatus.isRunning()) {
+            try {
+                for (Integer nodeId : networkManager.getConnectedNodeIds()) {
+                    networkManager.sendMessage(nodeId, heartbeat.duplicate());
+                }
+                for (Integer slaveId : networkManager.getConnectedSlaveIds()) {
+                    networkManager.sendSlaveMessage(slaveId, heartbeat.duplicate());
+                }
+                nodeManager.checkFailures();
+            } catch (Exception e) {
+                LOG.error("heartbeat manager error", e);
+            }
+            ThreadUtils.sleep(config.getHeartbeatIntervalMs());
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+package org.ss.govern.server.node.heartbeat;
+
+/**
+ * phi accrual故障检测器
+ * 根据最近一段时间心跳间隔的均值和标准差，估计"距离上次心跳已经过去这么久"的概率，
+ * phi = -log10(该时间之后仍能收到心跳的概率)，phi越大节点失效的可能性越高；
+ * 心跳间隔波动大时（比如GC停顿）阈值会自适应地变宽，减少误判
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class PhiAccrualFailureDetector {
+
+    /**
+     * 保留的心跳间隔样本数
+     */
+    private static final int MAX_SAMPLE_SIZE = 200;
+
+    /**
+     * 标准差的下限，避免心跳非常稳定时轻微的延迟就被判定为失效
+     */
+    private static final double MIN_STD_DEVIATION_MILLIS = 100;
+
+    private final double threshold;
+
+    /**
+     * 可以容忍的心跳停顿时间，计算时加到间隔均值上
+     */
+    private final long acceptablePauseMillis;
+
+    /**
+     * 环形数组保存最近的心跳间隔
+     */
+    private final long[] intervals = new long[MAX_SAMPLE_SIZE];
+
+    private int sampleCount;
+
+    private int nextSample;
+
+    private double intervalSum;
+
+    private double squaredIntervalSum;
+
+    /**
+     * 上次心跳的时间，-1表示还没有收到过心跳
+     */
+    private long lastHeartbeatMillis = -1;
+
+    /**
+     * @param threshold phi超过该值时认为节点疑似失效
+     * @param acceptablePauseMillis 可以容忍的心跳停顿时间
+     * @param firstHeartbeatEstimateMillis 收到第一次心跳时估计的心跳间隔，一般为心跳发送间隔
+     */
+    public PhiAccrualFailureDetector(double threshold, long acceptablePauseMillis,
+                                     long firstHeartbeatEstimateMillis) {
+        this.threshold = threshold;
+        this.acceptablePauseMillis = acceptablePauseMillis;
+        //用估计的间隔初始化样本，均值为估计值，标准差为估计值的1/4
+        long stdDeviation = firstHeartbeatEstimateMillis / 4;
+        addInterval(firstHeartbeatEstimateMillis - stdDeviation);
+        addInterval(firstHeartbeatEstimateMillis + stdDeviation);
+    }
+
+    public void heartbeat() {
+        heartbeat(currentTimeMillis());
+    }
+
+    public synchronized void heartbeat(long nowMillis) {
+        if (lastHeartbeatMillis >= 0) {
+            addInterval(nowMillis - lastHeartbeatMillis);
+        }
+        lastHeartbeatMillis = nowMillis;
+    }
+
+    public double phi() {
+        return phi(currentTimeMillis());
+    }
+
+    /**
+     * 计算当前的phi值，还没有收到过心跳时返回0
+     */
+    public synchronized double phi(long nowMillis) {
+        if (lastHeartbeatMillis < 0) {
+            return 0;
+        }
+        long timeDiff = nowMillis - lastHeartbeatMillis;
+        double mean = intervalSum / sampleCount + acceptablePauseMillis;
+        double variance = squaredIntervalSum / sampleCount - (intervalSum / sampleCount) * (intervalSum / sampleCount);
+        double stdDeviation = Math.max(Math.sqrt(Math.max(variance, 0)), MIN_STD_DEVIATION_MILLIS);
+        //正态分布累积函数的logistic近似
+        double y = (timeDiff - mean) / stdDeviation;
+        double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+        if (timeDiff > mean) {
+            return -Math.log10(e / (1.0 + e));
+        }
+        return -Math.log10(1.0 - 1.0 / (1.0 + e));
+    }
+
+    public boolean isAvailable() {
+        return phi() < threshold;
+    }
+
+    public boolean isAvailable(long nowMillis) {
+        return phi(nowMillis) < threshold;
+    }
+
+    /**
+     * 距离上次心跳的时间，还没有收到过心跳时返回-1
+     */
+    public synchronized long millisSinceLastHeartbeat() {
+        return lastHeartbeatMillis < 0 ? -1 : currentTimeMillis() - lastHeartbeatMillis;
+    }
+
+    private void addInterval(long interval) {
+        if (sampleCount == MAX_SAMPLE_SIZE) {
+            long oldest = intervals[nextSample];
+            intervalSum -= oldest;
+            squaredIntervalSum -= (double) oldest * oldest;
+        } else {
+            sampleCount++;
+        }
+        intervals[nextSample] = interval;
+        nextSample = (nextSample + 1) % MAX_SAMPLE_SIZE;
+        intervalSum += interval;
+        squaredIntervalSum += (double) interval * interval;
+    }
+
+    private static long currentTimeMillis() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+}
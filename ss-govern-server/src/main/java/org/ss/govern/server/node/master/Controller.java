@@ -1,17 +1,24 @@
 package org.ss.govern.server.node.master;
 
-import com.alibaba.fastjson.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.ss.govern.core.constants.NodeRequestType;
 import org.ss.govern.server.config.GovernServerConfig;
 import org.ss.govern.server.node.NetworkManager;
+import org.ss.govern.server.node.NodeAddress;
 import org.ss.govern.server.node.NodeManager;
-import org.ss.govern.utils.FileUtils;
+import org.ss.govern.server.node.slot.SlotAllocation;
+import org.ss.govern.server.node.slot.SlotAllocationCodec;
+import org.ss.govern.server.node.slot.SlotAllocationStore;
+import org.ss.govern.server.node.slot.SlotRebalancePlan;
+import org.ss.govern.server.node.slot.SlotRebalancer;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author wangsz
@@ -24,55 +31,124 @@ public class Controller {
 
     private NetworkManager networkManager;
 
-    private GovernServerConfig config = GovernServerConfig.getInstance();
+    private GovernServerConfig config;
 
-    /**
-     * slot槽位的总数量
-     */
-    private static final int SLOTS_COUNT = 20;
-    /**
-     * 槽位分配存储文件的名字
-     */
-    private static final String SLOTS_ALLOCATION_FILENAME = "/slot_allocation";
+    private SlotAllocationStore slotAllocationStore;
 
     public Controller(NodeManager nodeManager, NetworkManager networkManager) {
         this.nodeManager = nodeManager;
         this.networkManager = networkManager;
+        this.config = networkManager.getContext().getConfig();
+        this.slotAllocationStore = new SlotAllocationStore(config.getDataDir(), config.getSlotsCount());
     }
 
     /**
      * 分配槽位并持久化磁盘和发送其他节点
+     * 存在持久化的分配数据时以其为基础增量分配，只迁移恢复均衡所必须的槽位
+     * 新分配的epoch比本地和所有远程节点已知的epoch都大
      */
-    public void allocateSlots() {
+    public SlotAllocation allocateSlots() {
         List<MasterNodePeer> masterNodePeers = nodeManager.getAllRemoteMasterNodes();
-        int totalMasterNodeCount = masterNodePeers.size() + 1;
-        int slotsPerNode = SLOTS_COUNT / totalMasterNodeCount;
-        //element：nodeId
-        List<Integer> slotsAllocation = allocationSlots(masterNodePeers, slotsPerNode);
-        String jsonString = JSONObject.toJSONString(slotsAllocation);
-        byte[] slotsByte = jsonString.getBytes();
+        SlotAllocation current = slotAllocationStore.load();
+        int[] currentAllocation = current == null ? null : current.getSlotOwners();
+        SlotRebalancePlan plan = rebalanceSlots(currentAllocation, masterNodePeers);
+        long epoch = current == null ? SlotAllocation.NO_EPOCH : current.getEpoch();
+        for (MasterNodePeer masterNodePeer : masterNodePeers) {
+            epoch = Math.max(epoch, masterNodePeer.getSlotsEpoch());
+        }
+        //下标：槽位编号 值：nodeId
+        SlotAllocation allocation = new SlotAllocation(epoch + 1, config.getNodeId(), plan.getSlotOwners());
+        int slotsCount = allocation.getSlotOwners().length;
+        if (currentAllocation == null) {
+            LOG.info("allocate " + slotsCount + " slots to " + (masterNodePeers.size() + 1)
+                    + " master nodes, epoch " + allocation.getEpoch());
+        } else {
+            LOG.info("rebalance slots allocation, " + plan.getMoves().size() + " of "
+                    + slotsCount + " slots moved, epoch " + allocation.getEpoch());
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("slot moves : " + plan.getMoves());
+            }
+        }
         //持久化分配数据到磁盘
-        FileUtils.persistSlotsAllocation(slotsByte, config.getDataDir(), SLOTS_ALLOCATION_FILENAME);
+        slotAllocationStore.persist(allocation);
         //将分配好的槽位发送给其他master节点
-        syncSlotsAllocation(masterNodePeers, slotsByte);
+        syncSlotsAllocation(masterNodePeers, SlotAllocationCodec.encode(allocation));
+        return allocation;
     }
 
-    protected List<Integer> allocationSlots(List<MasterNodePeer> masterNodePeers, int slotsPerNode) {
-        //element：nodeId
-        List<Integer> slotsAllocation = new ArrayList<>(SLOTS_COUNT);
-        //分配槽位
-        int slotIndex = 0;
-        //为所有远程节点分配槽位
+    /**
+     * 重新选举后接管controller，以之前的槽位分配为基础按存活的master节点重新均衡，
+     * 已经失效的节点（包括之前的controller）让出槽位，递增epoch并更新controller后持久化并发送给其他master节点
+     *
+     * @param previous 之前的槽位分配，为null时重新分配槽位
+     * @param liveMasterNodePeers 存活的远程master节点
+     */
+    public SlotAllocation takeOverSlots(SlotAllocation previous, List<MasterNodePeer> liveMasterNodePeers) {
+        if (previous == null) {
+            return allocateSlots();
+        }
+        SlotRebalancePlan plan = rebalanceSlots(previous.getSlotOwners(), liveMasterNodePeers);
+        SlotAllocation allocation = publishSlotsAllocation(previous, plan);
+        LOG.info("take over slots allocation of controller " + previous.getControllerId() + ", "
+                + plan.getMoves().size() + " slots moved to live master nodes, epoch " + allocation.getEpoch());
+        return allocation;
+    }
+
+    /**
+     * 存活的master节点变化后重新均衡槽位，新加入的节点分到槽位，离开的节点让出槽位
+     *
+     * @param current 当前的槽位分配
+     * @param liveMasterNodePeers 存活的远程master节点
+     * @return 没有槽位需要迁移时返回null
+     */
+    public SlotAllocation rebalanceLiveSlots(SlotAllocation current, List<MasterNodePeer> liveMasterNodePeers) {
+        SlotRebalancePlan plan = rebalanceSlots(current.getSlotOwners(), liveMasterNodePeers);
+        if (plan.getMoves().isEmpty()) {
+            return null;
+        }
+        SlotAllocation allocation = publishSlotsAllocation(current, plan);
+        LOG.info("live master nodes changed, " + plan.getMoves().size() + " of " + plan.getSlotOwners().length
+                + " slots moved, epoch " + allocation.getEpoch());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("slot moves : " + plan.getMoves());
+        }
+        return allocation;
+    }
+
+    /**
+     * 以重新均衡的结果生成新的槽位分配，epoch比之前的分配和所有远程节点已知的epoch都大，
+     * 持久化后发送给其他master节点
+     */
+    private SlotAllocation publishSlotsAllocation(SlotAllocation previous, SlotRebalancePlan plan) {
+        List<MasterNodePeer> masterNodePeers = nodeManager.getAllRemoteMasterNodes();
+        long epoch = previous.getEpoch();
         for (MasterNodePeer masterNodePeer : masterNodePeers) {
-            for (int allocatedCount = 1; allocatedCount <= slotsPerNode; slotIndex++,allocatedCount++) {
-                slotsAllocation.add(slotIndex, masterNodePeer.getNodeId());
-            }
+            epoch = Math.max(epoch, masterNodePeer.getSlotsEpoch());
         }
-        //剩余槽位分配给Controller
-        for(;slotIndex < SLOTS_COUNT; slotIndex++) {
-            slotsAllocation.add(slotIndex, config.getNodeId());
+        SlotAllocation allocation = new SlotAllocation(epoch + 1, config.getNodeId(), plan.getSlotOwners());
+        slotAllocationStore.persist(allocation);
+        syncSlotsAllocation(masterNodePeers, SlotAllocationCodec.encode(allocation));
+        return allocation;
+    }
+
+    protected SlotRebalancePlan rebalanceSlots(int[] currentAllocation, List<MasterNodePeer> masterNodePeers) {
+        //master.node.servers中配置的节点权重，按权重比例分配槽位
+        Map<Integer, Integer> configuredWeights = new HashMap<>();
+        for (NodeAddress nodeAddress : networkManager.getContext().getConfigurationParser().parseMasterNodeServers()) {
+            configuredWeights.put(nodeAddress.getNodeId(), nodeAddress.getWeight());
+        }
+        Map<Integer, Integer> weights = new HashMap<>();
+        for (MasterNodePeer masterNodePeer : masterNodePeers) {
+            weights.put(masterNodePeer.getNodeId(),
+                    configuredWeights.getOrDefault(masterNodePeer.getNodeId(), NodeAddress.DEFAULT_WEIGHT));
+        }
+        weights.put(config.getNodeId(), configuredWeights.getOrDefault(config.getNodeId(), NodeAddress.DEFAULT_WEIGHT));
+        int slotsCount = config.getSlotsCount();
+        Map<Integer, Integer> targetCounts = SlotRebalancer.weightedTargets(currentAllocation, slotsCount, weights);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("slot weights : " + weights + ", target slot counts : " + targetCounts);
         }
-        return slotsAllocation;
+        return SlotRebalancer.rebalance(currentAllocation, slotsCount, targetCounts);
     }
 
     protected void syncSlotsAllocation(List<MasterNodePeer> masterNodePeers, byte[] slotsByte) {
@@ -82,8 +158,51 @@ public class Controller {
                     ByteBuffer.allocate(messageLength);
             slotsAllocationByteBuffer.putInt(NodeRequestType.SLOTS_ALLOCATION);
             slotsAllocationByteBuffer.put(slotsByte);
-            networkManager.sendMessage(masterNodePeer.getNodeId(), slotsAllocationByteBuffer);
+            slotsAllocationByteBuffer.flip();
+            if (nodeManager.isSuspected(masterNodePeer.getNodeId())) {
+                LOG.warn("master node " + masterNodePeer.getNodeId() + " is suspected to be failed, phi = "
+                        + String.format("%.2f", nodeManager.getSuspicionLevel(masterNodePeer.getNodeId()))
+                        + ", slots allocation may not be delivered");
+            }
+            if (networkManager.isConnected(masterNodePeer.getNodeId())) {
+                networkManager.sendMessage(masterNodePeer.getNodeId(), slotsAllocationByteBuffer);
+            }
+        }
+    }
+
+    /**
+     * 向重新连接的master节点补发当前的槽位分配
+     */
+    public void resendSlotsAllocation(SlotAllocation allocation, MasterNodePeer masterNodePeer) {
+        LOG.info("resend slots allocation of epoch " + allocation.getEpoch() + " to master node "
+                + masterNodePeer.getNodeId());
+        syncSlotsAllocation(Collections.singletonList(masterNodePeer), SlotAllocationCodec.encode(allocation));
+    }
+
+    /**
+     * 其他master节点的怀疑程度即故障检测器的phi值，值越大越可能已经失效
+     * key nodeId
+     */
+    public Map<Integer, Double> getMasterSuspicionLevels() {
+        Map<Integer, Double> suspicionLevels = new HashMap<>();
+        for (MasterNodePeer masterNodePeer : nodeManager.getAllRemoteMasterNodes()) {
+            suspicionLevels.put(masterNodePeer.getNodeId(),
+                    nodeManager.getSuspicionLevel(masterNodePeer.getNodeId()));
+        }
+        return suspicionLevels;
+    }
+
+    /**
+     * 疑似失效的master节点
+     */
+    public List<Integer> getSuspectedMasterNodes() {
+        List<Integer> suspectedNodes = new ArrayList<>();
+        for (MasterNodePeer masterNodePeer : nodeManager.getAllRemoteMasterNodes()) {
+            if (nodeManager.isSuspected(masterNodePeer.getNodeId())) {
+                suspectedNodes.add(masterNodePeer.getNodeId());
+            }
         }
+        return suspectedNodes;
     }
 
 }
@@ -8,15 +8,20 @@ import org.ss.govern.server.node.MessageReceiver;
 import org.ss.govern.server.node.NetworkManager;
 import org.ss.govern.server.node.NodeManager;
 import org.ss.govern.server.node.NodeStatus;
+import org.ss.govern.server.node.slot.SlotAllocation;
 
 import java.nio.ByteBuffer;
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * controller候选人
+ * 基于任期的选举：每个任期内所有候选人都投给排名最高（nodeId最大）的候选人，正常情况下一轮即可选出controller；
+ * 任期超时（随机化，避免所有候选人同时重试）仍未选出时进入下一任期，只在上一任期投过票的候选人中排名，
+ * 收到更高任期的选票时跟随该任期重新投票，过期任期的选票直接丢弃；
+ * 选举期间收到其他controller的租约续期或者更新epoch的槽位分配时，说明controller仍在工作，直接停止选举
  * @author wangsz
  * @create 2020-04-08
  **/
@@ -32,11 +37,30 @@ public class ControllerCandidate {
 
     private GovernServerConfig serverConfig;
 
-    private int voteRound = 1;
+    private NodeStatus nodeStatus;
+
+    /**
+     * 当前任期
+     */
+    private int currentTerm = 0;
 
     private Vote currentVote;
 
-    private Integer selfId;
+    private int selfId;
+
+    private VoteBox voteBox;
+
+    /**
+     * 最近一次选举选出的controller
+     */
+    private int lastControllerId = SlotAllocation.UNKNOWN_CONTROLLER;
+
+    /**
+     * lastControllerId所在的任期，停止选举时为当前租约的任期
+     */
+    private int lastControllerTerm = 0;
+
+    private final ElectionMetrics electionMetrics = new ElectionMetrics();
 
     public ControllerCandidate(NetworkManager masterNetworkManager,
                                NodeManager remoteNodeManager,
@@ -44,8 +68,10 @@ public class ControllerCandidate {
         this.masterNetworkManager = masterNetworkManager;
         this.remoteNodeManager = remoteNodeManager;
         this.messageReceiver = messageReceiver;
-        this.serverConfig = GovernServerConfig.getInstance();
+        this.serverConfig = masterNetworkManager.getContext().getConfig();
+        this.nodeStatus = masterNetworkManager.getContext().getStatus();
         this.selfId = serverConfig.getNodeId();
+        this.voteBox = messageReceiver.getVoteBox();
     }
 
     /**
@@ -53,89 +79,170 @@ public class ControllerCandidate {
      * @return
      */
     public MasterNodeRole voteForControllerElection() throws InterruptedException {
-        this.currentVote = new Vote(selfId, selfId, voteRound);
-        HashMap<Integer, Vote> recvSet = new HashMap<>();
-        recvSet.put(selfId, currentVote);
-
+        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        SlotAllocation knownAllocation = messageReceiver.getLatestSlotsAllocation();
+        long knownSlotsEpoch = knownAllocation == null ? SlotAllocation.NO_EPOCH : knownAllocation.getEpoch();
         List<MasterNodePeer> otherControllerCandidates = remoteNodeManager.getOtherControllerCandidate();
-        Integer controllerId;
-        do {
-            controllerId = startNextRoundVote(otherControllerCandidates, recvSet);
-            if(controllerId != null) {
+        int quorum = (1 + otherControllerCandidates.size()) / 2 + 1;
+        //第一个任期所有连接正常的候选人都参与排名
+        Set<Integer> rankedCandidates = new HashSet<>();
+        rankedCandidates.add(selfId);
+        for (MasterNodePeer node : otherControllerCandidates) {
+            if (masterNetworkManager.isConnected(node.getNodeId())) {
+                rankedCandidates.add(node.getNodeId());
+            }
+        }
+        int terms = 0;
+        int controllerId = VoteBox.NO_WINNER;
+        while (nodeStatus.isRunning()) {
+            terms++;
+            currentTerm++;
+            controllerId = runTerm(otherControllerCandidates, rankedCandidates, quorum, startNanos, knownSlotsEpoch);
+            if (controllerId != VoteBox.NO_WINNER) {
                 break;
             }
-        } while (NodeStatus.isRunning());
-        return controllerId.equals(selfId) ? MasterNodeRole.CONTROLLER : MasterNodeRole.CANDIDATE;
-    }
-
-    private Integer startNextRoundVote(List<MasterNodePeer> otherControllerCandidates, HashMap<Integer, Vote> recvSet) throws InterruptedException {
-        int candidateCount = (1 + otherControllerCandidates.size());
-        int quorum = candidateCount / 2 + 1;
-        Vote vote = this.currentVote;
-        recvSet.put(vote.getVoterId(), vote);
-        if(LOG.isDebugEnabled()) {
-            LOG.debug("start "  + voteRound + " round vote");
+            int liveControllerId = findLiveController(startNanos, knownSlotsEpoch);
+            if (liveControllerId != VoteBox.NO_WINNER) {
+                //其他节点没有参与选举，继续下去只会不停进入新的任期
+                lastControllerId = liveControllerId;
+                lastControllerTerm = messageReceiver.getControllerLease().getTerm();
+                LOG.info("stop controller election at term " + currentTerm + ", controller "
+                        + liveControllerId + " is alive, term " + lastControllerTerm);
+                return MasterNodeRole.CANDIDATE;
+            }
+            //下一任期排除本任期没有投票的候选人，它们可能已经失联
+            rankedCandidates = new HashSet<>();
+            rankedCandidates.add(selfId);
+            for (MasterNodePeer node : otherControllerCandidates) {
+                if (voteBox.hasVoted(node.getNodeId(), currentTerm)) {
+                    rankedCandidates.add(node.getNodeId());
+                }
+            }
         }
-        for (MasterNodePeer node : otherControllerCandidates) {
-            Integer remoteNodeId = node.getNodeId();
-            masterNetworkManager.sendMessage(remoteNodeId, vote.toRequestByteBuffer());
+        if (controllerId == VoteBox.NO_WINNER) {
+            return MasterNodeRole.CANDIDATE;
         }
-        while (NodeStatus.isRunning()) {
-            Vote recvVote = messageReceiver.takeVote();
-            if(recvVote.getVoterId() == null) {
-                continue;
-            }
-            recvSet.put(recvVote.getVoterId(), recvVote);
-            if(recvSet.size() >= quorum) {
-                Integer controllerId = elect(recvSet, quorum);
-                if(controllerId != null) {
-                    // 清空队列,取出所有选票
+        lastControllerId = controllerId;
+        lastControllerTerm = currentTerm;
+        long latency = System.currentTimeMillis() - startTime;
+        electionMetrics.recordElection(latency, terms);
+        LOG.info("controller election finished in " + latency + " ms, term " + currentTerm
+                + ", controller is " + controllerId + ", " + electionMetrics
+                + ", staleVotes=" + voteBox.getStaleVotes());
+        return controllerId == selfId ? MasterNodeRole.CONTROLLER : MasterNodeRole.CANDIDATE;
+    }
 
-                    return controllerId;
-                }
+    /**
+     * 在当前任期投票，直到选出controller或者任期超时
+     * 选票由接收线程直接写入选票箱，这里只在选票箱变化时重新计票，
+     * 每个租约续期间隔检查一次是否已经有controller在工作
+     *
+     * @return 选出的controller，任期超时或者发现工作中的controller时返回VoteBox.NO_WINNER
+     */
+    private int runTerm(List<MasterNodePeer> otherControllerCandidates, Set<Integer> rankedCandidates,
+                        int quorum, long startNanos, long knownSlotsEpoch) throws InterruptedException {
+        castVote(otherControllerCandidates, rankedCandidates);
+        long deadline = System.currentTimeMillis() + randomElectionTimeout();
+        long seenVersion = voteBox.version();
+        while (nodeStatus.isRunning()) {
+            int highestTerm = voteBox.highestTerm();
+            if (highestTerm > currentTerm) {
+                //其他候选人已经进入更新的任期，跟随该任期重新投票
+                currentTerm = highestTerm;
+                castVote(otherControllerCandidates, rankedCandidates);
+                deadline = System.currentTimeMillis() + randomElectionTimeout();
             }
-            //所有候选人的选票都收到，但是没有决定出controller
-            if(candidateCount == recvSet.size()) {
-                //下一轮投票前修改自己的选票
-                Integer betterId = getBetterControllerId(recvSet.values());
-                voteRound++;
-                this.currentVote = new Vote(this.selfId, betterId, voteRound);
-                recvSet.clear();
-                break;
+            int controllerId = voteBox.tally(currentTerm, quorum);
+            if (controllerId != VoteBox.NO_WINNER) {
+                return controllerId;
             }
+            if (findLiveController(startNanos, knownSlotsEpoch) != VoteBox.NO_WINNER) {
+                return VoteBox.NO_WINNER;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                LOG.info("term " + currentTerm + " timed out with votes " + voteBox);
+                return VoteBox.NO_WINNER;
+            }
+            seenVersion = voteBox.awaitChange(seenVersion,
+                    Math.min(remaining, serverConfig.getLeaseRenewIntervalMs()));
         }
-        return null;
+        return VoteBox.NO_WINNER;
     }
 
-    private Integer elect(HashMap<Integer, Vote> recvSet, int quorum) {
-        Map<Integer, Integer> voteCountMap = new HashMap<>();
-        for (Vote vote : recvSet.values()) {
-            Integer candidateId = vote.getCandidateId();
-            Integer count = voteCountMap.get(candidateId);
-            if(count == null) {
-                count = 0;
+    /**
+     * 投给排名最高的候选人，并发送给其他候选人
+     * 选票只编码一次，所有候选人共用同一份消息
+     */
+    private void castVote(List<MasterNodePeer> otherControllerCandidates, Set<Integer> rankedCandidates) {
+        int bestCandidateId = selfId;
+        for (Integer candidateId : rankedCandidates) {
+            if (candidateId > bestCandidateId) {
+                bestCandidateId = candidateId;
             }
-            voteCountMap.put(candidateId, ++count);
         }
-        for (Map.Entry<Integer, Integer> voteCountEntry : voteCountMap.entrySet()) {
-            if(voteCountEntry.getValue() >= quorum) {
-                return voteCountEntry.getKey();
+        voteBox.advanceTerm(currentTerm);
+        this.currentVote = new Vote(selfId, bestCandidateId, currentTerm);
+        voteBox.offer(selfId, bestCandidateId, currentTerm);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("start term " + currentTerm + ", vote for " + bestCandidateId);
+        }
+        ByteBuffer message = currentVote.toRequestByteBuffer();
+        for (MasterNodePeer node : otherControllerCandidates) {
+            if (masterNetworkManager.isConnected(node.getNodeId())) {
+                masterNetworkManager.sendMessage(node.getNodeId(), message.duplicate());
             }
         }
-        return null;
     }
 
     /**
-     * 获取下一轮的候选人节点id
-     * */
-    private Integer getBetterControllerId(Collection<Vote> votes) {
-        Integer betterId = 0;
-        for (Vote vote : votes) {
-            Integer controllerId = vote.getVoterId();
-            if(controllerId > betterId) {
-                betterId = controllerId;
-            }
+     * 选举开始后收到其他节点的租约续期，或者收到epoch更新的槽位分配，说明有controller在工作
+     *
+     * @return 工作中的controller，没有时返回VoteBox.NO_WINNER
+     */
+    private int findLiveController(long startNanos, long knownSlotsEpoch) {
+        ControllerLease controllerLease = messageReceiver.getControllerLease();
+        if (controllerLease.isRenewedSince(startNanos) && controllerLease.getControllerId() != selfId) {
+            return controllerLease.getControllerId();
+        }
+        SlotAllocation latest = messageReceiver.getLatestSlotsAllocation();
+        if (latest != null && latest.getEpoch() > knownSlotsEpoch && latest.getControllerId() != selfId) {
+            return latest.getControllerId();
+        }
+        return VoteBox.NO_WINNER;
+    }
+
+    /**
+     * 任期超时时间，在 [timeout, 2 * timeout) 之间随机
+     */
+    private long randomElectionTimeout() {
+        long timeout = serverConfig.getElectionTimeoutMs();
+        return timeout + ThreadLocalRandom.current().nextLong(timeout);
+    }
+
+    /**
+     * 观察到其他节点的任期，下一次选举从更高的任期开始
+     */
+    public void observeTerm(int term) {
+        if (term > currentTerm) {
+            currentTerm = term;
         }
-        return betterId;
+    }
+
+    public int getCurrentTerm() {
+        return currentTerm;
+    }
+
+    public int getLastControllerId() {
+        return lastControllerId;
+    }
+
+    public int getLastControllerTerm() {
+        return lastControllerTerm;
+    }
+
+    public ElectionMetrics getElectionMetrics() {
+        return electionMetrics;
     }
 }
@@ -0,0 +1,114 @@
+package org.ss.govern.server.node.master;
+
+import org.ss.govern.core.constants.NodeRequestType;
+import org.ss.govern.server.node.slot.SlotAllocation;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * controller的租约
+ * controller定期向其他master节点发送租约续期消息，节点在租约超时时间内没有收到续期即认为controller失效
+ * 任期低于当前租约的续期消息会被忽略，避免旧controller恢复后覆盖新controller；
+ * 同一任期只有一个controller，相同任期内其他controller的续期也会被忽略
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class ControllerLease {
+
+    /**
+     * 租约消息长度：类型 + controllerId + 任期
+     */
+    private static final int MESSAGE_SIZE = 4 + 4 + 4;
+
+    private int controllerId = SlotAllocation.UNKNOWN_CONTROLLER;
+
+    private int term;
+
+    private long lastRenewNanos = System.nanoTime();
+
+    /**
+     * 收到租约续期
+     *
+     * @return 任期过期或者同一任期已经属于其他controller被忽略时返回false
+     */
+    public synchronized boolean renew(int controllerId, int term) {
+        if (term < this.term) {
+            return false;
+        }
+        if (term == this.term && this.controllerId != SlotAllocation.UNKNOWN_CONTROLLER
+                && this.controllerId != controllerId) {
+            return false;
+        }
+        this.controllerId = controllerId;
+        this.term = term;
+        this.lastRenewNanos = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * controller自己续期，只有仍然在指定任期持有租约时才续期，
+     * 避免检查之后收到新controller的租约，旧controller又以新的任期占用租约
+     *
+     * @return 租约已经属于其他controller或者任期已经变化时返回false
+     */
+    public synchronized boolean renewIfOwner(int controllerId, int expectedTerm) {
+        if (this.controllerId != controllerId || this.term != expectedTerm) {
+            return false;
+        }
+        this.lastRenewNanos = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * 只重新开始计时，不改变租约的controller和任期
+     */
+    public synchronized void resetTimer() {
+        this.lastRenewNanos = System.nanoTime();
+    }
+
+    /**
+     * 租约是否已经超时
+     */
+    public synchronized boolean isExpired(long leaseTimeoutMs) {
+        return System.nanoTime() - lastRenewNanos > TimeUnit.MILLISECONDS.toNanos(leaseTimeoutMs);
+    }
+
+    /**
+     * 指定时间之后是否收到过已知controller的续期
+     *
+     * @param sinceNanos System.nanoTime()的取值
+     */
+    public synchronized boolean isRenewedSince(long sinceNanos) {
+        return controllerId != SlotAllocation.UNKNOWN_CONTROLLER && lastRenewNanos - sinceNanos > 0;
+    }
+
+    public synchronized int getControllerId() {
+        return controllerId;
+    }
+
+    public synchronized int getTerm() {
+        return term;
+    }
+
+    /**
+     * 编码租约续期消息
+     */
+    public static ByteBuffer toRequestByteBuffer(int controllerId, int term) {
+        ByteBuffer message = ByteBuffer.allocate(MESSAGE_SIZE);
+        message.putInt(NodeRequestType.CONTROLLER_LEASE);
+        message.putInt(controllerId);
+        message.putInt(term);
+        message.flip();
+        return message;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ControllerLease{" +
+                "controllerId=" + controllerId +
+                ", term=" + term +
+                '}';
+    }
+}
@@ -0,0 +1,213 @@
+package org.ss.govern.server.node.master;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.ss.govern.core.constants.MasterNodeRole;
+import org.ss.govern.server.config.GovernServerConfig;
+import org.ss.govern.server.node.NetworkManager;
+import org.ss.govern.server.node.NodeManager;
+import org.ss.govern.server.node.NodeStatus;
+import org.ss.govern.server.node.SlotsManager;
+import org.ss.govern.server.node.slot.SlotAllocation;
+import org.ss.govern.utils.ThreadUtils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * controller租约管理线程
+ * 本节点是controller时定期向其他master节点续期租约，向重新连接的master节点补发槽位分配，
+ * 并在存活的master节点变化时重新均衡槽位：新连接的节点立即分到槽位，断开的节点超过租约超时时间仍未恢复才让出槽位；
+ * 否则检查租约是否超时，超时后controller候选节点重新选举，新的controller以之前的槽位分配为基础按存活的节点重新均衡
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class ControllerLeaseManager extends Thread {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ControllerLeaseManager.class);
+
+    private NetworkManager networkManager;
+
+    private NodeManager nodeManager;
+
+    private SlotsManager slotsManager;
+
+    private ControllerLease controllerLease;
+
+    /**
+     * 本节点不是controller候选节点时为null
+     */
+    private ControllerCandidate controllerCandidate;
+
+    private GovernServerConfig config;
+
+    private NodeStatus nodeStatus;
+
+    private Integer selfId;
+
+    private Controller controller;
+
+    /**
+     * 已经补发过当前槽位分配的连接，key nodeId，value 连接id
+     * 远程节点重新连接后连接id变化，需要再次补发
+     */
+    private final Map<Integer, Long> slotsSyncedConnections = new HashMap<>();
+
+    /**
+     * slotsSyncedConnections对应的槽位分配epoch
+     */
+    private long slotsSyncedEpoch = SlotAllocation.NO_EPOCH;
+
+    /**
+     * 断开连接的master节点及断开的时间，key nodeId
+     */
+    private final Map<Integer, Long> disconnectedSince = new HashMap<>();
+
+    /**
+     * 上一次检查重新均衡时存活的master节点和槽位分配epoch，都没有变化时不用再检查
+     */
+    private Set<Integer> checkedLiveNodeIds = Collections.emptySet();
+
+    private long checkedSlotsEpoch = SlotAllocation.NO_EPOCH;
+
+    public ControllerLeaseManager(NetworkManager networkManager, NodeManager nodeManager,
+                                  SlotsManager slotsManager, ControllerLease controllerLease,
+                                  ControllerCandidate controllerCandidate) {
+        super("controller-lease-manager");
+        setDaemon(true);
+        this.networkManager = networkManager;
+        this.nodeManager = nodeManager;
+        this.slotsManager = slotsManager;
+        this.controllerLease = controllerLease;
+        this.controllerCandidate = controllerCandidate;
+        this.config = networkManager.getContext().getConfig();
+        this.nodeStatus = networkManager.getContext().getStatus();
+        this.selfId = config.getNodeId();
+        this.controller = new Controller(nodeManager, networkManager);
+    }
+
+    @Override
+    public void run() {
+        LOG.info("start controller lease manager, " + controllerLease);
+        while (nodeStatus.isRunning()) {
+            try {
+                if (controllerLease.getControllerId() == selfId) {
+                    renewLease();
+                } else if (controllerLease.isExpired(config.getLeaseTimeoutMs())) {
+                    onLeaseExpired();
+                }
+            } catch (InterruptedException e) {
+                LOG.error("controller lease manager is interrupted", e);
+                return;
+            } catch (Exception e) {
+                LOG.error("controller lease manager error", e);
+            }
+            ThreadUtils.sleep(config.getLeaseRenewIntervalMs());
+        }
+    }
+
+    /**
+     * 向所有远程master节点续期租约，所有节点共用同一份编码后的消息
+     */
+    private void renewLease() {
+        int term = controllerLease.getTerm();
+        if (!controllerLease.renewIfOwner(selfId, term)) {
+            //检查之后收到了新controller的租约
+            LOG.info("controller lease is taken over, " + controllerLease);
+            return;
+        }
+        ByteBuffer message = ControllerLease.toRequestByteBuffer(selfId, term);
+        SlotAllocation allocation = slotsManager.getCurrentAllocation();
+        if (allocation != null && allocation.getEpoch() != slotsSyncedEpoch) {
+            //分配时发送期间可能有节点重新连接，每个连接都补发一次，重复的分配会被接收方忽略
+            slotsSyncedEpoch = allocation.getEpoch();
+            slotsSyncedConnections.clear();
+        }
+        long now = System.currentTimeMillis();
+        List<MasterNodePeer> liveMasterNodePeers = new ArrayList<>();
+        for (MasterNodePeer masterNodePeer : nodeManager.getAllRemoteMasterNodes()) {
+            Integer nodeId = masterNodePeer.getNodeId();
+            long connectionId = networkManager.getConnectionId(nodeId);
+            if (connectionId < 0) {
+                //短暂断开的节点很快会重新连接，超过租约超时时间仍未恢复才认为已经离开
+                Long since = disconnectedSince.putIfAbsent(nodeId, now);
+                if (since == null || now - since < config.getLeaseTimeoutMs()) {
+                    liveMasterNodePeers.add(masterNodePeer);
+                }
+                continue;
+            }
+            disconnectedSince.remove(nodeId);
+            liveMasterNodePeers.add(masterNodePeer);
+            networkManager.sendMessage(nodeId, message.duplicate());
+            Long syncedConnectionId = slotsSyncedConnections.put(nodeId, connectionId);
+            if (allocation != null && (syncedConnectionId == null || syncedConnectionId != connectionId)) {
+                controller.resendSlotsAllocation(allocation, masterNodePeer);
+            }
+        }
+        if (allocation != null) {
+            rebalanceOnMembershipChange(allocation, liveMasterNodePeers);
+        }
+    }
+
+    /**
+     * 存活的master节点或者槽位分配变化时按存活的节点重新均衡槽位
+     */
+    private void rebalanceOnMembershipChange(SlotAllocation allocation, List<MasterNodePeer> liveMasterNodePeers) {
+        Set<Integer> liveNodeIds = new HashSet<>();
+        for (MasterNodePeer masterNodePeer : liveMasterNodePeers) {
+            liveNodeIds.add(masterNodePeer.getNodeId());
+        }
+        if (liveNodeIds.equals(checkedLiveNodeIds) && allocation.getEpoch() == checkedSlotsEpoch) {
+            return;
+        }
+        SlotAllocation rebalanced = controller.rebalanceLiveSlots(allocation, liveMasterNodePeers);
+        if (rebalanced != null) {
+            slotsManager.updateSlotsAllocation(rebalanced);
+            allocation = rebalanced;
+        }
+        checkedLiveNodeIds = liveNodeIds;
+        checkedSlotsEpoch = allocation.getEpoch();
+    }
+
+    private void onLeaseExpired() throws InterruptedException {
+        int expiredControllerId = controllerLease.getControllerId();
+        LOG.warn("lease of controller " + expiredControllerId + " expired, term " + controllerLease.getTerm());
+        if (controllerCandidate == null) {
+            //非候选节点只等待新controller的租约
+            controllerLease.resetTimer();
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        controllerCandidate.observeTerm(controllerLease.getTerm());
+        MasterNodeRole role = controllerCandidate.voteForControllerElection();
+        //选举被停止时沿用当前租约的任期，否则更高的任期会让controller之后的续期都被忽略
+        int term = controllerCandidate.getLastControllerTerm();
+        int controllerId = controllerCandidate.getLastControllerId();
+        if (MasterNodeRole.CONTROLLER.equals(role)) {
+            //租约超时说明之前的controller已经失效，只在当前连接正常的节点之间重新均衡
+            List<MasterNodePeer> liveMasterNodePeers = new ArrayList<>();
+            for (MasterNodePeer masterNodePeer : nodeManager.getAllRemoteMasterNodes()) {
+                if (networkManager.isConnected(masterNodePeer.getNodeId())) {
+                    liveMasterNodePeers.add(masterNodePeer);
+                } else {
+                    //已经让出槽位的节点不再等待，重新连接后才分回槽位
+                    disconnectedSince.put(masterNodePeer.getNodeId(), 0L);
+                }
+            }
+            SlotAllocation allocation = controller.takeOverSlots(slotsManager.getCurrentAllocation(),
+                    liveMasterNodePeers);
+            slotsManager.updateSlotsAllocation(allocation);
+        }
+        controllerLease.renew(controllerId, term);
+        LOG.info("controller failover finished in " + (System.currentTimeMillis() - startTime)
+                + " ms, controller " + expiredControllerId + " -> " + controllerId + ", term " + term);
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.ss.govern.server.node.master;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * controller选举的统计
+ * 选举耗时即从开始投票到选出controller的时间，用来验证故障切换的耗时
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class ElectionMetrics {
+
+    private final AtomicLong elections = new AtomicLong();
+
+    private final AtomicLong lastLatencyMillis = new AtomicLong();
+
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+
+    /**
+     * 最近一次选举经历的任期数，正常情况下为1
+     */
+    private final AtomicLong lastTerms = new AtomicLong();
+
+    public void recordElection(long latencyMillis, int terms) {
+        elections.incrementAndGet();
+        lastLatencyMillis.set(latencyMillis);
+        totalLatencyMillis.addAndGet(latencyMillis);
+        maxLatencyMillis.accumulateAndGet(latencyMillis, Math::max);
+        lastTerms.set(terms);
+    }
+
+    public long getElections() {
+        return elections.get();
+    }
+
+    public long getLastLatencyMillis() {
+        return lastLatencyMillis.get();
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis.get();
+    }
+
+    public double getAverageLatencyMillis() {
+        long count = elections.get();
+        return count == 0 ? 0 : (double) totalLatencyMillis.get() / count;
+    }
+
+    public long getLastTerms() {
+        return lastTerms.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ElectionMetrics{" +
+                "elections=" + elections +
+                ", lastLatencyMillis=" + lastLatencyMillis +
+                ", maxLatencyMillis=" + maxLatencyMillis +
+                ", averageLatencyMillis=" + String.format("%.2f", getAverageLatencyMillis()) +
+                ", lastTerms=" + lastTerms +
+                '}';
+    }
+
+}
@@ -6,8 +6,13 @@ import org.ss.govern.core.constants.MasterNodeRole;
 import org.ss.govern.server.config.GovernServerConfig;
 import org.ss.govern.server.node.MessageReceiver;
 import org.ss.govern.server.node.NetworkManager;
+import org.ss.govern.server.node.NodeContext;
 import org.ss.govern.server.node.NodeManager;
+import org.ss.govern.server.node.NodeStatus;
 import org.ss.govern.server.node.SlotsManager;
+import org.ss.govern.server.node.heartbeat.HeartbeatManager;
+import org.ss.govern.server.node.rpc.RpcManager;
+import org.ss.govern.server.node.slot.SlotAllocation;
 
 /**
  * @author wangsz
@@ -17,6 +22,8 @@ public class MasterNode {
 
     private static final Logger LOG = LoggerFactory.getLogger(MasterNode.class);
 
+    private NodeContext context;
+
     private NetworkManager networkManager;
 
     private NodeManager nodeManager;
@@ -27,42 +34,107 @@ public class MasterNode {
 
     private GovernServerConfig serverConfig;
 
-    public MasterNode() {
-        this.nodeManager = new NodeManager();
-        this.networkManager = new NetworkManager(nodeManager);
-        this.serverConfig = GovernServerConfig.getInstance();
+    private StartupTimings startupTimings;
+
+    private RpcManager rpcManager;
+
+    public MasterNode(NodeContext context) {
+        this.context = context;
+        this.nodeManager = new NodeManager(context);
+        this.networkManager = new NetworkManager(context, nodeManager);
+        this.serverConfig = context.getConfig();
         this.messageReceiver = new MessageReceiver(networkManager);
-        this.slotsManager = new SlotsManager(messageReceiver);
+        this.slotsManager = new SlotsManager(messageReceiver, networkManager);
+        this.rpcManager = new RpcManager(networkManager, messageReceiver.getDispatcher());
     }
 
     public void start() throws InterruptedException {
+        startupTimings = new StartupTimings();
         //启动消息接收器
         messageReceiver.start();
+        //向已连接的节点发送心跳并检测节点失效
+        new HeartbeatManager(networkManager, nodeManager).start();
         //等待id大于自己的节点来连接
         networkManager.waitOtherMasterNodesConnect();
         //连接id小于自己的master节点
         networkManager.connectOtherMasterNodes();
-        //等待所有数节点启动
+        startupTimings.mark("start");
+        //等待大多数节点启动
         networkManager.waitAllNodesConnected();
-        //选举controller
-        Boolean isController = false;
-        Boolean isControllerCandidate = serverConfig.getIsControllerCandidate();
-        if (isControllerCandidate) {
-            ControllerCandidate controllerCandidate = new ControllerCandidate(networkManager, nodeManager, messageReceiver);
-            MasterNodeRole role = controllerCandidate.voteForControllerElection();
-            LOG.info("vote finish, Current NodeRole is " + role);
-            if (MasterNodeRole.CONTROLLER.equals(role)) {
-                Controller controller = new Controller(nodeManager, networkManager);
-                controller.allocateSlots();
-                isController = true;
-            }
+        startupTimings.mark("connect");
+        ControllerCandidate controllerCandidate = null;
+        if (serverConfig.getIsControllerCandidate()) {
+            controllerCandidate = new ControllerCandidate(networkManager, nodeManager, messageReceiver);
         }
-        //等待接收分配的槽位数据
-        if(!isController) {
-            slotsManager.waitForSlotsAllocation();
+        //本地持久化的槽位分配与其他节点一致时直接使用，无需重新选举
+        int runningControllerId = slotsManager.findRunningController(nodeManager.getAllRemoteMasterNodes());
+        if (slotsManager.recoverPersistedSlotsAllocation(nodeManager.getAllRemoteMasterNodes(),
+                nodeManager.getMasterNumInCluster())) {
+            LOG.info("skip controller election, current controller is " + slotsManager.getControllerId());
+        } else if (runningControllerId != SlotAllocation.UNKNOWN_CONTROLLER
+                && slotsManager.waitForSlotsAllocation(serverConfig.getLeaseTimeoutMs())) {
+            //重启后加入正在运行的集群，由当前的controller重新发送槽位分配
+            LOG.info("join running cluster, current controller is " + slotsManager.getControllerId());
+        } else {
+            //选举controller
+            Boolean isController = false;
+            if (controllerCandidate != null) {
+                MasterNodeRole role = controllerCandidate.voteForControllerElection();
+                LOG.info("vote finish, Current NodeRole is " + role);
+                //选举结束后的slots阶段只包含槽位分配的计算和传播
+                startupTimings.mark("election");
+                if (MasterNodeRole.CONTROLLER.equals(role)) {
+                    Controller controller = new Controller(nodeManager, networkManager);
+                    SlotAllocation slotsAllocation = controller.allocateSlots();
+                    slotsManager.updateSlotsAllocation(slotsAllocation);
+                    isController = true;
+                }
+            }
+            //等待接收分配的槽位数据
+            if(!isController) {
+                slotsManager.waitForSlotsAllocation();
+            }
         }
+        startupTimings.mark("slots");
+        //接收之后controller重新发送的槽位分配
+        slotsManager.startSlotsAllocationListener();
+        //controller续期租约，其他节点监控租约并在超时后重新选举
+        int term = controllerCandidate == null ? 0 : controllerCandidate.getLastControllerTerm();
+        ControllerLease controllerLease = messageReceiver.getControllerLease();
+        controllerLease.renew(slotsManager.getControllerId(), term);
+        new ControllerLeaseManager(networkManager, nodeManager, slotsManager,
+                controllerLease, controllerCandidate).start();
         //启动线程监听slave节点发起的连接请求
         networkManager.waitSlaveNodeConnect();
+        startupTimings.mark("listen");
+        LOG.info("master node started, " + startupTimings);
+    }
+
+    /**
+     * 停止节点，同一个JVM内模拟节点下线时使用
+     */
+    public void shutdown() {
+        context.getStatus().setStatus(NodeStatus.SHUTDOWN);
+        networkManager.shutdown();
+        //唤醒阻塞在接收队列上的接收线程，线程退出时关闭消息分发器
+        messageReceiver.interrupt();
+        LOG.info("master node " + serverConfig.getNodeId() + " shutdown");
+    }
+
+    public NetworkManager getNetworkManager() {
+        return networkManager;
+    }
+
+    public SlotsManager getSlotsManager() {
+        return slotsManager;
+    }
+
+    public RpcManager getRpcManager() {
+        return rpcManager;
+    }
+
+    public StartupTimings getStartupTimings() {
+        return startupTimings;
     }
 
 }
@@ -2,6 +2,7 @@ package org.ss.govern.server.node.master;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.ss.govern.server.node.slot.SlotAllocation;
 
 /**
  * @author wangsz
@@ -20,6 +21,18 @@ public class MasterNodePeer {
     @Setter
     @Getter
     private Boolean isControllerCandidate;
+    /**
+     * 握手时节点报告的本地槽位分配epoch
+     */
+    @Setter
+    @Getter
+    private long slotsEpoch = SlotAllocation.NO_EPOCH;
+    /**
+     * 握手时节点报告的本地槽位分配对应的controller
+     */
+    @Setter
+    @Getter
+    private int slotsControllerId = SlotAllocation.UNKNOWN_CONTROLLER;
 
     public MasterNodePeer(Integer nodeId, Boolean isControllerCandidate) {
         this.nodeId = nodeId;
@@ -3,9 +3,9 @@ package org.ss.govern.server.node.master;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.ss.govern.server.node.AbstractConnectionListener;
-import org.ss.govern.server.node.NetworkManager;
+import org.ss.govern.server.node.NodeContext;
 import org.ss.govern.server.node.NodeAddress;
-import org.ss.govern.server.node.NodeStatus;
+import org.ss.govern.server.node.network.NioTransport;
 
 import java.net.Socket;
 
@@ -19,32 +19,26 @@ public class SlaveConnectionListener extends AbstractConnectionListener {
 
     private final Logger LOG = LoggerFactory.getLogger(MasterConnectionListener.class);
 
-    private NetworkManager networkManager;
+    private NioTransport transport;
 
-    public SlaveConnectionListener(NetworkManager networkManager) {
-        super(networkManager);
-        this.networkManager = networkManager;
-        init();
+    public SlaveConnectionListener(NioTransport transport, NodeContext context, NodeAddress self) {
+        super(context);
+        this.transport = transport;
+        init(self);
     }
 
-    private void init() {
-        NodeAddress self = networkManager.getSelf();
+    private void init(NodeAddress self) {
         if (self != null) {
             bindPort = self.getSlaveConnectPort();
         } else {
-            NodeStatus nodeStatus = NodeStatus.getInstance();
-            nodeStatus.setStatus(NodeStatus.FATAL);
+            context.getStatus().fatal();
         }
     }
 
     @Override
     protected void doAccept(Socket client) {
-        //初次建立连接，启动针对slave的读写线程
-        Integer remoteNodeId = networkManager.receiveSlaveConnection(client);
-        LOG.info("accept slave node id : " + remoteNodeId);
-        if (remoteNodeId != null) {
-            networkManager.startSlaveSocketIOThreads(remoteNodeId, client);
-        }
+        //握手交给事件循环异步完成，之后由事件循环处理和slave的读写，这里只负责accept
+        transport.acceptSlaveConnection(client);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package org.ss.govern.server.node.master;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 记录master节点启动各阶段的耗时
+ * 每次调用mark记录从上一个阶段结束到现在的耗时
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class StartupTimings {
+
+    private final long startTime = System.currentTimeMillis();
+
+    private long lastMarkTime = startTime;
+
+    /**
+     * key 阶段名称 value 耗时ms，按阶段顺序排列
+     */
+    private final Map<String, Long> phaseMillis = new LinkedHashMap<>();
+
+    public synchronized void mark(String phase) {
+        long now = System.currentTimeMillis();
+        phaseMillis.put(phase, now - lastMarkTime);
+        lastMarkTime = now;
+    }
+
+    public synchronized long getPhaseMillis(String phase) {
+        Long millis = phaseMillis.get(phase);
+        return millis == null ? -1 : millis;
+    }
+
+    public synchronized long getTotalMillis() {
+        return lastMarkTime - startTime;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("StartupTimings{");
+        for (Map.Entry<String, Long> entry : phaseMillis.entrySet()) {
+            builder.append(entry.getKey()).append('=').append(entry.getValue()).append("ms, ");
+        }
+        return builder.append("total=").append(getTotalMillis()).append("ms}").toString();
+    }
+
+}
@@ -11,70 +11,61 @@ import java.nio.ByteBuffer;
  **/
 public class Vote {
 
+    /**
+     * 选票消息长度：类型 + 投票人id + 候选人id + 任期
+     */
+    public static final int MESSAGE_SIZE = 16;
+
     /**
      * 投票人id
      * */
-    private Integer voterId;
+    private final int voterId;
 
     /**
      * 候选人id
      * */
-    private Integer candidateId;
+    private final int candidateId;
 
     /**
-     * 投票轮次
+     * 投票所在的任期
      * */
-    private Integer voteRound;
+    private final int term;
 
-    public Vote(Integer voterId, Integer candidateId, Integer voteRound) {
+    public Vote(int voterId, int candidateId, int term) {
         this.voterId = voterId;
         this.candidateId = candidateId;
-        this.voteRound = voteRound;
+        this.term = term;
     }
 
     public Vote(ByteBuffer message) {
         this.voterId = message.getInt();
         this.candidateId = message.getInt();
-        this.voteRound = message.getInt();
-    }
-
-    public void nextRound() {
-        voteRound++;
+        this.term = message.getInt();
     }
 
+    /**
+     * 编码为选票消息，同一张选票发给多个节点时共用该消息，每个节点发送duplicate()即可
+     */
     public ByteBuffer toRequestByteBuffer() {
-        byte[] bytes = new byte[16];
-        ByteBuffer msgByteBuffer = ByteBuffer.wrap(bytes);
-        msgByteBuffer.clear();
+        ByteBuffer msgByteBuffer = ByteBuffer.allocate(MESSAGE_SIZE);
         msgByteBuffer.putInt(NodeRequestType.VOTE);
         msgByteBuffer.putInt(voterId);
         msgByteBuffer.putInt(candidateId);
-        msgByteBuffer.putInt(voteRound);
+        msgByteBuffer.putInt(term);
+        msgByteBuffer.flip();
         return msgByteBuffer;
     }
 
-    public Integer getVoterId() {
+    public int getVoterId() {
         return voterId;
     }
 
-    public void setVoterId(Integer voterId) {
-        this.voterId = voterId;
-    }
-
-    public Integer getCandidateId() {
+    public int getCandidateId() {
         return candidateId;
     }
 
-    public void setCandidateId(Integer candidateId) {
-        this.candidateId = candidateId;
-    }
-
-    public Integer getVoteRound() {
-        return voteRound;
-    }
-
-    public void setVoteRound(Integer voteRound) {
-        this.voteRound = voteRound;
+    public int getTerm() {
+        return term;
     }
 
     @Override
@@ -82,7 +73,7 @@ public class Vote {
         return "Vote{" +
                 "voterId=" + voterId +
                 ", candidateId=" + candidateId +
-                ", voteRound=" + voteRound +
+                ", term=" + term +
                 '}';
     }
 }
@@ -0,0 +1,207 @@
+package org.ss.govern.server.node.master;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 选票箱，保存每个投票人最新任期的选票
+ * 投票人集合在创建时确定，每个投票人的选票打包为一个long（高32位任期，低32位候选人id），
+ * 接收选票、等待新选票和计票都不分配对象
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class VoteBox {
+
+    /**
+     * 没有候选人获得足够的选票
+     */
+    public static final int NO_WINNER = -1;
+
+    /**
+     * 所有投票人的id，升序
+     */
+    private final int[] voterIds;
+
+    /**
+     * 下标与voterIds对应，0表示还没有投票
+     */
+    private final AtomicLongArray votes;
+
+    private final Object monitor = new Object();
+
+    /**
+     * 每收到一张有效选票加1，用来等待新选票
+     */
+    private long version;
+
+    /**
+     * 低于该任期的选票直接丢弃
+     */
+    private volatile int minTerm;
+
+    private final AtomicLong staleVotes = new AtomicLong();
+
+    public VoteBox(Collection<Integer> voterIds) {
+        this.voterIds = new int[voterIds.size()];
+        int i = 0;
+        for (Integer voterId : voterIds) {
+            this.voterIds[i++] = voterId;
+        }
+        Arrays.sort(this.voterIds);
+        this.votes = new AtomicLongArray(this.voterIds.length);
+    }
+
+    /**
+     * 放入一张选票，同一投票人只保留任期最新的选票
+     *
+     * @return 投票人未知或者选票任期过期时返回false
+     */
+    public boolean offer(int voterId, int candidateId, int term) {
+        int index = Arrays.binarySearch(voterIds, voterId);
+        if (index < 0) {
+            return false;
+        }
+        if (term < minTerm) {
+            staleVotes.incrementAndGet();
+            return false;
+        }
+        long vote = pack(term, candidateId);
+        while (true) {
+            long current = votes.get(index);
+            if (current != 0 && termOf(current) > term) {
+                staleVotes.incrementAndGet();
+                return false;
+            }
+            if (votes.compareAndSet(index, current, vote)) {
+                break;
+            }
+        }
+        synchronized (monitor) {
+            version++;
+            monitor.notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * 当前的版本号，配合awaitChange等待新选票
+     */
+    public long version() {
+        synchronized (monitor) {
+            return version;
+        }
+    }
+
+    /**
+     * 等待版本号变化或者超时
+     *
+     * @return 最新的版本号
+     */
+    public long awaitChange(long seenVersion, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (monitor) {
+            while (version == seenVersion) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                monitor.wait(remaining);
+            }
+            return version;
+        }
+    }
+
+    /**
+     * 进入新的任期，之后低于该任期的选票直接丢弃
+     */
+    public void advanceTerm(int term) {
+        if (term > minTerm) {
+            minTerm = term;
+        }
+    }
+
+    /**
+     * 选票箱中出现过的最高任期
+     */
+    public int highestTerm() {
+        int highest = 0;
+        for (int i = 0; i < voterIds.length; i++) {
+            long vote = votes.get(i);
+            if (vote != 0 && termOf(vote) > highest) {
+                highest = termOf(vote);
+            }
+        }
+        return highest;
+    }
+
+    /**
+     * 计票，返回在该任期获得quorum张选票的候选人
+     *
+     * @return 没有候选人获得足够的选票时返回NO_WINNER
+     */
+    public int tally(int term, int quorum) {
+        for (int i = 0; i < voterIds.length; i++) {
+            long vote = votes.get(i);
+            if (vote == 0 || termOf(vote) != term) {
+                continue;
+            }
+            int candidateId = candidateOf(vote);
+            int count = 1;
+            for (int j = i + 1; j < voterIds.length; j++) {
+                long other = votes.get(j);
+                if (other != 0 && termOf(other) == term && candidateOf(other) == candidateId) {
+                    count++;
+                }
+            }
+            if (count >= quorum) {
+                return candidateId;
+            }
+        }
+        return NO_WINNER;
+    }
+
+    /**
+     * 投票人是否在该任期投过票
+     */
+    public boolean hasVoted(int voterId, int term) {
+        int index = Arrays.binarySearch(voterIds, voterId);
+        if (index < 0) {
+            return false;
+        }
+        long vote = votes.get(index);
+        return vote != 0 && termOf(vote) == term;
+    }
+
+    public long getStaleVotes() {
+        return staleVotes.get();
+    }
+
+    private static long pack(int term, int candidateId) {
+        return ((long) term << 32) | (candidateId & 0xFFFFFFFFL);
+    }
+
+    private static int termOf(long vote) {
+        return (int) (vote >>> 32);
+    }
+
+    private static int candidateOf(long vote) {
+        return (int) vote;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("VoteBox{");
+        for (int i = 0; i < voterIds.length; i++) {
+            long vote = votes.get(i);
+            if (vote != 0) {
+                builder.append(voterIds[i]).append("->").append(candidateOf(vote))
+                        .append("@").append(termOf(vote)).append(' ');
+            }
+        }
+        return builder.append('}').toString();
+    }
+
+}
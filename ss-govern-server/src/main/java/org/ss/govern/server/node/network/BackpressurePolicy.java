@@ -0,0 +1,24 @@
+package org.ss.govern.server.node.network;
+
+/**
+ * 发送队列已满时的处理策略
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public enum BackpressurePolicy {
+
+    /**
+     * 阻塞发送方，直到队列有空位
+     */
+    BLOCK,
+    /**
+     * 立即失败，sendMessage返回false
+     */
+    FAIL_FAST;
+
+    public static BackpressurePolicy parse(String policy) {
+        return BackpressurePolicy.valueOf(policy.trim().toUpperCase());
+    }
+
+}
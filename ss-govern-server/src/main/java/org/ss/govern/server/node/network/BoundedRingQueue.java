@@ -0,0 +1,210 @@
+package org.ss.govern.server.node.network;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 有界无锁环形队列
+ * 基于数组和每个槽位的序号实现，入队出队都只有CAS操作，不会为每个元素分配节点
+ * 用于多个生产者一个消费者的场景，poll本身也是线程安全的，生产者可以用来丢弃最老的元素；
+ * 迭代器是弱一致的快照，只能删除队头元素（removeHead），不支持删除任意位置的元素
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class BoundedRingQueue<E> extends AbstractQueue<E> {
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> elements;
+
+    /**
+     * 每个槽位的序号，用来判断槽位当前可以写入还是可以读取
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * 下一个写入位置
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个读取位置
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * 阻塞在take上的消费者线程
+     */
+    private volatile Thread waiter;
+
+    public BoundedRingQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.elements = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 入队，队列已满时返回false
+     */
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+        elements.lazySet(index, e);
+        sequences.lazySet(index, position + 1);
+        Thread consumer = waiter;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * 出队，队列为空时返回null
+     */
+    @Override
+    public E poll() {
+        long position = head.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+        return take(index, position);
+    }
+
+    /**
+     * 仅当队头元素就是expected时将其出队
+     */
+    public boolean removeHead(E expected) {
+        long position = head.get();
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1 || elements.get(index) != expected) {
+            return false;
+        }
+        if (!head.compareAndSet(position, position + 1)) {
+            return false;
+        }
+        take(index, position);
+        return true;
+    }
+
+    private E take(int index, long position) {
+        E e = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.lazySet(index, position + capacity);
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        long position = head.get();
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        return elements.get(index);
+    }
+
+    /**
+     * 阻塞式出队，只允许唯一的消费者线程调用
+     */
+    public E take() throws InterruptedException {
+        E e;
+        while ((e = poll()) == null) {
+            waiter = Thread.currentThread();
+            //设置等待线程后再检查一次，避免错过生产者的唤醒
+            e = poll();
+            if (e != null) {
+                waiter = null;
+                return e;
+            }
+            LockSupport.park(this);
+            waiter = null;
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return e;
+    }
+
+    @Override
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 弱一致的快照迭代器，用于toString、contains等诊断操作：
+     * 创建时复制 [head, tail) 之间还在队列中的元素，之后的入队出队不影响迭代，不支持通过迭代器删除元素
+     */
+    @Override
+    public Iterator<E> iterator() {
+        long end = tail.get();
+        long start = Math.max(head.get(), end - capacity);
+        List<E> snapshot = new ArrayList<>((int) Math.max(0, end - start));
+        for (long position = start; position < end; position++) {
+            int index = (int) (position & mask);
+            E e = elements.get(index);
+            //读取元素之后序号没有变化，说明元素既没有被取走也没有被新的元素覆盖
+            if (e != null && sequences.get(index) == position + 1) {
+                snapshot.add(e);
+            }
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+}
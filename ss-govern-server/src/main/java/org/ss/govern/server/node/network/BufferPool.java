@@ -0,0 +1,174 @@
+package org.ss.govern.server.node.network;
+
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按大小分级的接收缓冲区池
+ * 读取消息时从池中借出缓冲区，消息处理完后由消费者归还，避免每条消息分配一个新数组
+ * 缓冲区容量按2的幂分级，超过最大分级的消息直接分配，归还时丢弃；
+ * 只接收本池借出且还没有归还的缓冲区，调用方自己分配的、共享的或者重复归还的缓冲区都直接丢弃，
+ * 避免同一个缓冲区同时交给两个读取方
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class BufferPool {
+
+    /**
+     * 最小的缓冲区容量
+     */
+    private static final int MIN_BUFFER_SIZE = 64;
+
+    /**
+     * 池化的最大缓冲区容量，更大的消息不做池化
+     */
+    private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 每个分级最多缓存的缓冲区数量
+     */
+    private static final int MAX_BUFFERS_PER_CLASS = 256;
+
+    /**
+     * 允许的最大消息长度
+     */
+    private final int maxFrameSize;
+
+    /**
+     * 是否使用堆外内存
+     */
+    private final boolean direct;
+
+    /**
+     * 每个分级空闲的缓冲区，下标i对应容量为 MIN_BUFFER_SIZE << i
+     */
+    private final ArrayBlockingQueue<ByteBuffer>[] freeBuffers;
+
+    private final AtomicLong allocated = new AtomicLong();
+
+    private final AtomicLong reused = new AtomicLong();
+
+    /**
+     * 本池分配的可池化缓冲区，按对象身份区分，value表示是否已经借出
+     * ByteBuffer的equals比较的是内容，不能用普通的HashMap
+     */
+    private final Map<ByteBuffer, Boolean> issuedBuffers = new IdentityHashMap<>();
+
+    /**
+     * 被拒绝归还的缓冲区数量，不是本池借出的或者重复归还
+     */
+    private final AtomicLong rejectedReleases = new AtomicLong();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BufferPool(int maxFrameSize, boolean direct) {
+        this.maxFrameSize = maxFrameSize;
+        this.direct = direct;
+        int classCount = sizeClassIndex(MAX_POOLED_BUFFER_SIZE) + 1;
+        this.freeBuffers = new ArrayBlockingQueue[classCount];
+        for (int i = 0; i < classCount; i++) {
+            freeBuffers[i] = new ArrayBlockingQueue<>(MAX_BUFFERS_PER_CLASS);
+        }
+    }
+
+    /**
+     * 检查消息长度是否合法
+     */
+    public boolean isValidFrameSize(int frameSize) {
+        return frameSize >= 0 && frameSize <= maxFrameSize;
+    }
+
+    /**
+     * 借出一个缓冲区，position为0，limit为size
+     */
+    public ByteBuffer acquire(int size) {
+        if (!isValidFrameSize(size)) {
+            throw new IllegalArgumentException("frame size " + size + " exceeds max frame size " + maxFrameSize);
+        }
+        ByteBuffer buffer = null;
+        if (size <= MAX_POOLED_BUFFER_SIZE) {
+            int index = sizeClassIndex(size);
+            buffer = freeBuffers[index].poll();
+            if (buffer == null) {
+                buffer = allocate(MIN_BUFFER_SIZE << index);
+            } else {
+                reused.incrementAndGet();
+            }
+            synchronized (issuedBuffers) {
+                issuedBuffers.put(buffer, Boolean.TRUE);
+            }
+        } else {
+            buffer = allocate(size);
+        }
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * 归还缓冲区，不是由池借出的或者已经归还过的缓冲区直接丢弃
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() > MAX_POOLED_BUFFER_SIZE) {
+            return;
+        }
+        synchronized (issuedBuffers) {
+            if (!Boolean.TRUE.equals(issuedBuffers.get(buffer))) {
+                rejectedReleases.incrementAndGet();
+                return;
+            }
+            issuedBuffers.put(buffer, Boolean.FALSE);
+        }
+        if (!freeBuffers[sizeClassIndex(buffer.capacity())].offer(buffer)) {
+            //空闲缓冲区已满，不再池化，交给GC回收
+            synchronized (issuedBuffers) {
+                issuedBuffers.remove(buffer);
+            }
+        }
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        allocated.incrementAndGet();
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * 容纳size字节的最小分级
+     */
+    private static int sizeClassIndex(int size) {
+        if (size <= MIN_BUFFER_SIZE) {
+            return 0;
+        }
+        int capacity = Integer.highestOneBit(size - 1) << 1;
+        return Integer.numberOfTrailingZeros(capacity) - Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+    }
+
+    public int getMaxFrameSize() {
+        return maxFrameSize;
+    }
+
+    /**
+     * 新分配的缓冲区数量
+     */
+    public long getAllocated() {
+        return allocated.get();
+    }
+
+    /**
+     * 从池中复用的缓冲区数量
+     */
+    public long getReused() {
+        return reused.get();
+    }
+
+    /**
+     * 被拒绝归还的缓冲区数量
+     */
+    public long getRejectedReleases() {
+        return rejectedReleases.get();
+    }
+
+}
@@ -0,0 +1,27 @@
+package org.ss.govern.server.node.network;
+
+/**
+ * 注册在事件循环上的channel的事件处理器，作为SelectionKey的attachment
+ * 所有方法都只在事件循环线程内调用
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public interface ChannelHandler {
+
+    void onReadable();
+
+    void onWritable();
+
+    /**
+     * TCP连接已经建立，只有主动发起连接的处理器会关注OP_CONNECT
+     */
+    default void onConnectable() {
+    }
+
+    /**
+     * 关闭channel并清理资源
+     */
+    void finish();
+
+}
@@ -0,0 +1,54 @@
+package org.ss.govern.server.node.network;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+
+/**
+ * 与一个远程节点之间已经完成握手的连接，由Transport创建
+ * 接收到的消息放入创建连接时指定的接收队列，心跳和连接关闭通过TransportHandler回调
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public interface Connection {
+
+    /**
+     * slave节点不知道自己master节点的id，和master之间连接的远程节点id
+     */
+    Integer UNKNOWN_NODE_ID = -1;
+
+    /**
+     * 连接的唯一id，远程节点重新连接后id会变化
+     */
+    long getConnectionId();
+
+    Integer getRemoteNodeId();
+
+    /**
+     * 发送一条消息，消息体为buffer中position到limit之间的数据，调用后不能再修改message
+     *
+     * @return 发送队列已满且按背压策略拒绝，或者连接正在关闭时返回false
+     */
+    boolean send(ByteBuffer message) throws InterruptedException;
+
+    boolean isOpen();
+
+    ConnectionState getState();
+
+    /**
+     * 优雅关闭：不再接收新的发送请求，已经接收的消息发送完后关闭连接
+     */
+    void close();
+
+    /**
+     * 立即关闭连接，丢弃还未发送的消息，可以在任意线程调用
+     */
+    void abort();
+
+    Queue<ByteBuffer> getQueueRecv();
+
+    SendQueue getSendQueue(SendLane lane);
+
+    ConnectionMetrics getMetrics();
+
+}
@@ -0,0 +1,106 @@
+package org.ss.govern.server.node.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个连接的读写统计
+ * 发送的消息数和写系统调用次数之比即为合并写出的效果
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class ConnectionMetrics {
+
+    private final AtomicLong framesSent = new AtomicLong();
+
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    /**
+     * 合并写出的批次数
+     */
+    private final AtomicLong writeBatches = new AtomicLong();
+
+    /**
+     * 写系统调用次数，socket缓冲区满时一个批次需要多次写出
+     */
+    private final AtomicLong writeCalls = new AtomicLong();
+
+    /**
+     * 从控制通道发送的消息数
+     */
+    private final AtomicLong controlFramesSent = new AtomicLong();
+
+    private final AtomicLong framesReceived = new AtomicLong();
+
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    public void recordWriteCall(long bytes) {
+        writeCalls.incrementAndGet();
+        bytesSent.addAndGet(bytes);
+    }
+
+    public void recordBatch(int frames) {
+        writeBatches.incrementAndGet();
+        framesSent.addAndGet(frames);
+    }
+
+    public void recordControlFrames(int frames) {
+        controlFramesSent.addAndGet(frames);
+    }
+
+    public void recordFrameReceived(int bytes) {
+        framesReceived.incrementAndGet();
+        bytesReceived.addAndGet(bytes);
+    }
+
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getWriteBatches() {
+        return writeBatches.get();
+    }
+
+    public long getWriteCalls() {
+        return writeCalls.get();
+    }
+
+    public long getControlFramesSent() {
+        return controlFramesSent.get();
+    }
+
+    public long getFramesReceived() {
+        return framesReceived.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /**
+     * 平均每次写系统调用发送的消息数
+     */
+    public double getBatchingRatio() {
+        long calls = writeCalls.get();
+        return calls == 0 ? 0 : (double) framesSent.get() / calls;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionMetrics{" +
+                "framesSent=" + framesSent +
+                ", controlFramesSent=" + controlFramesSent +
+                ", bytesSent=" + bytesSent +
+                ", writeBatches=" + writeBatches +
+                ", writeCalls=" + writeCalls +
+                ", batchingRatio=" + String.format("%.2f", getBatchingRatio()) +
+                ", framesReceived=" + framesReceived +
+                ", bytesReceived=" + bytesReceived +
+                '}';
+    }
+
+}
@@ -0,0 +1,32 @@
+package org.ss.govern.server.node.network;
+
+/**
+ * 连接的生命周期状态
+ * CONNECTING -> ACTIVE -> DRAINING -> CLOSED，任何状态出现IO错误都直接进入CLOSED
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public enum ConnectionState {
+
+    /**
+     * 已创建，还未注册到事件循环
+     */
+    CONNECTING,
+
+    /**
+     * 正常读写
+     */
+    ACTIVE,
+
+    /**
+     * 不再接收新的发送请求，写完发送队列中剩余的消息后关闭
+     */
+    DRAINING,
+
+    /**
+     * 已关闭，连接的资源已经清理
+     */
+    CLOSED
+
+}
@@ -0,0 +1,48 @@
+package org.ss.govern.server.node.network;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 带随机抖动的指数退避
+ * 每次失败后等待时间翻倍直到上限，实际等待时间在 [delay/2, delay] 之间随机，
+ * 避免多个节点在同一时刻重试
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class ExponentialBackoff {
+
+    private final long initialDelayMillis;
+
+    private final long maxDelayMillis;
+
+    private int attempts;
+
+    public ExponentialBackoff(long initialDelayMillis, long maxDelayMillis) {
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = Math.max(initialDelayMillis, maxDelayMillis);
+    }
+
+    /**
+     * 下一次重试前的等待时间
+     */
+    public synchronized long nextDelayMillis() {
+        long delay = initialDelayMillis;
+        for (int i = 0; i < attempts && delay < maxDelayMillis; i++) {
+            delay <<= 1;
+        }
+        delay = Math.min(delay, maxDelayMillis);
+        attempts++;
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+
+    public synchronized void reset() {
+        attempts = 0;
+    }
+
+    public synchronized int getAttempts() {
+        return attempts;
+    }
+
+}
@@ -0,0 +1,121 @@
+package org.ss.govern.server.node.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+/**
+ * 待写出的一批消息
+ * 把发送队列里积压的多条消息合并成一次gathering write，避免每条消息一次系统调用
+ * 每条消息写出为 4字节长度 + 消息体
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class FrameBatch {
+
+    private static final int LENGTH_FIELD_SIZE = 4;
+
+    /**
+     * 一批最多合并的消息条数
+     */
+    private final int maxFrames;
+
+    /**
+     * 一批最多合并的字节数，单条消息超过该值时单独成为一批
+     */
+    private final int maxBytes;
+
+    /**
+     * 每条消息长度字段的缓冲区，预先分配复用
+     */
+    private final ByteBuffer[] lengthBuffers;
+
+    /**
+     * 长度字段和消息体交替排列，作为gathering write的参数
+     */
+    private final ByteBuffer[] buffers;
+
+    private int frameCount;
+
+    private long byteCount;
+
+    /**
+     * 第一个还没有完全写出的缓冲区下标
+     */
+    private int offset;
+
+    public FrameBatch(int maxFrames, int maxBytes) {
+        this.maxFrames = maxFrames;
+        this.maxBytes = maxBytes;
+        this.lengthBuffers = new ByteBuffer[maxFrames];
+        for (int i = 0; i < maxFrames; i++) {
+            lengthBuffers[i] = ByteBuffer.allocate(LENGTH_FIELD_SIZE);
+        }
+        this.buffers = new ByteBuffer[maxFrames * 2];
+    }
+
+    /**
+     * 是否还能放入这条消息
+     */
+    public boolean hasRoom(ByteBuffer message) {
+        if (frameCount == 0) {
+            return true;
+        }
+        return frameCount < maxFrames
+                && byteCount + LENGTH_FIELD_SIZE + message.remaining() <= maxBytes;
+    }
+
+    public void add(ByteBuffer message) {
+        ByteBuffer lengthBuffer = lengthBuffers[frameCount];
+        lengthBuffer.clear();
+        lengthBuffer.putInt(message.remaining());
+        lengthBuffer.flip();
+        buffers[frameCount * 2] = lengthBuffer;
+        buffers[frameCount * 2 + 1] = message;
+        byteCount += LENGTH_FIELD_SIZE + message.remaining();
+        frameCount++;
+    }
+
+    /**
+     * 写出这一批消息，非阻塞channel可能只写出一部分
+     *
+     * @return 写出的字节数
+     */
+    public long writeTo(GatheringByteChannel channel) throws IOException {
+        long written = channel.write(buffers, offset, frameCount * 2 - offset);
+        while (offset < frameCount * 2 && !buffers[offset].hasRemaining()) {
+            offset++;
+        }
+        return written;
+    }
+
+    /**
+     * 这一批消息是否已经全部写出
+     */
+    public boolean isFlushed() {
+        return offset == frameCount * 2;
+    }
+
+    public boolean isEmpty() {
+        return frameCount == 0;
+    }
+
+    public int frameCount() {
+        return frameCount;
+    }
+
+    public long byteCount() {
+        return byteCount;
+    }
+
+    public void clear() {
+        for (int i = 0; i < frameCount * 2; i++) {
+            buffers[i] = null;
+        }
+        frameCount = 0;
+        byteCount = 0;
+        offset = 0;
+    }
+
+}
@@ -0,0 +1,184 @@
+package org.ss.govern.server.node.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在事件循环上以非阻塞方式完成接收连接后的握手
+ * 读取固定长度的握手请求，按需写回应答，超时未完成则关闭连接，接收连接的线程只负责accept
+ * 握手完成后channel仍然注册在同一个事件循环上，由NioConnection接管后续读写
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class HandshakeHandler implements ChannelHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HandshakeHandler.class);
+
+    /**
+     * 握手各阶段的回调，都在事件循环线程内调用
+     */
+    public interface Listener {
+
+        /**
+         * 读取到完整的握手请求
+         *
+         * @return 需要回复的数据，不需要回复时返回null
+         * @throws IOException 握手请求不合法，关闭连接
+         */
+        ByteBuffer onRequest(ByteBuffer request) throws IOException;
+
+        /**
+         * 握手完成，可以把channel交给NioConnection
+         */
+        void onComplete();
+
+        /**
+         * 握手失败或超时，channel已经关闭
+         */
+        void onFailure(IOException cause);
+    }
+
+    private final SocketChannel channel;
+
+    private final NioEventLoop eventLoop;
+
+    private final ByteBuffer request;
+
+    private final Listener listener;
+
+    private final HandshakeMetrics metrics;
+
+    private final long startNanos = System.nanoTime();
+
+    private SelectionKey selectionKey;
+
+    private ByteBuffer response;
+
+    private TimerWheel.Timeout timeout;
+
+    /**
+     * 握手是否已经结束，只在事件循环线程内访问
+     */
+    private boolean done = false;
+
+    public HandshakeHandler(SocketChannel channel, NioEventLoop eventLoop, int requestSize,
+                            HandshakeMetrics metrics, Listener listener) {
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.request = ByteBuffer.allocate(requestSize);
+        this.metrics = metrics;
+        this.listener = listener;
+    }
+
+    /**
+     * 开始握手，可以在任意线程调用
+     */
+    public void start(TimerWheel timer, long timeoutMillis) {
+        metrics.recordAccepted();
+        timeout = timer.newTimeout(() -> eventLoop.execute(() -> fail(
+                new SocketTimeoutException("handshake timed out after " + timeoutMillis + " ms"))), timeoutMillis);
+        eventLoop.execute(() -> {
+            if (done) {
+                return;
+            }
+            try {
+                channel.configureBlocking(false);
+                selectionKey = channel.register(eventLoop.selector(), SelectionKey.OP_READ, this);
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+    }
+
+    public NioEventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    @Override
+    public void onReadable() {
+        if (done) {
+            return;
+        }
+        try {
+            //请求缓冲区的长度和握手请求一致，不会读走握手之后的消息
+            if (channel.read(request) < 0) {
+                throw new EOFException("remote closed the connection during handshake");
+            }
+            if (request.hasRemaining()) {
+                return;
+            }
+            request.flip();
+            response = listener.onRequest(request);
+            selectionKey.interestOps(0);
+            if (response == null) {
+                complete();
+            } else {
+                writeResponse();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onWritable() {
+        if (done) {
+            return;
+        }
+        try {
+            writeResponse();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void writeResponse() throws IOException {
+        channel.write(response);
+        if (response.hasRemaining()) {
+            selectionKey.interestOps(SelectionKey.OP_WRITE);
+            return;
+        }
+        complete();
+    }
+
+    private void complete() {
+        done = true;
+        timeout.cancel();
+        selectionKey.interestOps(0);
+        metrics.recordCompleted(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        listener.onComplete();
+    }
+
+    private void fail(IOException cause) {
+        if (done) {
+            return;
+        }
+        done = true;
+        timeout.cancel();
+        if (selectionKey != null) {
+            selectionKey.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.error("close channel after handshake failure error", e);
+        }
+        metrics.recordFailed(cause instanceof SocketTimeoutException);
+        listener.onFailure(cause);
+    }
+
+    @Override
+    public void finish() {
+        fail(new EOFException("event loop closed during handshake"));
+    }
+
+}
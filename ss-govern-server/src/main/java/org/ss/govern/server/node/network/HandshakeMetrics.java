@@ -0,0 +1,98 @@
+package org.ss.govern.server.node.network;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 接收连接后握手的统计
+ * pending为已经accept但还未完成握手的连接数，即接收队列的深度
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class HandshakeMetrics {
+
+    private final AtomicLong accepted = new AtomicLong();
+
+    private final AtomicLong completed = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong timedOut = new AtomicLong();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicInteger maxPending = new AtomicInteger();
+
+    private final AtomicLong totalLatencyMicros = new AtomicLong();
+
+    private final AtomicLong maxLatencyMicros = new AtomicLong();
+
+    public void recordAccepted() {
+        accepted.incrementAndGet();
+        maxPending.accumulateAndGet(pending.incrementAndGet(), Math::max);
+    }
+
+    public void recordCompleted(long latencyMicros) {
+        pending.decrementAndGet();
+        completed.incrementAndGet();
+        totalLatencyMicros.addAndGet(latencyMicros);
+        maxLatencyMicros.accumulateAndGet(latencyMicros, Math::max);
+    }
+
+    public void recordFailed(boolean timeout) {
+        pending.decrementAndGet();
+        failed.incrementAndGet();
+        if (timeout) {
+            timedOut.incrementAndGet();
+        }
+    }
+
+    public long getAccepted() {
+        return accepted.get();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getTimedOut() {
+        return timedOut.get();
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    public int getMaxPending() {
+        return maxPending.get();
+    }
+
+    public long getMaxLatencyMicros() {
+        return maxLatencyMicros.get();
+    }
+
+    public double getAverageLatencyMicros() {
+        long count = completed.get();
+        return count == 0 ? 0 : (double) totalLatencyMicros.get() / count;
+    }
+
+    @Override
+    public String toString() {
+        return "HandshakeMetrics{" +
+                "accepted=" + accepted +
+                ", completed=" + completed +
+                ", failed=" + failed +
+                ", timedOut=" + timedOut +
+                ", pending=" + pending +
+                ", maxPending=" + maxPending +
+                ", averageLatencyMicros=" + String.format("%.2f", getAverageLatencyMicros()) +
+                ", maxLatencyMicros=" + maxLatencyMicros +
+                '}';
+    }
+
+}
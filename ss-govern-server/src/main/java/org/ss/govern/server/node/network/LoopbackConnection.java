@@ -0,0 +1,340 @@
+package org.ss.govern.server.node.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.ss.govern.server.node.heartbeat.Heartbeat;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * LoopbackTransport连接的一端
+ * 和NioConnection一样，发送的消息先按请求类型放入控制或批量通道的SendQueue，队列满时按配置的背压策略处理；
+ * 投递时先取控制通道的消息，把消息复制到对方缓冲区池的缓冲区后直接放入对方的接收队列，没有IO线程
+ * 对方接收队列满时暂停投递，已经复制的消息留在本端，由LoopbackTransport的后台线程重试，
+ * 期间新消息在SendQueue中积压，相当于TCP把压力传回发送方
+ * 一端关闭时另一端随之关闭，和TCP连接读到EOF一样通知各自的TransportHandler
+ * 和NioConnection的区别：每条消息单独投递，没有合并写出；投递在发送线程内完成，没有系统调用的开销
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class LoopbackConnection implements Connection {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoopbackConnection.class);
+
+    private static final AtomicLong CONNECTION_ID_GENERATOR = new AtomicLong();
+
+    private final long connectionId = CONNECTION_ID_GENERATOR.incrementAndGet();
+
+    private final Integer remoteNodeId;
+
+    /**
+     * 对方发送的消息放入的队列
+     */
+    private final Queue<ByteBuffer> queueRecv;
+
+    private final LoopbackTransport transport;
+
+    private final TransportHandler handler;
+
+    private final BufferPool bufferPool;
+
+    /**
+     * 控制消息的发送队列，优先投递
+     */
+    private final SendQueue controlQueueSend;
+
+    /**
+     * 批量数据的发送队列
+     */
+    private final SendQueue queueSend;
+
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+
+    private final AtomicReference<ConnectionState> state = new AtomicReference<>(ConnectionState.CONNECTING);
+
+    /**
+     * 同一时间只有一个线程投递，保证消息按发送顺序到达对方
+     */
+    private final ReentrantLock deliveryLock = new ReentrantLock();
+
+    /**
+     * 已经复制到对方缓冲区、但对方接收队列已满还未放入的消息，只在持有deliveryLock时访问
+     */
+    private ByteBuffer pendingDelivery;
+
+    private volatile boolean deliveryStalled = false;
+
+    private volatile LoopbackConnection peer;
+
+    LoopbackConnection(Integer remoteNodeId, Queue<ByteBuffer> queueRecv, LoopbackTransport transport) {
+        this.remoteNodeId = remoteNodeId;
+        this.queueRecv = queueRecv;
+        this.transport = transport;
+        this.handler = transport.getHandler();
+        this.bufferPool = handler.getBufferPool();
+        this.controlQueueSend = transport.newControlSendQueue();
+        this.queueSend = transport.newSendQueue();
+    }
+
+    /**
+     * 连接两端，之后双方都可以发送消息
+     */
+    static void pair(LoopbackConnection first, LoopbackConnection second) {
+        first.peer = second;
+        second.peer = first;
+        first.activate();
+        second.activate();
+    }
+
+    private void activate() {
+        state.compareAndSet(ConnectionState.CONNECTING, ConnectionState.ACTIVE);
+        transport.register(this);
+    }
+
+    /**
+     * 发送一条消息，按请求类型放入对应通道的发送队列后尝试投递
+     *
+     * @return 发送队列已满且按背压策略拒绝，或者连接正在关闭时返回false
+     */
+    @Override
+    public boolean send(ByteBuffer message) throws InterruptedException {
+        if (!isOpen() || !getSendQueue(SendLane.of(message)).offer(message)) {
+            return false;
+        }
+        flush();
+        return true;
+    }
+
+    /**
+     * 尽可能多地投递发送队列里的消息
+     * 其他线程正在投递时直接返回，由该线程在释放锁后检查到新消息继续投递
+     */
+    private void flush() {
+        while (deliveryLock.tryLock()) {
+            try {
+                deliverQueuedMessages();
+            } finally {
+                deliveryLock.unlock();
+            }
+            if (deliveryStalled || !hasQueuedMessages()) {
+                if (state.get() == ConnectionState.DRAINING && !deliveryStalled && !hasQueuedMessages()) {
+                    finish();
+                }
+                return;
+            }
+        }
+    }
+
+    private boolean hasQueuedMessages() {
+        return !controlQueueSend.isEmpty() || !queueSend.isEmpty();
+    }
+
+    /**
+     * 先投递暂停时留下的消息，再依次取控制通道和批量通道的消息，对方接收队列满时暂停
+     */
+    private void deliverQueuedMessages() {
+        if (pendingDelivery != null) {
+            if (!peer.offerRecv(pendingDelivery)) {
+                return;
+            }
+            pendingDelivery = null;
+            deliveryStalled = false;
+        }
+        while (state.get() != ConnectionState.CLOSED) {
+            boolean control = true;
+            ByteBuffer message = controlQueueSend.poll();
+            if (message == null) {
+                control = false;
+                message = queueSend.poll();
+            }
+            if (message == null) {
+                return;
+            }
+            int messageLength = message.remaining();
+            ByteBuffer received = peer.receive(message.duplicate());
+            metrics.recordWriteCall(messageLength);
+            metrics.recordBatch(1);
+            if (control) {
+                metrics.recordControlFrames(1);
+            }
+            if (received != null && !peer.offerRecv(received)) {
+                pendingDelivery = received;
+                deliveryStalled = true;
+                transport.stall(this);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 重试暂停时留下的消息，由LoopbackTransport的后台线程调用
+     *
+     * @return 是否已经恢复投递
+     */
+    boolean resumeDelivery() {
+        if (state.get() == ConnectionState.CLOSED) {
+            return true;
+        }
+        if (!deliveryLock.tryLock()) {
+            return false;
+        }
+        try {
+            deliverQueuedMessages();
+        } finally {
+            deliveryLock.unlock();
+        }
+        if (deliveryStalled) {
+            return false;
+        }
+        //暂停期间积压的消息由其他发送线程或者下面的flush继续投递
+        flush();
+        return !deliveryStalled;
+    }
+
+    /**
+     * 把对方发送的消息复制到本端的缓冲区，心跳直接回调
+     *
+     * @return 需要放入接收队列的消息，心跳、长度非法或者本端已经关闭时返回null
+     */
+    private ByteBuffer receive(ByteBuffer message) {
+        if (!isOpen()) {
+            return null;
+        }
+        int messageLength = message.remaining();
+        if (!bufferPool.isValidFrameSize(messageLength)) {
+            //和TCP连接一样，消息长度非法时关闭连接
+            LOG.error("invalid frame size " + messageLength + " from remote node " + remoteNodeId
+                    + ", max frame size is " + bufferPool.getMaxFrameSize());
+            finish();
+            return null;
+        }
+        ByteBuffer received = bufferPool.acquire(messageLength);
+        received.put(message);
+        received.flip();
+        metrics.recordFrameReceived(messageLength);
+        if (Heartbeat.isHeartbeat(received)) {
+            //心跳不进入接收队列，接收队列积压时也能及时更新故障检测器
+            handler.onHeartbeat(remoteNodeId);
+            bufferPool.release(received);
+            return null;
+        }
+        return received;
+    }
+
+    /**
+     * 放入本端的接收队列，本端已经关闭时丢弃消息
+     *
+     * @return 接收队列已满时返回false
+     */
+    private boolean offerRecv(ByteBuffer received) {
+        if (!isOpen()) {
+            bufferPool.release(received);
+            return true;
+        }
+        return queueRecv.offer(received);
+    }
+
+    /**
+     * 优雅关闭：不再接收新的发送请求，投递完发送队列中剩余的消息后关闭连接
+     */
+    @Override
+    public void close() {
+        if (!state.compareAndSet(ConnectionState.ACTIVE, ConnectionState.DRAINING)
+                && !state.compareAndSet(ConnectionState.CONNECTING, ConnectionState.DRAINING)) {
+            return;
+        }
+        controlQueueSend.close();
+        queueSend.close();
+        LOG.info("draining loopback connection of remote node " + remoteNodeId + ", "
+                + (controlQueueSend.size() + queueSend.size()) + " messages left");
+        flush();
+        if (!deliveryStalled && !hasQueuedMessages()) {
+            finish();
+        }
+    }
+
+    /**
+     * 立即关闭连接，丢弃发送队列中剩余的消息
+     */
+    @Override
+    public void abort() {
+        finish();
+    }
+
+    private void finish() {
+        if (state.getAndSet(ConnectionState.CLOSED) == ConnectionState.CLOSED) {
+            return;
+        }
+        controlQueueSend.close();
+        queueSend.close();
+        transport.remove(this);
+        LOG.info("loopback connection of remote node " + remoteNodeId + " closed, " + metrics
+                + ", control " + controlQueueSend + ", bulk " + queueSend);
+        handler.onConnectionClosed(this);
+        LoopbackConnection remote = peer;
+        if (remote != null) {
+            remote.finish();
+        }
+        releasePendingDelivery(remote);
+    }
+
+    /**
+     * 暂停时留下的消息使用的是对方缓冲区池的缓冲区，归还给对方
+     */
+    private void releasePendingDelivery(LoopbackConnection remote) {
+        if (!deliveryLock.tryLock()) {
+            //其他线程正在投递，它留下的缓冲区不再归还，由GC回收
+            return;
+        }
+        try {
+            if (pendingDelivery != null && remote != null) {
+                remote.bufferPool.release(pendingDelivery);
+            }
+            pendingDelivery = null;
+        } finally {
+            deliveryLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        ConnectionState current = state.get();
+        return current == ConnectionState.CONNECTING || current == ConnectionState.ACTIVE;
+    }
+
+    @Override
+    public long getConnectionId() {
+        return connectionId;
+    }
+
+    @Override
+    public Integer getRemoteNodeId() {
+        return remoteNodeId;
+    }
+
+    @Override
+    public ConnectionState getState() {
+        return state.get();
+    }
+
+    @Override
+    public Queue<ByteBuffer> getQueueRecv() {
+        return queueRecv;
+    }
+
+    @Override
+    public SendQueue getSendQueue(SendLane lane) {
+        return lane == SendLane.CONTROL ? controlQueueSend : queueSend;
+    }
+
+    @Override
+    public ConnectionMetrics getMetrics() {
+        return metrics;
+    }
+
+}
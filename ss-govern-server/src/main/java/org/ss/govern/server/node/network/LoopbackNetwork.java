@@ -0,0 +1,66 @@
+package org.ss.govern.server.node.network;
+
+import org.ss.govern.server.node.NodeContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 同一个JVM内的节点共用的内存网络，代替操作系统的TCP端口
+ * 节点按配置中的地址和端口注册监听，其他节点按地址和端口找到对方后直接交换消息，
+ * 用来在一个JVM内运行多个master和slave节点，精确测量选举耗时和消息吞吐量
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class LoopbackNetwork implements TransportFactory {
+
+    /**
+     * 监听master连接的节点
+     * key ip:port
+     */
+    private final Map<String, LoopbackTransport> masterListeners = new ConcurrentHashMap<>();
+
+    /**
+     * 监听slave连接的节点
+     * key ip:port
+     */
+    private final Map<String, LoopbackTransport> slaveListeners = new ConcurrentHashMap<>();
+
+    @Override
+    public Transport create(NodeContext context, TransportHandler handler) {
+        return new LoopbackTransport(this, context, handler);
+    }
+
+    /**
+     * @return 端口已经被其他节点监听时返回false
+     */
+    boolean bindMaster(String ip, int port, LoopbackTransport transport) {
+        return masterListeners.putIfAbsent(address(ip, port), transport) == null;
+    }
+
+    boolean bindSlave(String ip, int port, LoopbackTransport transport) {
+        return slaveListeners.putIfAbsent(address(ip, port), transport) == null;
+    }
+
+    LoopbackTransport lookupMaster(String ip, int port) {
+        return masterListeners.get(address(ip, port));
+    }
+
+    LoopbackTransport lookupSlave(String ip, int port) {
+        return slaveListeners.get(address(ip, port));
+    }
+
+    /**
+     * 释放节点监听的所有端口
+     */
+    void unbind(LoopbackTransport transport) {
+        masterListeners.values().remove(transport);
+        slaveListeners.values().remove(transport);
+    }
+
+    private static String address(String ip, int port) {
+        return ip + ":" + port;
+    }
+
+}
@@ -0,0 +1,252 @@
+package org.ss.govern.server.node.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.ss.govern.server.node.NodeAddress;
+import org.ss.govern.server.node.NodeContext;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 基于LoopbackNetwork的Transport，连接的两端都在同一个JVM内
+ * 握手信息仍然按TCP握手的格式编解码，保证两种Transport下节点看到的信息一致；
+ * 发起连接的线程同步完成双方的握手，没有监听线程和事件循环线程，
+ * 只有对方接收队列满时才由后台线程重试投递，相当于事件循环重试暂停读取的连接
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class LoopbackTransport implements Transport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LoopbackTransport.class);
+
+    /**
+     * 存在暂停投递的连接时，重试投递的间隔
+     */
+    private static final long STALL_RETRY_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * 没有暂停投递的连接时，重试线程等待的时间，有新的暂停时会被提前唤醒
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final LoopbackNetwork network;
+
+    private final NodeContext context;
+
+    private final TransportHandler handler;
+
+    /**
+     * master节点的回调，slave节点为null
+     */
+    private final MasterTransportHandler masterHandler;
+
+    private final HandshakeMetrics handshakeMetrics = new HandshakeMetrics();
+
+    /**
+     * 本节点一端的所有连接，关闭节点时一起关闭
+     */
+    private final Set<LoopbackConnection> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 因对方接收队列满而暂停投递的连接
+     */
+    private final Set<LoopbackConnection> stalledConnections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 重试暂停投递的连接的线程，第一次出现暂停时启动
+     */
+    private volatile Thread retryThread;
+
+    public LoopbackTransport(LoopbackNetwork network, NodeContext context, TransportHandler handler) {
+        this.network = network;
+        this.context = context;
+        this.handler = handler;
+        this.masterHandler = handler instanceof MasterTransportHandler ? (MasterTransportHandler) handler : null;
+    }
+
+    /**
+     * 只有master节点可以接收连接和发起master之间的连接，和NioTransport一致
+     */
+    private void requireMasterHandler() {
+        if (masterHandler == null) {
+            throw new IllegalStateException("transport of slave node " + context.getConfig().getNodeId()
+                    + " only connects to its master node");
+        }
+    }
+
+    @Override
+    public void listenMasterConnections(NodeAddress self) {
+        requireMasterHandler();
+        if (!network.bindMaster(self.getIp(), self.getMasterConnectPort(), this)) {
+            LOG.error("loopback port " + self.getMasterConnectPort() + " is already in use");
+            context.getStatus().fatal();
+        }
+    }
+
+    @Override
+    public void listenSlaveConnections(NodeAddress self) {
+        requireMasterHandler();
+        if (!network.bindSlave(self.getIp(), self.getSlaveConnectPort(), this)) {
+            LOG.error("loopback port " + self.getSlaveConnectPort() + " is already in use");
+            context.getStatus().fatal();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> connectMaster(NodeAddress target) {
+        requireMasterHandler();
+        if (!context.isRunning()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        LoopbackTransport remote = network.lookupMaster(target.getIp(), target.getMasterConnectPort());
+        if (remote == null || !remote.context.isRunning()) {
+            LOG.warn("connect with master node " + target.getIp() + ":" + target.getMasterConnectPort()
+                    + " fail, connection refused");
+            return CompletableFuture.completedFuture(false);
+        }
+        long startNanos = System.nanoTime();
+        Integer remoteNodeId = target.getNodeId();
+        MasterHandshake request = MasterHandshake.decodeRequest(handler.getLocalHandshake().encodeRequest());
+        MasterHandshake response = MasterHandshake.decodeResponse(remoteNodeId,
+                remote.handler.getLocalHandshake().encodeResponse());
+        LoopbackConnection local = new LoopbackConnection(remoteNodeId,
+                handler.newRecvQueue(remoteNodeId, false), this);
+        LoopbackConnection accepted = new LoopbackConnection(request.getNodeId(),
+                remote.handler.newRecvQueue(request.getNodeId(), false), remote);
+        LoopbackConnection.pair(local, accepted);
+        remote.accepted(startNanos);
+        remote.handler.onMasterConnected(request, accepted);
+        if (!local.isOpen()) {
+            //对方已经有同一个id的正常连接，拒绝了这个连接
+            return CompletableFuture.completedFuture(false);
+        }
+        handler.onMasterConnected(response, local);
+        return CompletableFuture.completedFuture(true);
+    }
+
+    @Override
+    public boolean announceMaster(NodeAddress target) {
+        requireMasterHandler();
+        if (!context.isRunning()) {
+            return false;
+        }
+        LoopbackTransport remote = network.lookupMaster(target.getIp(), target.getMasterConnectPort());
+        if (remote == null || !remote.context.isRunning()) {
+            return false;
+        }
+        long startNanos = System.nanoTime();
+        MasterHandshake announce = MasterHandshake.decodeRequest(handler.getLocalHandshake().asAnnounce().encodeRequest());
+        remote.accepted(startNanos);
+        //只有以master的回调创建的Transport才能绑定master端口
+        remote.masterHandler.onMasterAnnounced(announce);
+        return true;
+    }
+
+    @Override
+    public boolean connectMasterAsSlave(String ip, int port) {
+        if (!context.isRunning()) {
+            return false;
+        }
+        LoopbackTransport remote = network.lookupSlave(ip, port);
+        if (remote == null || !remote.context.isRunning()) {
+            LOG.warn("connect with master node " + ip + ":" + port + " fail, connection refused");
+            return false;
+        }
+        long startNanos = System.nanoTime();
+        Integer slaveId = handler.getLocalHandshake().getNodeId();
+        Integer masterNodeId = Connection.UNKNOWN_NODE_ID;
+        LoopbackConnection local = new LoopbackConnection(masterNodeId,
+                handler.newRecvQueue(masterNodeId, false), this);
+        LoopbackConnection accepted = new LoopbackConnection(slaveId,
+                remote.handler.newRecvQueue(slaveId, true), remote);
+        LoopbackConnection.pair(local, accepted);
+        remote.accepted(startNanos);
+        remote.masterHandler.onSlaveConnected(slaveId, accepted);
+        if (!local.isOpen()) {
+            return false;
+        }
+        handler.onMasterConnected(null, local);
+        return true;
+    }
+
+    private void accepted(long startNanos) {
+        handshakeMetrics.recordAccepted();
+        handshakeMetrics.recordCompleted(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+
+    @Override
+    public HandshakeMetrics getHandshakeMetrics() {
+        return handshakeMetrics;
+    }
+
+    /**
+     * 释放监听的端口并关闭所有连接，对方的连接随之关闭，相当于节点进程退出
+     */
+    @Override
+    public void shutdown() {
+        network.unbind(this);
+        for (LoopbackConnection connection : connections) {
+            connection.abort();
+        }
+    }
+
+    TransportHandler getHandler() {
+        return handler;
+    }
+
+    /**
+     * 连接暂停投递，由后台线程定期重试
+     */
+    void stall(LoopbackConnection connection) {
+        stalledConnections.add(connection);
+        Thread thread = retryThread;
+        if (thread == null) {
+            synchronized (this) {
+                if (retryThread == null) {
+                    retryThread = new Thread(this::retryStalledConnections, "loopback-retry");
+                    retryThread.setDaemon(true);
+                    retryThread.start();
+                }
+                thread = retryThread;
+            }
+        }
+        LockSupport.unpark(thread);
+    }
+
+    private void retryStalledConnections() {
+        while (context.isRunning()) {
+            if (stalledConnections.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            stalledConnections.removeIf(LoopbackConnection::resumeDelivery);
+            LockSupport.parkNanos(this, STALL_RETRY_NANOS);
+        }
+    }
+
+    void register(LoopbackConnection connection) {
+        connections.add(connection);
+    }
+
+    void remove(LoopbackConnection connection) {
+        connections.remove(connection);
+        stalledConnections.remove(connection);
+    }
+
+    SendQueue newSendQueue() {
+        return new SendQueue(context.getConfig().getSendQueueCapacity(), context.getConfig().getSendQueuePolicy());
+    }
+
+    /**
+     * 控制队列总是快速失败，和NioTransport一致
+     */
+    SendQueue newControlSendQueue() {
+        return new SendQueue(context.getConfig().getSendQueueCapacity(), BackpressurePolicy.FAIL_FAST);
+    }
+
+}
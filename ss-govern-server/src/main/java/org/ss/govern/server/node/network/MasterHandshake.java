@@ -0,0 +1,120 @@
+package org.ss.govern.server.node.network;
+
+import lombok.Getter;
+import org.ss.govern.server.node.slot.SlotAllocation;
+
+import java.nio.ByteBuffer;
+
+/**
+ * master之间建立连接时交换的握手信息
+ * 发起方发送请求：nodeId(4字节) 标志位(4字节) 槽位epoch(8字节) controllerId(4字节)
+ * 标志位第0位表示是否controller候选，第1位表示这是重启通知而不是正式连接
+ * 接收方回复应答：槽位epoch(8字节) controllerId(4字节)，重启通知没有应答
+ * slave发起连接时只发送nodeId(4字节)，没有应答
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class MasterHandshake {
+
+    public static final int REQUEST_SIZE = 4 + 4 + 8 + 4;
+
+    public static final int RESPONSE_SIZE = 8 + 4;
+
+    public static final int SLAVE_REQUEST_SIZE = 4;
+
+    private static final int FLAG_CONTROLLER_CANDIDATE = 1;
+
+    private static final int FLAG_ANNOUNCE = 1 << 1;
+
+    @Getter
+    private final Integer nodeId;
+
+    @Getter
+    private final boolean controllerCandidate;
+
+    /**
+     * 节点本地持久化的槽位分配epoch
+     */
+    @Getter
+    private final long slotsEpoch;
+
+    /**
+     * 节点本地持久化的槽位分配对应的controller
+     */
+    @Getter
+    private final int slotsControllerId;
+
+    /**
+     * id比对方小的节点重启后发送的通知，对方只据此立即重试重新连接，不保留这个连接
+     */
+    @Getter
+    private final boolean announce;
+
+    public MasterHandshake(Integer nodeId, boolean controllerCandidate, long slotsEpoch, int slotsControllerId) {
+        this(nodeId, controllerCandidate, slotsEpoch, slotsControllerId, false);
+    }
+
+    private MasterHandshake(Integer nodeId, boolean controllerCandidate, long slotsEpoch, int slotsControllerId,
+                            boolean announce) {
+        this.nodeId = nodeId;
+        this.controllerCandidate = controllerCandidate;
+        this.slotsEpoch = slotsEpoch;
+        this.slotsControllerId = slotsControllerId;
+        this.announce = announce;
+    }
+
+    /**
+     * 同样的握手信息作为重启通知发送
+     */
+    public MasterHandshake asAnnounce() {
+        return new MasterHandshake(nodeId, controllerCandidate, slotsEpoch, slotsControllerId, true);
+    }
+
+    /**
+     * slave节点只报告自己的id
+     */
+    public static MasterHandshake ofSlave(Integer nodeId) {
+        return new MasterHandshake(nodeId, false, SlotAllocation.NO_EPOCH, SlotAllocation.UNKNOWN_CONTROLLER);
+    }
+
+    public ByteBuffer encodeRequest() {
+        ByteBuffer request = ByteBuffer.allocate(REQUEST_SIZE);
+        request.putInt(nodeId);
+        request.putInt((controllerCandidate ? FLAG_CONTROLLER_CANDIDATE : 0) | (announce ? FLAG_ANNOUNCE : 0));
+        request.putLong(slotsEpoch);
+        request.putInt(slotsControllerId);
+        request.flip();
+        return request;
+    }
+
+    public static MasterHandshake decodeRequest(ByteBuffer request) {
+        Integer nodeId = request.getInt();
+        int flags = request.getInt();
+        return new MasterHandshake(nodeId, (flags & FLAG_CONTROLLER_CANDIDATE) != 0, request.getLong(),
+                request.getInt(), (flags & FLAG_ANNOUNCE) != 0);
+    }
+
+    public ByteBuffer encodeResponse() {
+        ByteBuffer response = ByteBuffer.allocate(RESPONSE_SIZE);
+        response.putLong(slotsEpoch);
+        response.putInt(slotsControllerId);
+        response.flip();
+        return response;
+    }
+
+    /**
+     * 应答中没有nodeId和是否controller候选，nodeId由发起方补充，对方视为controller候选节点
+     */
+    public static MasterHandshake decodeResponse(Integer nodeId, ByteBuffer response) {
+        return new MasterHandshake(nodeId, true, response.getLong(), response.getInt());
+    }
+
+    public ByteBuffer encodeSlaveRequest() {
+        ByteBuffer request = ByteBuffer.allocate(SLAVE_REQUEST_SIZE);
+        request.putInt(nodeId);
+        request.flip();
+        return request;
+    }
+
+}
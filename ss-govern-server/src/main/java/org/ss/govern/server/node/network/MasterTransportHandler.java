@@ -0,0 +1,29 @@
+package org.ss.govern.server.node.network;
+
+/**
+ * master节点的NetworkManager额外提供的回调
+ * 只有master节点会监听其他节点的连接、收到重启通知和发起需要超时控制的握手，
+ * Transport只在以master的回调创建时才允许这些操作，slave节点不需要实现
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public interface MasterTransportHandler extends TransportHandler {
+
+    /**
+     * id比自己小的master节点重启后发来通知，通知的连接已经由Transport关闭
+     * 本节点如果正在退避等待重新连接对方，可以立即重试
+     */
+    void onMasterAnnounced(MasterHandshake remote);
+
+    /**
+     * slave节点发起的连接握手完成，返回之后连接才开始读写
+     */
+    void onSlaveConnected(Integer slaveId, Connection connection);
+
+    /**
+     * 握手超时等网络定时任务共用的定时器
+     */
+    TimerWheel getTimerWheel();
+
+}
@@ -0,0 +1,438 @@
+package org.ss.govern.server.node.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.ss.govern.server.node.heartbeat.Heartbeat;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 与一个远程节点之间的非阻塞网络连接
+ * 读写都在绑定的事件循环线程内完成，数据格式仍为 4字节长度 + 消息体
+ * 连接出错时只关闭并清理这一个连接，由TransportHandler决定是否重新连接，不影响节点上的其他连接
+ * 发送分为控制和批量两个通道，每次组批时先取控制通道的消息，控制消息最多等待正在写出的一批数据
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class NioConnection implements Connection, ChannelHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NioConnection.class);
+
+    private static final int LENGTH_FIELD_SIZE = 4;
+
+    private static final AtomicLong CONNECTION_ID_GENERATOR = new AtomicLong();
+
+    /**
+     * 连接的唯一id，远程节点重新连接后id会变化
+     */
+    private final long connectionId = CONNECTION_ID_GENERATOR.incrementAndGet();
+
+    private final Integer remoteNodeId;
+
+    private final SocketChannel channel;
+
+    private final SocketAddress remoteAddress;
+
+    private final NioEventLoop eventLoop;
+
+    private final TransportHandler handler;
+
+    /**
+     * 控制消息的发送队列，优先写出
+     */
+    private final SendQueue controlQueueSend;
+
+    /**
+     * 批量数据的发送队列
+     */
+    private final SendQueue queueSend;
+
+    /**
+     * 接收到的数据放入的队列，有界队列满时暂停读取，由TCP把压力传回远程节点
+     */
+    private final Queue<ByteBuffer> queueRecv;
+
+    private SelectionKey selectionKey;
+
+    /**
+     * 读取消息长度的缓冲区
+     */
+    private final ByteBuffer readLengthBuffer = ByteBuffer.allocate(LENGTH_FIELD_SIZE);
+
+    /**
+     * 正在读取的消息体，为null时表示正在读取消息长度
+     */
+    private ByteBuffer readMessageBuffer;
+
+    /**
+     * 接收消息使用的缓冲区池，消息由消费者处理完后归还
+     */
+    private final BufferPool bufferPool;
+
+    /**
+     * 接收队列已满，readMessageBuffer中是读取完成但还未放入接收队列的消息
+     */
+    private boolean recvStalled = false;
+
+    /**
+     * 正在写出的一批消息，由于socket缓冲区满可能只写出了一部分
+     */
+    private final FrameBatch writeBatch;
+
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+
+    /**
+     * 是否已经安排了写操作，避免每次发送消息都向事件循环提交任务
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    private final AtomicReference<ConnectionState> state = new AtomicReference<>(ConnectionState.CONNECTING);
+
+    /**
+     * channel必须已经完成握手并切换为非阻塞模式
+     */
+    public NioConnection(Integer remoteNodeId, SocketChannel channel, NioEventLoop eventLoop,
+                         SendQueue controlQueueSend,
+                         SendQueue queueSend,
+                         Queue<ByteBuffer> queueRecv,
+                         FrameBatch writeBatch,
+                         BufferPool bufferPool,
+                         TransportHandler handler) {
+        this.remoteNodeId = remoteNodeId;
+        this.channel = channel;
+        this.remoteAddress = channel.socket().getRemoteSocketAddress();
+        this.eventLoop = eventLoop;
+        this.controlQueueSend = controlQueueSend;
+        this.queueSend = queueSend;
+        this.queueRecv = queueRecv;
+        this.writeBatch = writeBatch;
+        this.bufferPool = bufferPool;
+        this.handler = handler;
+    }
+
+    /**
+     * 将连接注册到事件循环上，开始读取数据
+     * channel已经由握手注册在同一个事件循环上时，复用原来的SelectionKey
+     */
+    public void register() {
+        eventLoop.execute(() -> {
+            if (state.get() == ConnectionState.CLOSED) {
+                return;
+            }
+            try {
+                selectionKey = channel.register(eventLoop.selector(), SelectionKey.OP_READ, this);
+                state.compareAndSet(ConnectionState.CONNECTING, ConnectionState.ACTIVE);
+                LOG.info("register connection of remote node:" + remoteAddress
+                        + " on " + eventLoop.getName());
+                //注册之前可能已经有消息放入了发送队列
+                flush();
+            } catch (ClosedChannelException e) {
+                LOG.error("register connection of remote node " + remoteNodeId + " error", e);
+                finish();
+            }
+        });
+    }
+
+    /**
+     * 发送一条消息，消息体为buffer中position到limit之间的数据，按请求类型放入对应通道的发送队列
+     *
+     * @return 发送队列已满且按背压策略拒绝，或者连接正在关闭时返回false
+     */
+    @Override
+    public boolean send(ByteBuffer message) throws InterruptedException {
+        if (!isOpen() || !getSendQueue(SendLane.of(message)).offer(message)) {
+            return false;
+        }
+        if (flushScheduled.compareAndSet(false, true)) {
+            eventLoop.execute(this::flush);
+        }
+        return true;
+    }
+
+    @Override
+    public void onReadable() {
+        if (recvStalled) {
+            return;
+        }
+        try {
+            while (true) {
+                if (readMessageBuffer == null) {
+                    if (channel.read(readLengthBuffer) < 0) {
+                        throw new EOFException("remote node " + remoteNodeId + " closed the connection");
+                    }
+                    if (readLengthBuffer.hasRemaining()) {
+                        return;
+                    }
+                    readLengthBuffer.flip();
+                    int messageLength = readLengthBuffer.getInt();
+                    readLengthBuffer.clear();
+                    if (!bufferPool.isValidFrameSize(messageLength)) {
+                        //消息长度非法时无法再正确拆分后续的消息，只能关闭连接
+                        throw new IOException("invalid frame size " + messageLength + " from remote node "
+                                + remoteNodeId + ", max frame size is " + bufferPool.getMaxFrameSize());
+                    }
+                    readMessageBuffer = bufferPool.acquire(messageLength);
+                }
+                if (readMessageBuffer.hasRemaining() && channel.read(readMessageBuffer) < 0) {
+                    throw new EOFException("remote node " + remoteNodeId + " closed the connection");
+                }
+                if (readMessageBuffer.hasRemaining()) {
+                    return;
+                }
+                readMessageBuffer.flip();
+                int messageLength = readMessageBuffer.limit();
+                metrics.recordFrameReceived(messageLength);
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("receive message from node : " + remoteAddress
+                            + ", message size is " + messageLength);
+                }
+                if (Heartbeat.isHeartbeat(readMessageBuffer)) {
+                    //心跳不进入接收队列，接收队列积压时也能及时更新故障检测器
+                    handler.onHeartbeat(remoteNodeId);
+                    bufferPool.release(readMessageBuffer);
+                    readMessageBuffer = null;
+                    continue;
+                }
+                if (!queueRecv.offer(readMessageBuffer)) {
+                    stallReading();
+                    return;
+                }
+                readMessageBuffer = null;
+            }
+        } catch (EOFException e) {
+            //对方正常关闭连接，只关闭这一个连接
+            LOG.info(e.getMessage());
+            finish();
+        } catch (IOException e) {
+            LOG.error("read data from remote node " + remoteNodeId + " error", e);
+            finish();
+        }
+    }
+
+    /**
+     * 接收队列已满，暂停读取直到消费者腾出空位
+     */
+    private void stallReading() {
+        recvStalled = true;
+        setInterest(SelectionKey.OP_READ, false);
+        eventLoop.stall(this);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("receive queue of remote node " + remoteNodeId + " is full, pause reading");
+        }
+    }
+
+    /**
+     * 重新尝试把暂停读取时的消息放入接收队列
+     *
+     * @return 是否已经恢复读取
+     */
+    boolean resumeReading() {
+        if (state.get() == ConnectionState.CLOSED) {
+            return true;
+        }
+        if (!queueRecv.offer(readMessageBuffer)) {
+            return false;
+        }
+        readMessageBuffer = null;
+        recvStalled = false;
+        setInterest(SelectionKey.OP_READ, true);
+        return true;
+    }
+
+    @Override
+    public void onWritable() {
+        flush();
+    }
+
+    /**
+     * 尽可能多地写出发送队列里的消息，socket缓冲区满时注册写事件等待下次可写
+     */
+    private void flush() {
+        if (selectionKey == null) {
+            //还未注册到事件循环，注册完成后会重新flush
+            flushScheduled.set(false);
+            return;
+        }
+        try {
+            do {
+                if (!writeQueuedMessages()) {
+                    setInterest(SelectionKey.OP_WRITE, true);
+                    return;
+                }
+                setInterest(SelectionKey.OP_WRITE, false);
+                flushScheduled.set(false);
+                //清除标记后可能又有新消息放入队列
+            } while (hasQueuedMessages() && flushScheduled.compareAndSet(false, true));
+            if (state.get() == ConnectionState.DRAINING && !hasQueuedMessages()) {
+                finish();
+            }
+        } catch (IOException e) {
+            LOG.error("send data to remote node error", e);
+            finish();
+        }
+    }
+
+    private boolean hasQueuedMessages() {
+        return !controlQueueSend.isEmpty() || !queueSend.isEmpty();
+    }
+
+    /**
+     * 把队列里积压的消息合并成批，每批通过一次gathering write写出
+     * 组批时先取控制通道的消息，批次还有空间时再取批量通道的消息
+     *
+     * @return 队列里的消息是否已经全部写出
+     */
+    private boolean writeQueuedMessages() throws IOException {
+        while (true) {
+            if (writeBatch.isEmpty()) {
+                int controlFrames = fillBatch(controlQueueSend);
+                fillBatch(queueSend);
+                if (writeBatch.isEmpty()) {
+                    return true;
+                }
+                metrics.recordControlFrames(controlFrames);
+            }
+            metrics.recordWriteCall(writeBatch.writeTo(channel));
+            if (!writeBatch.isFlushed()) {
+                return false;
+            }
+            metrics.recordBatch(writeBatch.frameCount());
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("send " + writeBatch.frameCount() + " messages to node :" + remoteAddress
+                        + ", batch size is " + writeBatch.byteCount());
+            }
+            writeBatch.clear();
+        }
+    }
+
+    /**
+     * 从队列中取出消息放入批次，直到队列为空或者批次放不下队头的消息
+     *
+     * @return 放入批次的消息数
+     */
+    private int fillBatch(SendQueue sendQueue) {
+        int frames = 0;
+        ByteBuffer message;
+        while ((message = sendQueue.peek()) != null && writeBatch.hasRoom(message)) {
+            //生产者丢弃旧消息时队头可能已经变化，以实际取出的消息为准
+            ByteBuffer polled = sendQueue.poll();
+            if (polled != null) {
+                writeBatch.add(polled);
+                frames++;
+            }
+        }
+        return frames;
+    }
+
+    private void setInterest(int op, boolean enable) {
+        if (!selectionKey.isValid()) {
+            return;
+        }
+        int interestOps = selectionKey.interestOps();
+        if (enable) {
+            selectionKey.interestOps(interestOps | op);
+        } else if ((interestOps & op) != 0) {
+            selectionKey.interestOps(interestOps & ~op);
+        }
+    }
+
+    /**
+     * 优雅关闭：不再接收新的发送请求，写完发送队列中剩余的消息后关闭连接
+     */
+    @Override
+    public void close() {
+        if (!state.compareAndSet(ConnectionState.ACTIVE, ConnectionState.DRAINING)
+                && !state.compareAndSet(ConnectionState.CONNECTING, ConnectionState.DRAINING)) {
+            return;
+        }
+        controlQueueSend.close();
+        queueSend.close();
+        LOG.info("draining connection of remote node " + remoteNodeId + ", "
+                + (controlQueueSend.size() + queueSend.size()) + " messages left");
+        eventLoop.execute(this::flush);
+    }
+
+    /**
+     * 立即关闭连接，丢弃发送队列中剩余的消息，可以在任意线程调用
+     */
+    @Override
+    public void abort() {
+        eventLoop.execute(this::finish);
+    }
+
+    /**
+     * 关闭连接并清理资源，只在事件循环线程内调用，不需要加锁
+     * 其他线程的close和abort都是提交到事件循环执行，事件循环退出时也是在自己的线程内关闭所有连接；
+     * 读写出错和优雅关闭完成可能先后触发，由state的getAndSet保证只执行一次
+     */
+    @Override
+    public void finish() {
+        if (state.getAndSet(ConnectionState.CLOSED) == ConnectionState.CLOSED) {
+            return;
+        }
+        LOG.debug("Calling finish for " + remoteNodeId);
+        if (selectionKey != null) {
+            selectionKey.cancel();
+        }
+        controlQueueSend.close();
+        queueSend.close();
+        bufferPool.release(readMessageBuffer);
+        readMessageBuffer = null;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.error("Exception while closing", e);
+        }
+        LOG.info("connection of remote node " + remoteNodeId + " closed, " + metrics + ", control "
+                + controlQueueSend + ", bulk " + queueSend);
+        handler.onConnectionClosed(this);
+    }
+
+    @Override
+    public boolean isOpen() {
+        ConnectionState current = state.get();
+        return current == ConnectionState.CONNECTING || current == ConnectionState.ACTIVE;
+    }
+
+    @Override
+    public long getConnectionId() {
+        return connectionId;
+    }
+
+    @Override
+    public ConnectionState getState() {
+        return state.get();
+    }
+
+    @Override
+    public Queue<ByteBuffer> getQueueRecv() {
+        return queueRecv;
+    }
+
+    @Override
+    public SendQueue getSendQueue(SendLane lane) {
+        return lane == SendLane.CONTROL ? controlQueueSend : queueSend;
+    }
+
+    @Override
+    public ConnectionMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public Integer getRemoteNodeId() {
+        return remoteNodeId;
+    }
+
+}
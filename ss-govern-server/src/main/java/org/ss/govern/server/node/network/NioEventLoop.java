@@ -0,0 +1,155 @@
+package org.ss.govern.server.node.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.ss.govern.server.node.NodeStatus;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 基于Selector的网络事件循环线程
+ * 一个事件循环线程负责多个连接的读写，替代原来每个连接一个读线程一个写线程的模型
+ * 注册的channel以ChannelHandler作为attachment，握手阶段为HandshakeHandler，之后为NioConnection
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class NioEventLoop extends Thread {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NioEventLoop.class);
+
+    /**
+     * select的超时时间，保证节点状态变化后事件循环能及时退出
+     */
+    private static final long SELECT_TIMEOUT = 500;
+
+    /**
+     * 存在因接收队列满而暂停读取的连接时，重试放入接收队列的间隔
+     */
+    private static final long STALL_RETRY_INTERVAL = 10;
+
+    private final Selector selector;
+
+    private final NodeStatus nodeStatus;
+
+    /**
+     * 需要在事件循环线程内执行的任务，比如注册连接、开启写事件
+     */
+    private final ConcurrentLinkedQueue<Runnable> taskQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 因接收队列满而暂停读取的连接，只在事件循环线程内访问
+     */
+    private final List<NioConnection> stalledConnections = new ArrayList<>();
+
+    public NioEventLoop(String name, NodeStatus nodeStatus) throws IOException {
+        super(name);
+        this.selector = Selector.open();
+        this.nodeStatus = nodeStatus;
+    }
+
+    /**
+     * 提交一个任务到事件循环线程执行
+     */
+    public void execute(Runnable task) {
+        taskQueue.offer(task);
+        if (Thread.currentThread() != this) {
+            selector.wakeup();
+        }
+    }
+
+    public boolean inEventLoop() {
+        return Thread.currentThread() == this;
+    }
+
+    Selector selector() {
+        return selector;
+    }
+
+    void stall(NioConnection connection) {
+        stalledConnections.add(connection);
+    }
+
+    @Override
+    public void run() {
+        LOG.info("start network event loop " + getName());
+        while (nodeStatus.isRunning()) {
+            try {
+                selector.select(stalledConnections.isEmpty() ? SELECT_TIMEOUT : STALL_RETRY_INTERVAL);
+                processSelectedKeys();
+                runAllTasks();
+                resumeStalledConnections();
+            } catch (IOException e) {
+                LOG.error("select on network event loop error", e);
+            } catch (RuntimeException e) {
+                LOG.error("unexpected error on network event loop " + getName(), e);
+            }
+        }
+        closeSelector();
+    }
+
+    private void processSelectedKeys() {
+        Set<SelectionKey> selectedKeys = selector.selectedKeys();
+        Iterator<SelectionKey> iterator = selectedKeys.iterator();
+        while (iterator.hasNext()) {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+            ChannelHandler handler = (ChannelHandler) key.attachment();
+            try {
+                if (key.isValid() && key.isConnectable()) {
+                    handler.onConnectable();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    handler.onReadable();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    handler.onWritable();
+                }
+            } catch (CancelledKeyException e) {
+                handler.finish();
+            } catch (RuntimeException e) {
+                //只关闭出错的连接，不能让异常结束事件循环线程，否则线程上的其他连接都会停止收发
+                LOG.error("handle network event error, closing connection", e);
+                handler.finish();
+            }
+        }
+    }
+
+    private void resumeStalledConnections() {
+        if (stalledConnections.isEmpty()) {
+            return;
+        }
+        stalledConnections.removeIf(NioConnection::resumeReading);
+    }
+
+    private void runAllTasks() {
+        Runnable task;
+        while ((task = taskQueue.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                LOG.error("run task on network event loop error", e);
+            }
+        }
+    }
+
+    private void closeSelector() {
+        for (SelectionKey key : selector.keys()) {
+            ((ChannelHandler) key.attachment()).finish();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOG.error("close selector error", e);
+        }
+    }
+
+}
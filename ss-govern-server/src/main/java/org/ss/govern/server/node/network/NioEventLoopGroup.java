@@ -0,0 +1,41 @@
+package org.ss.govern.server.node.network;
+
+import org.ss.govern.server.node.NodeStatus;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 事件循环线程组
+ * 新建立的连接按轮询的方式绑定到其中一个事件循环线程上，之后该连接的读写都由这个线程负责
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class NioEventLoopGroup {
+
+    private final NioEventLoop[] eventLoops;
+
+    private final AtomicInteger index = new AtomicInteger();
+
+    public NioEventLoopGroup(int threads, NodeStatus nodeStatus) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("event loop threads must be positive: " + threads);
+        }
+        this.eventLoops = new NioEventLoop[threads];
+        for (int i = 0; i < threads; i++) {
+            eventLoops[i] = new NioEventLoop("network-event-loop-" + i, nodeStatus);
+        }
+    }
+
+    public void start() {
+        for (NioEventLoop eventLoop : eventLoops) {
+            eventLoop.start();
+        }
+    }
+
+    public NioEventLoop next() {
+        return eventLoops[Math.abs(index.getAndIncrement() % eventLoops.length)];
+    }
+
+}
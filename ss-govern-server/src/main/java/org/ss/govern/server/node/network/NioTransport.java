@@ -0,0 +1,336 @@
+package org.ss.govern.server.node.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.ss.govern.core.constants.NodeRole;
+import org.ss.govern.server.config.GovernServerConfig;
+import org.ss.govern.server.node.AbstractConnectionListener;
+import org.ss.govern.server.node.NodeAddress;
+import org.ss.govern.server.node.NodeContext;
+import org.ss.govern.server.node.master.MasterConnectionListener;
+import org.ss.govern.server.node.master.SlaveConnectionListener;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 基于TCP的Transport
+ * 由监听线程accept连接，主动发起的master连接也在事件循环上建立，两个方向的握手都在事件循环上异步完成并有超时，
+ * 之后所有连接的读写都由少量的事件循环线程负责；只发送不应答的重启通知和slave连接以阻塞方式写出
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class NioTransport implements Transport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NioTransport.class);
+
+    private static final int CONNECT_TIMEOUT = 5000;
+
+    private final NodeContext context;
+
+    private final GovernServerConfig config;
+
+    private final TransportHandler handler;
+
+    /**
+     * master节点的回调，slave节点为null
+     */
+    private final MasterTransportHandler masterHandler;
+
+    /**
+     * 负责所有连接读写的事件循环线程组
+     */
+    private NioEventLoopGroup eventLoopGroup;
+
+    /**
+     * 接收连接后握手的统计
+     */
+    private final HandshakeMetrics handshakeMetrics = new HandshakeMetrics();
+
+    private final List<AbstractConnectionListener> listeners = new CopyOnWriteArrayList<>();
+
+    public NioTransport(NodeContext context, TransportHandler handler) {
+        this.context = context;
+        this.config = context.getConfig();
+        this.handler = handler;
+        this.masterHandler = handler instanceof MasterTransportHandler ? (MasterTransportHandler) handler : null;
+        //slave节点只有一个和master之间的连接
+        int ioThreads = NodeRole.SLAVE.equals(config.getNodeRole()) ? 1 : config.getNetworkIoThreads();
+        try {
+            this.eventLoopGroup = new NioEventLoopGroup(ioThreads, context.getStatus());
+            this.eventLoopGroup.start();
+        } catch (IOException e) {
+            LOG.error("open network event loop error", e);
+            context.getStatus().fatal();
+        }
+    }
+
+    @Override
+    public void listenMasterConnections(NodeAddress self) {
+        requireMasterHandler();
+        startListener(new MasterConnectionListener(this, context, self));
+    }
+
+    @Override
+    public void listenSlaveConnections(NodeAddress self) {
+        requireMasterHandler();
+        startListener(new SlaveConnectionListener(this, context, self));
+    }
+
+    /**
+     * 只有master节点可以接收连接和发起master之间的连接
+     */
+    private MasterTransportHandler requireMasterHandler() {
+        if (masterHandler == null) {
+            throw new IllegalStateException("transport of slave node " + config.getNodeId()
+                    + " only connects to its master node");
+        }
+        return masterHandler;
+    }
+
+    private void startListener(AbstractConnectionListener listener) {
+        listeners.add(listener);
+        listener.start();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> connectMaster(NodeAddress target) {
+        String ip = target.getIp();
+        int port = target.getMasterConnectPort();
+        Integer nodeId = target.getNodeId();
+        TimerWheel timer = requireMasterHandler().getTimerWheel();
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        if (!context.isRunning()) {
+            result.complete(false);
+            return result;
+        }
+        LOG.info("try to connect master node :" + ip + ":" + port);
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open();
+            channel.socket().setTcpNoDelay(true);
+        } catch (IOException e) {
+            LOG.warn("connect with master node " + ip + ":" + port + " fail, " + e.getMessage());
+            result.complete(false);
+            return result;
+        }
+        long connectStartTime = System.currentTimeMillis();
+        NioEventLoop eventLoop = eventLoopGroup.next();
+        //发送自己的id、是否为controller候选节点和本地槽位分配的epoch，并读取对方的槽位分配epoch
+        new OutboundHandshakeHandler(channel, eventLoop, new InetSocketAddress(ip, port),
+                handler.getLocalHandshake().encodeRequest(), MasterHandshake.RESPONSE_SIZE,
+                new OutboundHandshakeHandler.Listener() {
+                    @Override
+                    public void onComplete(ByteBuffer response) {
+                        LOG.info("successfully connected master node :" + ip + ":" + port + " in "
+                                + (System.currentTimeMillis() - connectStartTime) + " ms");
+                        MasterHandshake remote = MasterHandshake.decodeResponse(nodeId, response);
+                        NioConnection connection = newConnection(nodeId, channel.socket(),
+                                handler.newRecvQueue(nodeId, false), eventLoop);
+                        handler.onMasterConnected(remote, connection);
+                        connection.register();
+                        result.complete(true);
+                    }
+
+                    @Override
+                    public void onFailure(IOException cause) {
+                        LOG.warn("connect with master node " + ip + ":" + port + " fail, " + cause.getMessage());
+                        result.complete(false);
+                    }
+                }).start(timer, CONNECT_TIMEOUT, config.getHandshakeTimeoutMs());
+        return result;
+    }
+
+    @Override
+    public boolean announceMaster(NodeAddress target) {
+        requireMasterHandler();
+        if (!context.isRunning()) {
+            return false;
+        }
+        Socket socket = null;
+        try {
+            socket = openSocket(target.getIp(), target.getMasterConnectPort());
+            writeFully(socket.getChannel(), handler.getLocalHandshake().asAnnounce().encodeRequest());
+            return true;
+        } catch (IOException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("announce to master node " + target.getNodeId() + " fail, " + e.getMessage());
+            }
+            return false;
+        } finally {
+            closeSocket(socket);
+        }
+    }
+
+    @Override
+    public boolean connectMasterAsSlave(String ip, int port) {
+        if (!context.isRunning()) {
+            return false;
+        }
+        LOG.info("connecting master node:" + ip + ":" + port);
+        Socket socket = null;
+        try {
+            socket = openSocket(ip, port);
+            SocketChannel channel = socket.getChannel();
+            writeFully(channel, handler.getLocalHandshake().encodeSlaveRequest());
+            channel.configureBlocking(false);
+            Integer masterNodeId = Connection.UNKNOWN_NODE_ID;
+            NioConnection connection = newConnection(masterNodeId, socket,
+                    handler.newRecvQueue(masterNodeId, false), eventLoopGroup.next());
+            handler.onMasterConnected(null, connection);
+            connection.register();
+            LOG.info("successfully connected master node :" + ip + ":" + port);
+            return true;
+        } catch (IOException e) {
+            closeSocket(socket);
+            LOG.warn("connect with master node " + ip + ":" + port + " fail, " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 在事件循环上异步完成其他master发起连接的握手，握手完成后交给事件循环处理读写
+     * 读取对方的id、是否为controller候选节点和槽位分配的epoch，回复本地槽位分配的epoch
+     */
+    public void acceptMasterConnection(final Socket sock) {
+        NioEventLoop eventLoop = eventLoopGroup.next();
+        MasterHandshake[] remote = new MasterHandshake[1];
+        new HandshakeHandler(sock.getChannel(), eventLoop, MasterHandshake.REQUEST_SIZE, handshakeMetrics,
+                new HandshakeHandler.Listener() {
+                    @Override
+                    public ByteBuffer onRequest(ByteBuffer request) {
+                        remote[0] = MasterHandshake.decodeRequest(request);
+                        //重启通知没有应答
+                        return remote[0].isAnnounce() ? null : handler.getLocalHandshake().encodeResponse();
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        if (remote[0].isAnnounce()) {
+                            closeSocket(sock);
+                            masterHandler.onMasterAnnounced(remote[0]);
+                            return;
+                        }
+                        Integer remoteNodeId = remote[0].getNodeId();
+                        LOG.info("accept master node id : " + remoteNodeId);
+                        NioConnection connection = newConnection(remoteNodeId, sock,
+                                handler.newRecvQueue(remoteNodeId, false), eventLoop);
+                        handler.onMasterConnected(remote[0], connection);
+                        connection.register();
+                    }
+
+                    @Override
+                    public void onFailure(IOException cause) {
+                        LOG.error("handshake with master connection " + sock.getRemoteSocketAddress()
+                                + " failed, " + cause.getMessage() + ", " + handshakeMetrics);
+                    }
+                }).start(masterHandler.getTimerWheel(), config.getHandshakeTimeoutMs());
+    }
+
+    /**
+     * 在事件循环上异步完成slave发起连接的握手，读取slave的id
+     */
+    public void acceptSlaveConnection(final Socket sock) {
+        NioEventLoop eventLoop = eventLoopGroup.next();
+        Integer[] remoteNodeId = new Integer[1];
+        new HandshakeHandler(sock.getChannel(), eventLoop, MasterHandshake.SLAVE_REQUEST_SIZE, handshakeMetrics,
+                new HandshakeHandler.Listener() {
+                    @Override
+                    public ByteBuffer onRequest(ByteBuffer request) {
+                        remoteNodeId[0] = request.getInt();
+                        return null;
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        LOG.info("accept slave node id : " + remoteNodeId[0]);
+                        //slave重新连接时替换旧的接收队列，旧连接关闭时不会再移除新队列
+                        NioConnection connection = newConnection(remoteNodeId[0], sock,
+                                handler.newRecvQueue(remoteNodeId[0], true), eventLoop);
+                        masterHandler.onSlaveConnected(remoteNodeId[0], connection);
+                        connection.register();
+                    }
+
+                    @Override
+                    public void onFailure(IOException cause) {
+                        LOG.error("handshake with slave connection " + sock.getRemoteSocketAddress()
+                                + " failed, " + cause.getMessage() + ", " + handshakeMetrics);
+                    }
+                }).start(masterHandler.getTimerWheel(), config.getHandshakeTimeoutMs());
+    }
+
+    @Override
+    public HandshakeMetrics getHandshakeMetrics() {
+        return handshakeMetrics;
+    }
+
+    /**
+     * 关闭监听的端口，事件循环发现节点不再运行后关闭所有连接
+     */
+    @Override
+    public void shutdown() {
+        for (AbstractConnectionListener listener : listeners) {
+            listener.shutdown();
+        }
+    }
+
+    /**
+     * 每个连接有控制和批量两个发送队列，控制消息优先写出；
+     * 控制队列总是快速失败，心跳、租约和选票不会因为某个节点处理慢而阻塞发送线程
+     *
+     * @param eventLoop 连接绑定的事件循环，接收的连接必须和握手使用同一个事件循环
+     */
+    private NioConnection newConnection(Integer remoteNodeId, Socket socket, Queue<ByteBuffer> queueRecv,
+                                        NioEventLoop eventLoop) {
+        FrameBatch writeBatch = new FrameBatch(config.getWriteBatchMaxFrames(),
+                config.getWriteBatchMaxBytes());
+        return new NioConnection(remoteNodeId, socket.getChannel(), eventLoop,
+                newSendQueue(BackpressurePolicy.FAIL_FAST), newSendQueue(config.getSendQueuePolicy()), queueRecv, writeBatch, handler.getBufferPool(), handler);
+    }
+
+    private SendQueue newSendQueue(BackpressurePolicy policy) {
+        return new SendQueue(config.getSendQueueCapacity(), policy);
+    }
+
+    /**
+     * 通过channel创建socket，握手完成后切换为非阻塞交给事件循环
+     */
+    private Socket openSocket(String ip, int port) throws IOException {
+        Socket socket = SocketChannel.open().socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(0);
+            socket.connect(new InetSocketAddress(ip, port), CONNECT_TIMEOUT);
+        } catch (IOException e) {
+            closeSocket(socket);
+            throw e;
+        }
+        return socket;
+    }
+
+    private void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void closeSocket(Socket socket) {
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException ie) {
+            LOG.error("Exception while closing", ie);
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package org.ss.govern.server.node.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * 在事件循环上以非阻塞方式主动发起连接并完成握手
+ * 连接建立后写出握手请求，再读取固定长度的应答；连接和握手分别有超时，超时未完成则关闭连接，
+ * 对方接受连接却一直不应答时不会阻塞任何线程
+ * 握手完成后channel仍然注册在同一个事件循环上，由NioConnection接管后续读写
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class OutboundHandshakeHandler implements ChannelHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboundHandshakeHandler.class);
+
+    /**
+     * 握手各阶段的回调，都在事件循环线程内调用
+     */
+    public interface Listener {
+
+        /**
+         * 读取到完整的握手应答，可以把channel交给NioConnection
+         *
+         * @throws IOException 握手应答不合法，关闭连接
+         */
+        void onComplete(ByteBuffer response) throws IOException;
+
+        /**
+         * 连接或握手失败、超时，channel已经关闭
+         */
+        void onFailure(IOException cause);
+    }
+
+    private final SocketChannel channel;
+
+    private final NioEventLoop eventLoop;
+
+    private final InetSocketAddress address;
+
+    private final ByteBuffer request;
+
+    private final ByteBuffer response;
+
+    private final Listener listener;
+
+    private SelectionKey selectionKey;
+
+    private TimerWheel timer;
+
+    private TimerWheel.Timeout timeout;
+
+    private long handshakeTimeoutMillis;
+
+    /**
+     * 握手是否已经结束，只在事件循环线程内访问
+     */
+    private boolean done = false;
+
+    public OutboundHandshakeHandler(SocketChannel channel, NioEventLoop eventLoop, InetSocketAddress address,
+                                    ByteBuffer request, int responseSize, Listener listener) {
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.address = address;
+        this.request = request;
+        this.response = ByteBuffer.allocate(responseSize);
+        this.listener = listener;
+    }
+
+    /**
+     * 开始连接，可以在任意线程调用
+     *
+     * @param connectTimeoutMillis   建立TCP连接的超时时间
+     * @param handshakeTimeoutMillis 连接建立后完成握手的超时时间
+     */
+    public void start(TimerWheel timer, long connectTimeoutMillis, long handshakeTimeoutMillis) {
+        this.timer = timer;
+        this.handshakeTimeoutMillis = handshakeTimeoutMillis;
+        eventLoop.execute(() -> {
+            timeout = newTimeout("connect", connectTimeoutMillis);
+            try {
+                channel.configureBlocking(false);
+                selectionKey = channel.register(eventLoop.selector(), SelectionKey.OP_CONNECT, this);
+                if (channel.connect(address)) {
+                    onConnected();
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        });
+    }
+
+    private TimerWheel.Timeout newTimeout(String phase, long timeoutMillis) {
+        return timer.newTimeout(() -> eventLoop.execute(() -> fail(
+                new SocketTimeoutException(phase + " timed out after " + timeoutMillis + " ms"))), timeoutMillis);
+    }
+
+    private void onConnected() throws IOException {
+        timeout.cancel();
+        timeout = newTimeout("handshake", handshakeTimeoutMillis);
+        writeRequest();
+    }
+
+    @Override
+    public void onConnectable() {
+        if (done) {
+            return;
+        }
+        try {
+            if (channel.finishConnect()) {
+                onConnected();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onReadable() {
+        if (done) {
+            return;
+        }
+        try {
+            //应答缓冲区的长度和握手应答一致，不会读走握手之后的消息
+            if (channel.read(response) < 0) {
+                throw new EOFException("remote closed the connection during handshake");
+            }
+            if (response.hasRemaining()) {
+                return;
+            }
+            response.flip();
+            selectionKey.interestOps(0);
+            listener.onComplete(response);
+            done = true;
+            timeout.cancel();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onWritable() {
+        if (done) {
+            return;
+        }
+        try {
+            writeRequest();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void writeRequest() throws IOException {
+        channel.write(request);
+        selectionKey.interestOps(request.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void fail(IOException cause) {
+        if (done) {
+            return;
+        }
+        done = true;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        if (selectionKey != null) {
+            selectionKey.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.error("close channel after handshake failure error", e);
+        }
+        listener.onFailure(cause);
+    }
+
+    @Override
+    public void finish() {
+        fail(new EOFException("event loop closed during handshake"));
+    }
+
+}
@@ -0,0 +1,77 @@
+package org.ss.govern.server.node.network;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 重新连接的统计
+ * 重连耗时即从连接断开到重新建立连接的时间
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class ReconnectMetrics {
+
+    private final AtomicLong reconnects = new AtomicLong();
+
+    private final AtomicLong attempts = new AtomicLong();
+
+    private final AtomicLong failedAttempts = new AtomicLong();
+
+    private final AtomicLong lastReconnectMillis = new AtomicLong();
+
+    private final AtomicLong maxReconnectMillis = new AtomicLong();
+
+    private final AtomicLong totalReconnectMillis = new AtomicLong();
+
+    public void recordAttempt(boolean success) {
+        attempts.incrementAndGet();
+        if (!success) {
+            failedAttempts.incrementAndGet();
+        }
+    }
+
+    public void recordReconnect(long reconnectMillis) {
+        reconnects.incrementAndGet();
+        lastReconnectMillis.set(reconnectMillis);
+        totalReconnectMillis.addAndGet(reconnectMillis);
+        maxReconnectMillis.accumulateAndGet(reconnectMillis, Math::max);
+    }
+
+    public long getReconnects() {
+        return reconnects.get();
+    }
+
+    public long getAttempts() {
+        return attempts.get();
+    }
+
+    public long getFailedAttempts() {
+        return failedAttempts.get();
+    }
+
+    public long getLastReconnectMillis() {
+        return lastReconnectMillis.get();
+    }
+
+    public long getMaxReconnectMillis() {
+        return maxReconnectMillis.get();
+    }
+
+    public double getAverageReconnectMillis() {
+        long count = reconnects.get();
+        return count == 0 ? 0 : (double) totalReconnectMillis.get() / count;
+    }
+
+    @Override
+    public String toString() {
+        return "ReconnectMetrics{" +
+                "reconnects=" + reconnects +
+                ", attempts=" + attempts +
+                ", failedAttempts=" + failedAttempts +
+                ", lastReconnectMillis=" + lastReconnectMillis +
+                ", maxReconnectMillis=" + maxReconnectMillis +
+                ", averageReconnectMillis=" + String.format("%.2f", getAverageReconnectMillis()) +
+                '}';
+    }
+
+}
@@ -0,0 +1,36 @@
+package org.ss.govern.server.node.network;
+
+import org.ss.govern.core.constants.NodeRequestType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 连接上的发送通道，每个通道有独立的发送队列
+ * 写出时总是先取控制通道的消息，批量通道只使用剩余的写出机会
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public enum SendLane {
+
+    /**
+     * 投票、租约、心跳等小而频繁的控制消息
+     */
+    CONTROL,
+
+    /**
+     * 槽位分配以及之后的数据迁移等批量数据
+     */
+    BULK;
+
+    /**
+     * 按消息头部的请求类型选择发送通道
+     */
+    public static SendLane of(ByteBuffer message) {
+        if (message.remaining() < 4) {
+            return BULK;
+        }
+        return NodeRequestType.isControl(message.getInt(message.position())) ? CONTROL : BULK;
+    }
+
+}
@@ -0,0 +1,202 @@
+package org.ss.govern.server.node.network;
+
+import org.ss.govern.core.constants.NodeRequestType;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 单个远程节点的有界发送队列
+ * 队列满时按照背压策略处理，幂等的消息类型总是优先丢弃队头同类型的旧消息，
+ * 不同类型的消息不会互相覆盖，比如心跳不会挤掉排队中的选票或者租约；
+ * 幂等消息无论什么策略都不会阻塞发送方，没有可以取代的旧消息时直接失败，等待下一次发送
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class SendQueue {
+
+    /**
+     * 阻塞策略下每次等待队列空位的时间
+     */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final BoundedRingQueue<ByteBuffer> queue;
+
+    /**
+     * 非幂等消息在队列满时的处理策略
+     */
+    private final BackpressurePolicy policy;
+
+    private volatile boolean closed = false;
+
+    /**
+     * 因队列满被拒绝的消息数
+     */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * 被丢弃的旧消息数
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * 发送方因队列满被阻塞的次数
+     */
+    private final AtomicLong blocked = new AtomicLong();
+
+    /**
+     * 队列中出现过的最大消息数
+     */
+    private final AtomicLong highWaterMark = new AtomicLong();
+
+    public SendQueue(int capacity, BackpressurePolicy policy) {
+        this.queue = new BoundedRingQueue<>(capacity);
+        this.policy = policy;
+    }
+
+    /**
+     * 放入一条消息
+     *
+     * @return 队列已满且策略为快速失败或者消息是幂等的，或者队列已关闭时返回false
+     */
+    public boolean offer(ByteBuffer message) throws InterruptedException {
+        if (closed) {
+            return false;
+        }
+        if (!queue.offer(message)) {
+            int requestType = requestType(message);
+            //控制消息都是幂等的，见NodeRequestType.isControl
+            if (NodeRequestType.isControl(requestType)) {
+                if (!offerDroppingOldest(message, requestType)) {
+                    rejected.incrementAndGet();
+                    return false;
+                }
+            } else if (!offerWithPolicy(message)) {
+                return false;
+            }
+        }
+        updateHighWaterMark();
+        return true;
+    }
+
+    /**
+     * 队头是同类型的旧消息时丢弃它来腾出空位，新消息覆盖旧消息
+     */
+    private boolean offerDroppingOldest(ByteBuffer message, int requestType) {
+        do {
+            ByteBuffer oldest = queue.peek();
+            if (oldest == null || requestType(oldest) != requestType) {
+                return false;
+            }
+            if (queue.removeHead(oldest)) {
+                dropped.incrementAndGet();
+            }
+        } while (!queue.offer(message));
+        return true;
+    }
+
+    /**
+     * 读取消息的请求类型，不改变position，不足4字节时返回-1
+     */
+    private static int requestType(ByteBuffer message) {
+        if (message.remaining() < 4) {
+            return -1;
+        }
+        return message.getInt(message.position());
+    }
+
+    private boolean offerWithPolicy(ByteBuffer message) throws InterruptedException {
+        if (policy != BackpressurePolicy.BLOCK) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        blocked.incrementAndGet();
+        while (!queue.offer(message)) {
+            if (closed) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return true;
+    }
+
+    private void updateHighWaterMark() {
+        long size = queue.size();
+        long mark;
+        while (size > (mark = highWaterMark.get())) {
+            if (highWaterMark.compareAndSet(mark, size)) {
+                return;
+            }
+        }
+    }
+
+    public ByteBuffer peek() {
+        return queue.peek();
+    }
+
+    public ByteBuffer poll() {
+        return queue.poll();
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * 关闭队列，之后的发送都会失败，阻塞中的发送方也会返回
+     */
+    public void close() {
+        closed = true;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public int capacity() {
+        return queue.capacity();
+    }
+
+    /**
+     * 队列占用比例，持续偏高说明对应的远程节点处理不过来
+     */
+    public double occupancy() {
+        return (double) queue.size() / queue.capacity();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getBlocked() {
+        return blocked.get();
+    }
+
+    public long getHighWaterMark() {
+        return highWaterMark.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SendQueue{" +
+                "size=" + size() +
+                ", capacity=" + capacity() +
+                ", highWaterMark=" + highWaterMark +
+                ", rejected=" + rejected +
+                ", dropped=" + dropped +
+                ", blocked=" + blocked +
+                '}';
+    }
+
+}
@@ -0,0 +1,203 @@
+package org.ss.govern.server.node.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 哈希时间轮定时器
+ * 时间轮每个格子对应一个tick，定时任务按到期的tick放入对应格子，超过一圈的任务记录剩余圈数；
+ * 添加和取消任务都是O(1)，适合大量精度要求不高的定时任务，比如重新连接
+ * 到期的任务在时间轮线程内执行，耗时的操作需要交给其他线程
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class TimerWheel {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TimerWheel.class);
+
+    private final long tickNanos;
+
+    private final int mask;
+
+    /**
+     * 时间轮的格子，只在时间轮线程内访问
+     */
+    private final LinkedList<Timeout>[] wheel;
+
+    /**
+     * 新添加的任务，时间轮线程每个tick开始时放入对应的格子
+     */
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+
+    private final Thread workerThread;
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    private volatile boolean stopped = false;
+
+    private volatile long startNanos;
+
+    /**
+     * 已经处理到的tick，只在时间轮线程内访问
+     */
+    private long currentTick;
+
+    /**
+     * @param name 时间轮线程名称
+     * @param tickMillis 每个tick的时长，即定时精度
+     * @param wheelSize 格子数，会向上取整为2的幂
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(String name, long tickMillis, int wheelSize) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+        }
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        if (size <= 0) {
+            size = 1;
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = size - 1;
+        this.wheel = new LinkedList[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new LinkedList<>();
+        }
+        this.workerThread = new Thread(this::run, name);
+        this.workerThread.setDaemon(true);
+    }
+
+    public void start() {
+        if (started.compareAndSet(false, true)) {
+            startNanos = System.nanoTime();
+            workerThread.start();
+        }
+    }
+
+    public void stop() {
+        stopped = true;
+        workerThread.interrupt();
+    }
+
+    /**
+     * 添加定时任务
+     *
+     * @param delayMillis 延迟时间，实际执行时间的误差在一个tick以内
+     */
+    public Timeout newTimeout(Runnable task, long delayMillis) {
+        start();
+        Timeout timeout = new Timeout(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis));
+        pendingTimeouts.offer(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (!stopped) {
+            long deadline = startNanos + (currentTick + 1) * tickNanos;
+            long sleepNanos = deadline - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (stopped) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            transferPendingTimeouts();
+            expireTimeouts(wheel[(int) (currentTick & mask)]);
+            currentTick++;
+        }
+    }
+
+    private void transferPendingTimeouts() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long deadlineTick = Math.max((timeout.deadlineNanos - startNanos) / tickNanos, currentTick);
+            timeout.remainingRounds = (deadlineTick - currentTick) / wheel.length;
+            wheel[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    private void expireTimeouts(LinkedList<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.isCancelled()) {
+                iterator.remove();
+            } else if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else {
+                iterator.remove();
+                timeout.expire();
+            }
+        }
+    }
+
+    /**
+     * 定时任务的句柄
+     */
+    public static class Timeout {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+
+        private final long deadlineNanos;
+
+        /**
+         * 剩余圈数，只在时间轮线程内访问
+         */
+        private long remainingRounds;
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * 取消任务
+         *
+         * @return 任务还未执行时返回true
+         */
+        public boolean cancel() {
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(PENDING, EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                LOG.error("run timer task error", t);
+            }
+        }
+    }
+
+}
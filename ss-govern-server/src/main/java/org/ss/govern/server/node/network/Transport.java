@@ -0,0 +1,62 @@
+package org.ss.govern.server.node.network;
+
+import org.ss.govern.server.node.NodeAddress;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 节点之间建立连接和传输消息的方式
+ * NioTransport基于TCP，用于实际部署；LoopbackTransport在内存中直接交换消息，
+ * 让多个master和slave节点运行在同一个JVM内
+ * 建立好的连接都通过TransportHandler交给NetworkManager或SlaveNetworkManager；
+ * 监听连接、向master发起连接和重启通知只有master节点使用，要求以MasterTransportHandler创建Transport，
+ * 否则在调用线程上抛出IllegalStateException，不会把回调送到slave节点
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public interface Transport {
+
+    /**
+     * 开始接收其他master节点发起的连接，不阻塞调用线程
+     */
+    void listenMasterConnections(NodeAddress self);
+
+    /**
+     * 开始接收slave节点发起的连接，不阻塞调用线程
+     */
+    void listenSlaveConnections(NodeAddress self);
+
+    /**
+     * 向id比自己小的master节点发起一次连接，不阻塞调用线程，握手完成后回调TransportHandler.onMasterConnected
+     *
+     * @return 连接和握手是否成功，连接或握手超时时为false
+     */
+    CompletableFuture<Boolean> connectMaster(NodeAddress target);
+
+    /**
+     * 通知id比自己大的master节点本节点已经启动：只发送一次握手请求后关闭，不建立连接，
+     * 对方回调MasterTransportHandler.onMasterAnnounced
+     *
+     * @return 通知是否已经发出
+     */
+    boolean announceMaster(NodeAddress target);
+
+    /**
+     * slave节点向自己的master节点发起一次连接，握手完成后回调TransportHandler.onMasterConnected
+     *
+     * @return 连接和握手是否成功
+     */
+    boolean connectMasterAsSlave(String ip, int port);
+
+    /**
+     * 接收连接后握手的统计
+     */
+    HandshakeMetrics getHandshakeMetrics();
+
+    /**
+     * 停止接收连接并关闭所有连接，节点状态需要先切换为非运行状态
+     */
+    void shutdown();
+
+}
@@ -0,0 +1,16 @@
+package org.ss.govern.server.node.network;
+
+import org.ss.govern.server.node.NodeContext;
+
+/**
+ * 为每个节点创建Transport
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+@FunctionalInterface
+public interface TransportFactory {
+
+    Transport create(NodeContext context, TransportHandler handler);
+
+}
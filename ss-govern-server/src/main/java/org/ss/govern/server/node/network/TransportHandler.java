@@ -0,0 +1,50 @@
+package org.ss.govern.server.node.network;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+
+/**
+ * Transport建立连接和收到消息时回调的节点网络组件，即NetworkManager和SlaveNetworkManager
+ * 回调可能在事件循环线程或者发送消息的线程内执行，不能阻塞；只有master节点需要的回调在MasterTransportHandler中
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public interface TransportHandler {
+
+    /**
+     * 本节点发起或接收master连接时报告给对方的握手信息
+     */
+    MasterHandshake getLocalHandshake();
+
+    /**
+     * 为握手完成的连接提供接收队列
+     *
+     * @param slave 对方是否为slave节点
+     */
+    Queue<ByteBuffer> newRecvQueue(Integer remoteNodeId, boolean slave);
+
+    /**
+     * 和master节点的连接握手完成，包括本节点发起的和对方发起的连接
+     * 返回之后连接才开始读写
+     *
+     * @param remote 对方在握手中报告的信息，slave节点连接自己的master时为null
+     */
+    void onMasterConnected(MasterHandshake remote, Connection connection);
+
+    /**
+     * 收到远程节点的心跳，心跳不进入接收队列
+     */
+    void onHeartbeat(Integer remoteNodeId);
+
+    /**
+     * 连接已经关闭，只需清理属于这个连接的资源
+     */
+    void onConnectionClosed(Connection connection);
+
+    /**
+     * 接收消息使用的缓冲区池，消息由消费者处理完后归还
+     */
+    BufferPool getBufferPool();
+
+}
@@ -0,0 +1,28 @@
+package org.ss.govern.server.node.rpc;
+
+/**
+ * rpc调用失败，包括远程节点返回的错误应答以及请求无法发出、连接断开等本地错误
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class RpcException extends Exception {
+
+    /**
+     * 远程节点返回的状态码，本地错误时为-1
+     */
+    private final int status;
+
+    public RpcException(String message) {
+        this(-1, message);
+    }
+
+    public RpcException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,24 @@
+package org.ss.govern.server.node.rpc;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 处理其他master节点发来的某个方法的rpc请求
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+@FunctionalInterface
+public interface RpcHandler {
+
+    /**
+     * 处理请求，在rpc处理线程池内调用
+     *
+     * @param fromNodeId 发起请求的节点
+     * @param request 请求数据，返回后缓冲区会被归还，不能在其他线程继续使用
+     * @return 应答数据，没有应答数据时可以返回null
+     * @throws Exception 异常信息会作为错误应答返回给调用方
+     */
+    ByteBuffer handle(int fromNodeId, ByteBuffer request) throws Exception;
+
+}
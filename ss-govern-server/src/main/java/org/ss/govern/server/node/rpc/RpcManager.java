@@ -0,0 +1,264 @@
+package org.ss.govern.server.node.rpc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.ss.govern.core.constants.NodeRequestType;
+import org.ss.govern.server.config.GovernServerConfig;
+import org.ss.govern.server.node.NetworkManager;
+import org.ss.govern.server.node.dispatch.ExecutorPolicy;
+import org.ss.govern.server.node.dispatch.MessageDispatcher;
+import org.ss.govern.server.node.network.TimerWheel;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * master节点之间的异步请求应答
+ * 基于现有的消息帧，请求和应答的头部带有关联id，每个未完成的请求对应一个CompletableFuture，
+ * 同一个连接上可以同时有多个未完成的请求，应答可以乱序返回
+ *
+ * 请求格式：type(4字节) correlationId(8字节) fromNodeId(4字节) method(4字节) payload
+ * 应答格式：type(4字节) correlationId(8字节) fromNodeId(4字节) status(4字节) payload
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class RpcManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RpcManager.class);
+
+    public static final int STATUS_OK = 0;
+
+    /**
+     * 处理器抛出异常，应答数据为异常信息
+     */
+    public static final int STATUS_ERROR = 1;
+
+    public static final int STATUS_NO_SUCH_METHOD = 2;
+
+    private static final int HEADER_SIZE = 4 + 8 + 4 + 4;
+
+    private final NetworkManager networkManager;
+
+    private final GovernServerConfig config;
+
+    private final int selfId;
+
+    private final TimerWheel timerWheel;
+
+    private final AtomicLong correlationIdGenerator = new AtomicLong();
+
+    /**
+     * 未完成的请求
+     * key correlationId
+     */
+    private final Map<Long, PendingCall> pendingCalls = new ConcurrentHashMap<>();
+
+    /**
+     * 每个远程节点允许的在途请求数
+     * key nodeId
+     */
+    private final Map<Integer, Semaphore> inFlightPermits = new ConcurrentHashMap<>();
+
+    /**
+     * key method
+     */
+    private final Map<Integer, RpcHandler> handlers = new ConcurrentHashMap<>();
+
+    private final RpcMetrics metrics = new RpcMetrics();
+
+    public RpcManager(NetworkManager networkManager, MessageDispatcher dispatcher) {
+        this.networkManager = networkManager;
+        this.config = networkManager.getContext().getConfig();
+        this.selfId = config.getNodeId();
+        this.timerWheel = networkManager.getTimerWheel();
+        //请求的处理器可能较慢，交给线程池；应答会触发调用方的回调，不能占用接收线程
+        dispatcher.register(NodeRequestType.RPC_REQUEST, "rpc-request", ExecutorPolicy.POOL,
+                config.getRpcHandlerThreads(), this::handleRequest);
+        dispatcher.register(NodeRequestType.RPC_RESPONSE, "rpc-response", ExecutorPolicy.DEDICATED,
+                this::handleResponse);
+        networkManager.addMasterConnectionClosedListener(this::failPendingCalls);
+    }
+
+    /**
+     * 注册方法的处理器，每个方法只能注册一个
+     */
+    public void registerMethod(int method, RpcHandler handler) {
+        if (handlers.putIfAbsent(method, handler) != null) {
+            throw new IllegalStateException("rpc method " + method + " is already registered");
+        }
+    }
+
+    /**
+     * 使用默认超时时间调用
+     */
+    public CompletableFuture<ByteBuffer> call(int nodeId, int method, ByteBuffer payload) {
+        return call(nodeId, method, payload, config.getRpcTimeoutMs());
+    }
+
+    /**
+     * 向远程节点发起请求，不阻塞调用线程
+     * 在途请求数达到上限、请求无法发出、连接断开或远程节点返回错误时以RpcException结束，超时以TimeoutException结束
+     *
+     * @param payload 请求数据，position到limit之间的数据，调用后不会修改
+     * @return 应答数据，在应答线程内完成，耗时的回调应使用async方法
+     */
+    public CompletableFuture<ByteBuffer> call(int nodeId, int method, ByteBuffer payload, long timeoutMillis) {
+        CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+        metrics.recordCall();
+        Semaphore permits = inFlightPermits.computeIfAbsent(nodeId,
+                id -> new Semaphore(config.getRpcMaxInFlightPerPeer()));
+        if (!permits.tryAcquire()) {
+            metrics.recordRejected();
+            future.completeExceptionally(new RpcException("too many in-flight rpc requests to node " + nodeId));
+            return future;
+        }
+        long correlationId = correlationIdGenerator.incrementAndGet();
+        PendingCall call = new PendingCall(nodeId, future, permits);
+        pendingCalls.put(correlationId, call);
+        call.timeout = timerWheel.newTimeout(() -> {
+            if (pendingCalls.remove(correlationId, call)) {
+                call.fail(new TimeoutException("rpc method " + method + " to node " + nodeId
+                        + " timed out after " + timeoutMillis + " ms"), true);
+            }
+        }, timeoutMillis);
+        ByteBuffer request = ByteBuffer.allocate(HEADER_SIZE + payload.remaining());
+        request.putInt(NodeRequestType.RPC_REQUEST);
+        request.putLong(correlationId);
+        request.putInt(selfId);
+        request.putInt(method);
+        request.put(payload.duplicate());
+        request.flip();
+        if (!networkManager.sendMessage(nodeId, request) && pendingCalls.remove(correlationId, call)) {
+            call.fail(new RpcException("send rpc request to node " + nodeId + " failed"), false);
+        }
+        return future;
+    }
+
+    private void handleRequest(ByteBuffer message) {
+        long correlationId = message.getLong();
+        int fromNodeId = message.getInt();
+        int method = message.getInt();
+        RpcHandler handler = handlers.get(method);
+        int status;
+        ByteBuffer result;
+        if (handler == null) {
+            status = STATUS_NO_SUCH_METHOD;
+            result = ByteBuffer.wrap(("no such rpc method " + method).getBytes(StandardCharsets.UTF_8));
+        } else {
+            try {
+                result = handler.handle(fromNodeId, message);
+                status = STATUS_OK;
+            } catch (Exception e) {
+                LOG.error("handle rpc method " + method + " from node " + fromNodeId + " error", e);
+                status = STATUS_ERROR;
+                result = ByteBuffer.wrap(String.valueOf(e).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int resultSize = result == null ? 0 : result.remaining();
+        ByteBuffer response = ByteBuffer.allocate(HEADER_SIZE + resultSize);
+        response.putInt(NodeRequestType.RPC_RESPONSE);
+        response.putLong(correlationId);
+        response.putInt(selfId);
+        response.putInt(status);
+        if (result != null) {
+            response.put(result);
+        }
+        response.flip();
+        if (!networkManager.sendMessage(fromNodeId, response)) {
+            LOG.warn("send rpc response of method " + method + " to node " + fromNodeId + " failed");
+        }
+    }
+
+    private void handleResponse(ByteBuffer message) {
+        long correlationId = message.getLong();
+        int fromNodeId = message.getInt();
+        int status = message.getInt();
+        PendingCall call = pendingCalls.remove(correlationId);
+        if (call == null) {
+            metrics.recordLateResponse();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("ignore late rpc response " + correlationId + " from node " + fromNodeId);
+            }
+            return;
+        }
+        //消息缓冲区处理完后会被归还，应答数据需要复制出来
+        ByteBuffer result = ByteBuffer.allocate(message.remaining());
+        result.put(message);
+        result.flip();
+        if (status == STATUS_OK) {
+            call.complete(result);
+        } else {
+            call.fail(new RpcException(status, StandardCharsets.UTF_8.decode(result).toString()), false);
+        }
+    }
+
+    /**
+     * 和远程节点的连接断开后，之前发出的请求不会再收到应答
+     */
+    private void failPendingCalls(Integer nodeId) {
+        for (Map.Entry<Long, PendingCall> entry : pendingCalls.entrySet()) {
+            PendingCall call = entry.getValue();
+            if (call.nodeId == nodeId && pendingCalls.remove(entry.getKey(), call)) {
+                call.fail(new RpcException("connection of node " + nodeId + " closed"), false);
+            }
+        }
+    }
+
+    public int getPendingCalls() {
+        return pendingCalls.size();
+    }
+
+    public RpcMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 未完成的请求，从pendingCalls中移除成功的线程负责结束请求
+     */
+    private class PendingCall {
+
+        private final int nodeId;
+
+        private final CompletableFuture<ByteBuffer> future;
+
+        private final Semaphore permits;
+
+        private final long startNanos = System.nanoTime();
+
+        private volatile TimerWheel.Timeout timeout;
+
+        private PendingCall(int nodeId, CompletableFuture<ByteBuffer> future, Semaphore permits) {
+            this.nodeId = nodeId;
+            this.future = future;
+            this.permits = permits;
+        }
+
+        private void complete(ByteBuffer result) {
+            release();
+            metrics.recordSucceeded(System.nanoTime() - startNanos);
+            future.complete(result);
+        }
+
+        private void fail(Exception cause, boolean timedOut) {
+            release();
+            metrics.recordFailed(timedOut);
+            future.completeExceptionally(cause);
+        }
+
+        private void release() {
+            TimerWheel.Timeout current = timeout;
+            if (current != null) {
+                current.cancel();
+            }
+            permits.release();
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package org.ss.govern.server.node.rpc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * rpc调用的统计
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class RpcMetrics {
+
+    private final AtomicLong calls = new AtomicLong();
+
+    private final AtomicLong succeeded = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong timedOut = new AtomicLong();
+
+    /**
+     * 因为在途请求数达到上限被拒绝的调用数
+     */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * 调用已经超时或失败后才收到的应答数
+     */
+    private final AtomicLong lateResponses = new AtomicLong();
+
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    void recordCall() {
+        calls.incrementAndGet();
+    }
+
+    void recordRejected() {
+        rejected.incrementAndGet();
+    }
+
+    void recordSucceeded(long latencyNanos) {
+        succeeded.incrementAndGet();
+        totalLatencyNanos.addAndGet(latencyNanos);
+        maxLatencyNanos.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    void recordFailed(boolean timeout) {
+        failed.incrementAndGet();
+        if (timeout) {
+            timedOut.incrementAndGet();
+        }
+    }
+
+    void recordLateResponse() {
+        lateResponses.incrementAndGet();
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    public long getSucceeded() {
+        return succeeded.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getTimedOut() {
+        return timedOut.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getLateResponses() {
+        return lateResponses.get();
+    }
+
+    /**
+     * 成功调用的平均耗时
+     */
+    public double getAverageLatencyMicros() {
+        long count = succeeded.get();
+        return count == 0 ? 0 : (double) TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos.get()) / count;
+    }
+
+    public long getMaxLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxLatencyNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return "RpcMetrics{" +
+                "calls=" + calls +
+                ", succeeded=" + succeeded +
+                ", failed=" + failed +
+                ", timedOut=" + timedOut +
+                ", rejected=" + rejected +
+                ", lateResponses=" + lateResponses +
+                ", averageLatencyMicros=" + String.format("%.2f", getAverageLatencyMicros()) +
+                ", maxLatencyMicros=" + getMaxLatencyMicros() +
+                '}';
+    }
+
+}
@@ -2,36 +2,50 @@ package org.ss.govern.server.node.slave;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.ss.govern.server.GovernServer;
 import org.ss.govern.server.config.GovernServerConfig;
-import org.ss.govern.server.node.NetworkManager;
-import org.ss.govern.server.node.NodeManager;
+import org.ss.govern.server.node.NodeContext;
 import org.ss.govern.server.node.NodeStatus;
-import org.ss.govern.server.node.master.MasterNodePeer;
+import org.ss.govern.server.node.heartbeat.Heartbeat;
+import org.ss.govern.server.node.heartbeat.PhiAccrualFailureDetector;
+import org.ss.govern.server.node.network.BufferPool;
+import org.ss.govern.server.node.network.Connection;
+import org.ss.govern.server.node.network.ConnectionMetrics;
+import org.ss.govern.server.node.network.ExponentialBackoff;
+import org.ss.govern.server.node.network.MasterHandshake;
+import org.ss.govern.server.node.network.Transport;
+import org.ss.govern.server.node.network.TransportHandler;
+import org.ss.govern.utils.ThreadUtils;
 
-import java.io.BufferedOutputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.nio.ByteBuffer;
+import java.util.Queue;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
+ * slave节点和自己的master节点之间的通信管理组件
+ * 连接由Transport建立，连接断开后在后台按指数退避重新连接
+ *
  * @author wangsz
  * @create 2020-07-05
  **/
-public class SlaveNetworkManager {
+public class SlaveNetworkManager implements TransportHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(SlaveNetworkManager.class);
 
     private GovernServerConfig config;
 
-    private Socket masterNodeSocket;
+    private NodeStatus nodeStatus;
 
-    private final int DEFAULT_RETRIES = 3;
+    /**
+     * 建立连接和收发消息的方式，默认基于TCP
+     */
+    private Transport transport;
+
+    /**
+     * 和master节点之间的当前连接，断开后为null
+     */
+    private volatile Connection masterConnection;
 
-    private final int CONNECT_TIMEOUT = 5000;
+    private final int DEFAULT_RETRIES = 3;
 
     /**
      * 数据接收队列
@@ -39,86 +53,186 @@ public class SlaveNetworkManager {
     private LinkedBlockingQueue<ByteBuffer> queueRecv = new LinkedBlockingQueue<>();
 
     /**
-     * 数据发送队列
+     * 接收消息的缓冲区池
+     */
+    private BufferPool bufferPool;
+
+    /**
+     * master节点的故障检测器
      */
-    private LinkedBlockingQueue<ByteBuffer> queueSend = new LinkedBlockingQueue<>();
+    private PhiAccrualFailureDetector masterFailureDetector;
 
+    private volatile boolean masterSuspected = false;
 
-    public SlaveNetworkManager() {
-        this.config = GovernServerConfig.getInstance();
+    public SlaveNetworkManager(NodeContext context) {
+        this.config = context.getConfig();
+        this.nodeStatus = context.getStatus();
+        this.bufferPool = new BufferPool(config.getMaxFrameSize(), config.getBufferPoolDirect());
+        this.masterFailureDetector = new PhiAccrualFailureDetector(config.getPhiThreshold(),
+                config.getAcceptableHeartbeatPauseMs(), config.getHeartbeatIntervalMs());
+        this.transport = context.getTransportFactory().create(context, this);
     }
 
     /**
-     * 连接对应master节点
+     * 连接对应master节点，启动时连接失败则节点无法工作
      */
     public void connectMasterNode() {
-        String ip = config.getMasterNodeAddress();
-        Integer port = config.getMasterNodePort();
-        LOG.info("connecting master node:" + ip + ":" + port);
-        int retries = 0;
-        while (NodeStatus.isRunning() && retries <= DEFAULT_RETRIES) {
-            try {
-                InetSocketAddress endpoint = new InetSocketAddress(ip, port);
-                Socket socket = new Socket();
-                socket.setTcpNoDelay(true);
-                socket.setSoTimeout(0);
-                socket.connect(endpoint, CONNECT_TIMEOUT);
-                if(!initiateConnection(socket, config.getNodeId())) {
-                    break;
-                }
-                startSocketIOThreads(socket);
-                this.masterNodeSocket = socket;
-                LOG.info("successfully connected master node :" + ip + ":" + port);
-                return;
-            } catch (IOException e) {
-                String masterAddr = ip + ":" + port;
-                LOG.error("connect with " + masterAddr + " fail");
-                retries++;
-                if (retries <= DEFAULT_RETRIES) {
-                    LOG.info(String.format("connect with %s fail, retry to connect %s times",
-                            masterAddr, retries));
-                }
+        ExponentialBackoff backoff = newBackoff();
+        boolean connected = tryConnectMasterNode();
+        while (!connected && nodeStatus.isRunning() && backoff.getAttempts() < DEFAULT_RETRIES) {
+            ThreadUtils.sleep(backoff.nextDelayMillis());
+            connected = tryConnectMasterNode();
+        }
+        if (!connected) {
+            nodeStatus.fatal();
+            LOG.error("failed to connect master node. going to shutdown system");
+            return;
+        }
+        new HeartbeatThread().start();
+    }
+
+    /**
+     * 向master节点发起一次连接，失败后由调用方按退避时间重试
+     *
+     * @return 是否连接成功
+     */
+    private boolean tryConnectMasterNode() {
+        return transport.connectMasterAsSlave(config.getMasterNodeAddress(), config.getMasterNodePort());
+    }
+
+    private ExponentialBackoff newBackoff() {
+        return new ExponentialBackoff(config.getReconnectBackoffInitialMs(), config.getReconnectBackoffMaxMs());
+    }
+
+    @Override
+    public MasterHandshake getLocalHandshake() {
+        return MasterHandshake.ofSlave(config.getNodeId());
+    }
+
+    @Override
+    public Queue<ByteBuffer> newRecvQueue(Integer remoteNodeId, boolean slave) {
+        return queueRecv;
+    }
+
+    @Override
+    public void onMasterConnected(MasterHandshake remote, Connection connection) {
+        this.masterConnection = connection;
+    }
+
+    /**
+     * 和master节点的连接出错，只关闭这个连接并在后台重新连接，节点继续运行
+     */
+    @Override
+    public synchronized void onConnectionClosed(Connection connection) {
+        if (connection != masterConnection || !nodeStatus.isRunning()) {
+            return;
+        }
+        //断开期间积压的心跳随旧连接的发送队列一起丢弃，重新连接后由心跳线程重新发送
+        masterConnection = null;
+        LOG.warn("connection of master node is broken, reconnecting");
+        Thread reconnectThread = new Thread(() -> {
+            long startTime = System.currentTimeMillis();
+            ExponentialBackoff backoff = newBackoff();
+            do {
+                ThreadUtils.sleep(backoff.nextDelayMillis());
+            } while (nodeStatus.isRunning() && !tryConnectMasterNode());
+            if (nodeStatus.isRunning()) {
+                LOG.info("reconnected master node after " + backoff.getAttempts() + " attempts in "
+                        + (System.currentTimeMillis() - startTime) + " ms");
             }
+        }, "slave-reconnect");
+        reconnectThread.setDaemon(true);
+        reconnectThread.start();
+    }
+
+    public boolean isConnected() {
+        return masterConnection != null;
+    }
+
+    /**
+     * 消息处理完后归还接收缓冲区，归还后不能再访问该消息
+     */
+    public void releaseMessage(ByteBuffer message) {
+        bufferPool.release(message);
+    }
+
+    @Override
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * 收到master节点的心跳
+     */
+    @Override
+    public void onHeartbeat(Integer remoteNodeId) {
+        masterFailureDetector.heartbeat();
+        if (masterSuspected) {
+            masterSuspected = false;
+            LOG.info("master node is available again");
         }
-        NodeStatus nodeStatus = NodeStatus.getInstance();
-        nodeStatus.setStatus(NodeStatus.FATAL);
-        LOG.error("failed to listen other node's connection. going to shutdown system");
     }
 
-    private void startSocketIOThreads(Socket socket) {
-        new SlaveNetworkReadThread(socket, queueRecv, this).start();
-        new SlaveNetworkWriteThread(socket,queueSend, this).start();
+    /**
+     * master节点的怀疑程度即故障检测器的phi值
+     */
+    public double getMasterSuspicionLevel() {
+        return masterFailureDetector.phi();
+    }
+
+    public boolean isMasterSuspected() {
+        return masterSuspected;
     }
 
     /**
-     * 连接建立成功后，初始化操作
-     *
-     * @param sock
-     * @param sid
+     * 和master节点当前连接的读写统计，没有连接时返回null
+     */
+    public ConnectionMetrics getConnectionMetrics() {
+        Connection connection = masterConnection;
+        return connection == null ? null : connection.getMetrics();
+    }
+
+    /**
+     * 关闭和master节点的连接，节点状态需要先切换为非运行状态
      */
-    public boolean initiateConnection(final Socket sock, final Integer sid) {
-        DataOutputStream dout;
-        try {
-            BufferedOutputStream buf = new BufferedOutputStream(sock.getOutputStream());
-            dout = new DataOutputStream(buf);
-            dout.writeInt(sid);
-            dout.flush();
-            return true;
-        } catch (IOException e) {
-            LOG.warn("Ignoring exception reading or writing challenge: ", e);
-            closeSocket(sock);
-            return false;
+    public void shutdown() {
+        transport.shutdown();
+        Connection connection = masterConnection;
+        if (connection != null) {
+            connection.abort();
         }
     }
 
-    public void closeSocket(Socket socket) {
-        if (socket == null) {
-            return;
+    /**
+     * 定期向master节点发送心跳，并检查master节点是否失效
+     */
+    class HeartbeatThread extends Thread {
+
+        HeartbeatThread() {
+            super("slave-heartbeat");
+            setDaemon(true);
         }
-        try {
-            socket.close();
-        } catch (IOException ie) {
-            LOG.error("Exception while closing", ie);
+
+        @Override
+        public void run() {
+            ByteBuffer heartbeat = Heartbeat.toRequestByteBuffer(config.getNodeId());
+            while (nodeStatus.isRunning()) {
+                Connection connection = masterConnection;
+                if (connection != null) {
+                    try {
+                        connection.send(heartbeat.duplicate());
+                    } catch (InterruptedException e) {
+                        LOG.warn("send heartbeat to master node interrupted", e);
+                    }
+                }
+                if (!masterSuspected && !masterFailureDetector.isAvailable()) {
+                    masterSuspected = true;
+                    LOG.warn(String.format("master node is suspected to be failed, phi = %.2f, " +
+                                    "no heartbeat for %s ms", masterFailureDetector.phi(),
+                            masterFailureDetector.millisSinceLastHeartbeat()));
+                }
+                ThreadUtils.sleep(config.getHeartbeatIntervalMs());
+            }
         }
     }
 
@@ -1,7 +1,7 @@
 package org.ss.govern.server.node.slave;
 
-import org.ss.govern.server.node.NetworkManager;
-import org.ss.govern.server.node.NodeManager;
+import org.ss.govern.server.node.NodeContext;
+import org.ss.govern.server.node.NodeStatus;
 
 /**
  * @author wangsz
@@ -9,14 +9,29 @@ import org.ss.govern.server.node.NodeManager;
  **/
 public class SlaveNode {
 
+    private NodeContext context;
+
     private SlaveNetworkManager networkManager;
 
-    public SlaveNode() {
-        this.networkManager = new SlaveNetworkManager();
+    public SlaveNode(NodeContext context) {
+        this.context = context;
+        this.networkManager = new SlaveNetworkManager(context);
     }
 
     public void start() {
         //连接master节点
         networkManager.connectMasterNode();
     }
+
+    /**
+     * 停止节点，同一个JVM内模拟节点下线时使用
+     */
+    public void shutdown() {
+        context.getStatus().setStatus(NodeStatus.SHUTDOWN);
+        networkManager.shutdown();
+    }
+
+    public SlaveNetworkManager getNetworkManager() {
+        return networkManager;
+    }
 }
@@ -0,0 +1,49 @@
+package org.ss.govern.server.node.slot;
+
+/**
+ * 一次槽位分配的结果
+ * epoch每次由controller重新分配槽位时递增，用来判断节点持久化的分配数据是否过期
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class SlotAllocation {
+
+    /**
+     * 没有分配过槽位，或者分配数据不可用
+     */
+    public static final long NO_EPOCH = 0;
+
+    /**
+     * 旧版本的分配数据没有记录controller
+     */
+    public static final int UNKNOWN_CONTROLLER = -1;
+
+    private final long epoch;
+
+    private final int controllerId;
+
+    /**
+     * 下标为槽位编号，值为负责该槽位的节点id
+     */
+    private final int[] slotOwners;
+
+    public SlotAllocation(long epoch, int controllerId, int[] slotOwners) {
+        this.epoch = epoch;
+        this.controllerId = controllerId;
+        this.slotOwners = slotOwners;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public int getControllerId() {
+        return controllerId;
+    }
+
+    public int[] getSlotOwners() {
+        return slotOwners;
+    }
+
+}
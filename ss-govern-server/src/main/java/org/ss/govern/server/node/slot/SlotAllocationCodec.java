@@ -0,0 +1,120 @@
+package org.ss.govern.server.node.slot;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 槽位分配数据的二进制编解码
+ * 连续分配给同一个节点的槽位合并为一段 (startSlot, endSlot, nodeId)，
+ * 槽位分配消息和slot_allocation文件都使用该格式
+ *
+ * 格式：version(1字节) epoch(8字节) controllerId(4字节) slotCount(4字节) rangeCount(4字节) [startSlot endSlot nodeId]*
+ * 版本1没有epoch和controllerId，解码时仍然兼容
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class SlotAllocationCodec {
+
+    public static final byte VERSION_1 = 1;
+
+    public static final byte VERSION_2 = 2;
+
+    /**
+     * 允许的最大槽位数量，槽位数量来自网络或者磁盘，解码前先检查，避免损坏的数据申请过大的数组
+     */
+    public static final int MAX_SLOT_COUNT = 1 << 20;
+
+    private static final int HEADER_SIZE = 1 + 8 + 4 + 4 + 4;
+
+    private static final int RANGE_SIZE = 4 + 4 + 4;
+
+    private SlotAllocationCodec() {
+    }
+
+    /**
+     * 编码槽位分配
+     */
+    public static byte[] encode(SlotAllocation allocation) {
+        int[] slotOwners = allocation.getSlotOwners();
+        int rangeCount = countRanges(slotOwners);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + rangeCount * RANGE_SIZE);
+        buffer.put(VERSION_2);
+        buffer.putLong(allocation.getEpoch());
+        buffer.putInt(allocation.getControllerId());
+        buffer.putInt(slotOwners.length);
+        buffer.putInt(rangeCount);
+        int start = 0;
+        for (int slot = 1; slot <= slotOwners.length; slot++) {
+            if (slot == slotOwners.length || slotOwners[slot] != slotOwners[start]) {
+                buffer.putInt(start);
+                buffer.putInt(slot - 1);
+                buffer.putInt(slotOwners[start]);
+                start = slot;
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 解码槽位分配，读取buffer中从position开始的数据
+     */
+    public static SlotAllocation decode(ByteBuffer buffer) {
+        byte version = buffer.get();
+        long epoch;
+        int controllerId;
+        if (version == VERSION_2) {
+            epoch = buffer.getLong();
+            controllerId = buffer.getInt();
+        } else if (version == VERSION_1) {
+            epoch = SlotAllocation.NO_EPOCH;
+            controllerId = SlotAllocation.UNKNOWN_CONTROLLER;
+        } else {
+            throw new IllegalArgumentException("unsupported slot allocation version " + version);
+        }
+        int slotCount = buffer.getInt();
+        int rangeCount = buffer.getInt();
+        if (slotCount < 0 || slotCount > MAX_SLOT_COUNT || rangeCount < 0 || rangeCount > slotCount
+                || buffer.remaining() < rangeCount * RANGE_SIZE) {
+            throw new IllegalArgumentException("corrupted slot allocation, slotCount = "
+                    + slotCount + ", rangeCount = " + rangeCount);
+        }
+        int[] slotOwners = new int[slotCount];
+        int nextSlot = 0;
+        for (int i = 0; i < rangeCount; i++) {
+            int startSlot = buffer.getInt();
+            int endSlot = buffer.getInt();
+            int nodeId = buffer.getInt();
+            if (startSlot != nextSlot || endSlot < startSlot || endSlot >= slotCount) {
+                throw new IllegalArgumentException("corrupted slot allocation range ["
+                        + startSlot + ", " + endSlot + "]");
+            }
+            for (int slot = startSlot; slot <= endSlot; slot++) {
+                slotOwners[slot] = nodeId;
+            }
+            nextSlot = endSlot + 1;
+        }
+        if (nextSlot != slotCount) {
+            throw new IllegalArgumentException("slot allocation ranges cover " + nextSlot
+                    + " of " + slotCount + " slots");
+        }
+        return new SlotAllocation(epoch, controllerId, slotOwners);
+    }
+
+    public static SlotAllocation decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    private static int countRanges(int[] slotOwners) {
+        if (slotOwners.length == 0) {
+            return 0;
+        }
+        int rangeCount = 1;
+        for (int slot = 1; slot < slotOwners.length; slot++) {
+            if (slotOwners[slot] != slotOwners[slot - 1]) {
+                rangeCount++;
+            }
+        }
+        return rangeCount;
+    }
+
+}
@@ -0,0 +1,61 @@
+package org.ss.govern.server.node.slot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.ss.govern.utils.FileUtils;
+
+/**
+ * 槽位分配数据在本地磁盘上的读写
+ * 文件为 data.dir/slot_allocation，内容带有checksum
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class SlotAllocationStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SlotAllocationStore.class);
+
+    /**
+     * 槽位分配存储文件的名字
+     */
+    private static final String SLOTS_ALLOCATION_FILENAME = "/slot_allocation";
+
+    private final String dataDir;
+
+    private final int slotsCount;
+
+    public SlotAllocationStore(String dataDir, int slotsCount) {
+        this.dataDir = dataDir;
+        this.slotsCount = slotsCount;
+    }
+
+    /**
+     * 读取并校验持久化的分配数据
+     *
+     * @return 文件不存在、checksum校验失败、无法解码或者槽位数量与配置不一致时返回null
+     */
+    public SlotAllocation load() {
+        byte[] slotsByte = FileUtils.readSlotsAllocation(dataDir, SLOTS_ALLOCATION_FILENAME);
+        if (slotsByte == null) {
+            return null;
+        }
+        try {
+            SlotAllocation allocation = SlotAllocationCodec.decode(slotsByte);
+            if (allocation.getSlotOwners().length != slotsCount) {
+                LOG.warn("persisted slots count " + allocation.getSlotOwners().length
+                        + " differs from slots.count " + slotsCount + ", ignore it");
+                return null;
+            }
+            return allocation;
+        } catch (RuntimeException e) {
+            LOG.warn("persisted slots allocation is unreadable, ignore it", e);
+            return null;
+        }
+    }
+
+    public boolean persist(SlotAllocation allocation) {
+        byte[] slotsByte = SlotAllocationCodec.encode(allocation);
+        return FileUtils.persistSlotsAllocation(slotsByte, dataDir, SLOTS_ALLOCATION_FILENAME);
+    }
+
+}
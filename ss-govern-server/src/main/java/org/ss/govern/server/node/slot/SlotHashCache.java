@@ -0,0 +1,54 @@
+package org.ss.govern.server.node.slot;
+
+/**
+ * 最近计算过的服务名到槽位的缓存
+ * 直接映射，按服务名的hashCode定位到一个位置，冲突时直接覆盖，不加锁
+ * 每个条目是不可变对象，并发读写最多造成一次未命中
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class SlotHashCache {
+
+    private final Entry[] entries;
+
+    private final int mask;
+
+    private final int slotsCount;
+
+    public SlotHashCache(int capacity, int slotsCount) {
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.entries = new Entry[size];
+        this.mask = size - 1;
+        this.slotsCount = slotsCount;
+    }
+
+    /**
+     * 服务名对应的槽位编号，未命中时计算并放入缓存
+     */
+    public int slotOf(String serviceName) {
+        int hash = serviceName.hashCode();
+        int index = (hash ^ (hash >>> 16)) & mask;
+        Entry entry = entries[index];
+        if (entry != null && entry.serviceName.equals(serviceName)) {
+            return entry.slot;
+        }
+        int slot = SlotHashing.slotOf(serviceName, slotsCount);
+        entries[index] = new Entry(serviceName, slot);
+        return slot;
+    }
+
+    private static final class Entry {
+
+        private final String serviceName;
+
+        private final int slot;
+
+        private Entry(String serviceName, int slot) {
+            this.serviceName = serviceName;
+            this.slot = slot;
+        }
+
+    }
+
+}
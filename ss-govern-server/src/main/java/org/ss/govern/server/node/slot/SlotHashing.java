@@ -0,0 +1,46 @@
+package org.ss.govern.server.node.slot;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 服务名到槽位的哈希
+ * 使用CRC16（XMODEM，多项式0x1021），对服务名的UTF-8字节计算后对槽位数量取模，
+ * 结果只依赖服务名和槽位数量，所有节点计算结果一致
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class SlotHashing {
+
+    private static final int[] CRC16_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            CRC16_TABLE[i] = crc & 0xFFFF;
+        }
+    }
+
+    private SlotHashing() {
+    }
+
+    public static int crc16(byte[] bytes) {
+        int crc = 0;
+        for (byte b : bytes) {
+            crc = ((crc << 8) ^ CRC16_TABLE[((crc >>> 8) ^ b) & 0xFF]) & 0xFFFF;
+        }
+        return crc;
+    }
+
+    /**
+     * 服务名对应的槽位编号
+     * CRC16只有65536种结果，槽位数量超过65536时多出的槽位不会被映射到
+     */
+    public static int slotOf(String serviceName, int slotsCount) {
+        return crc16(serviceName.getBytes(StandardCharsets.UTF_8)) % slotsCount;
+    }
+
+}
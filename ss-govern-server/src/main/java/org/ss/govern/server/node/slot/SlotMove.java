@@ -0,0 +1,45 @@
+package org.ss.govern.server.node.slot;
+
+/**
+ * 一个槽位的迁移，从fromNode迁移到toNode
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class SlotMove {
+
+    /**
+     * 槽位之前没有分配给任何节点
+     */
+    public static final int UNASSIGNED = -1;
+
+    private final int slot;
+
+    private final int fromNode;
+
+    private final int toNode;
+
+    public SlotMove(int slot, int fromNode, int toNode) {
+        this.slot = slot;
+        this.fromNode = fromNode;
+        this.toNode = toNode;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    public int getFromNode() {
+        return fromNode;
+    }
+
+    public int getToNode() {
+        return toNode;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + slot + ", " + fromNode + " -> " + toNode + ")";
+    }
+
+}
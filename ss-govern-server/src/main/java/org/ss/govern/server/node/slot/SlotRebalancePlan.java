@@ -0,0 +1,33 @@
+package org.ss.govern.server.node.slot;
+
+import java.util.List;
+
+/**
+ * 槽位重新分配的结果：新的分配数据和相对旧分配的迁移列表
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class SlotRebalancePlan {
+
+    /**
+     * 下标为槽位编号，值为负责该槽位的节点id
+     */
+    private final int[] slotOwners;
+
+    private final List<SlotMove> moves;
+
+    public SlotRebalancePlan(int[] slotOwners, List<SlotMove> moves) {
+        this.slotOwners = slotOwners;
+        this.moves = moves;
+    }
+
+    public int[] getSlotOwners() {
+        return slotOwners;
+    }
+
+    public List<SlotMove> getMoves() {
+        return moves;
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.ss.govern.server.node.slot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 槽位的增量重新分配
+ * 以当前的分配为基础，只迁移恢复均衡所必须的槽位：
+ * 超出目标数量的节点和已经不在集群内的节点让出槽位，再按nodeId顺序补给数量不足的节点
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class SlotRebalancer {
+
+    private SlotRebalancer() {
+    }
+
+    /**
+     * 按目标数量重新分配槽位
+     *
+     * @param currentOwners 当前的分配，为null时表示还没有分配过
+     * @param slotsCount    槽位数量
+     * @param targetCounts  每个节点应负责的槽位数量，key为nodeId，数量之和必须等于slotsCount
+     */
+    public static SlotRebalancePlan rebalance(int[] currentOwners, int slotsCount,
+                                              Map<Integer, Integer> targetCounts) {
+        int total = 0;
+        for (int target : targetCounts.values()) {
+            total += target;
+        }
+        if (total != slotsCount) {
+            throw new IllegalArgumentException("target slot counts sum to " + total
+                    + ", expected " + slotsCount);
+        }
+        if (currentOwners != null && currentOwners.length != slotsCount) {
+            //槽位数量变化时旧的分配没有意义，重新分配
+            currentOwners = null;
+        }
+        int[] newOwners = new int[slotsCount];
+        //每个节点还可以保留的槽位数量
+        Map<Integer, Integer> remaining = new HashMap<>(targetCounts);
+        List<Integer> freeSlots = new ArrayList<>();
+        for (int slot = 0; slot < slotsCount; slot++) {
+            int owner = currentOwners == null ? SlotMove.UNASSIGNED : currentOwners[slot];
+            Integer left = remaining.get(owner);
+            if (left != null && left > 0) {
+                newOwners[slot] = owner;
+                remaining.put(owner, left - 1);
+            } else {
+                freeSlots.add(slot);
+            }
+        }
+        //按nodeId顺序把空出来的槽位补给数量不足的节点，首次分配时每个节点得到连续的一段槽位
+        List<SlotMove> moves = new ArrayList<>(freeSlots.size());
+        int freeIndex = 0;
+        for (Map.Entry<Integer, Integer> entry : new TreeMap<>(remaining).entrySet()) {
+            int nodeId = entry.getKey();
+            for (int i = 0; i < entry.getValue(); i++) {
+                int slot = freeSlots.get(freeIndex++);
+                newOwners[slot] = nodeId;
+                int fromNode = currentOwners == null ? SlotMove.UNASSIGNED : currentOwners[slot];
+                moves.add(new SlotMove(slot, fromNode, nodeId));
+            }
+        }
+        return new SlotRebalancePlan(newOwners, moves);
+    }
+
+    /**
+     * 按权重比例计算每个节点的目标槽位数量（最大余数法）
+     * 先按比例向下取整，剩余的槽位依次给余数最大的节点，
+     * 余数相同时优先给当前负责槽位最多的节点，使迁移数量最少
+     *
+     * @param currentOwners 当前的分配，为null时表示还没有分配过
+     * @param weights       集群内所有master节点的权重，key为nodeId
+     */
+    public static Map<Integer, Integer> weightedTargets(int[] currentOwners, int slotsCount,
+                                                        Map<Integer, Integer> weights) {
+        long totalWeight = 0;
+        for (int weight : weights.values()) {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("node weight must be positive: " + weights);
+            }
+            totalWeight += weight;
+        }
+        Map<Integer, Integer> currentCounts = countSlots(currentOwners, slotsCount);
+        Map<Integer, Integer> targets = new HashMap<>();
+        Map<Integer, Long> remainders = new HashMap<>();
+        int assigned = 0;
+        for (Map.Entry<Integer, Integer> entry : weights.entrySet()) {
+            long share = (long) slotsCount * entry.getValue();
+            int target = (int) (share / totalWeight);
+            targets.put(entry.getKey(), target);
+            remainders.put(entry.getKey(), share % totalWeight);
+            assigned += target;
+        }
+        List<Integer> ordered = new ArrayList<>(weights.keySet());
+        ordered.sort((a, b) -> {
+            int compare = Long.compare(remainders.get(b), remainders.get(a));
+            if (compare == 0) {
+                compare = Integer.compare(currentCounts.getOrDefault(b, 0), currentCounts.getOrDefault(a, 0));
+            }
+            return compare != 0 ? compare : Integer.compare(a, b);
+        });
+        for (int i = 0; i < slotsCount - assigned; i++) {
+            targets.merge(ordered.get(i), 1, Integer::sum);
+        }
+        return targets;
+    }
+
+    /**
+     * 当前每个节点负责的槽位数量
+     */
+    static Map<Integer, Integer> countSlots(int[] currentOwners, int slotsCount) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        if (currentOwners == null || currentOwners.length != slotsCount) {
+            return counts;
+        }
+        for (int owner : currentOwners) {
+            counts.merge(owner, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+}
@@ -0,0 +1,61 @@
+package org.ss.govern.server.node.slot;
+
+import org.ss.govern.core.constants.Slot;
+
+import java.util.Arrays;
+
+/**
+ * 槽位路由表
+ * 用一个int数组保存 槽位编号 -> nodeId，每个槽位占4字节，按槽位编号查找是O(1)且没有装箱
+ * 创建后不再修改，槽位重新分配时整体替换
+ *
+ * @author wangsz
+ * @create 2026-10-16
+ **/
+public class SlotTable {
+
+    /**
+     * 下标为槽位编号，值为负责该槽位的节点id
+     */
+    private final int[] slotOwners;
+
+    public SlotTable(int[] slotOwners) {
+        this.slotOwners = Arrays.copyOf(slotOwners, slotOwners.length);
+    }
+
+    /**
+     * 槽位数量
+     */
+    public int size() {
+        return slotOwners.length;
+    }
+
+    /**
+     * 负责该槽位的节点id
+     */
+    public int getNodeId(int slot) {
+        checkSlot(slot);
+        return slotOwners[slot];
+    }
+
+    /**
+     * 按需创建槽位对象
+     */
+    public Slot getSlot(int slot) {
+        return new Slot(slot, getNodeId(slot));
+    }
+
+    /**
+     * 返回槽位分配数据的拷贝
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(slotOwners, slotOwners.length);
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= slotOwners.length) {
+            throw new IllegalArgumentException("slot " + slot + " out of range [0, " + slotOwners.length + ")");
+        }
+    }
+
+}
@@ -31,24 +31,25 @@ public class FileUtils {
                 dataDir.mkdirs();
             }
             File slotAllocationFile = new File(dataDir, filename);
-            FileOutputStream fos = new FileOutputStream(slotAllocationFile);
-            BufferedOutputStream bos = new BufferedOutputStream(fos);
-            DataOutputStream dos = new DataOutputStream(bos);
-            // 在磁盘文件里写入一份checksum校验和
-            Checksum checksum = new Adler32();
-            checksum.update(bytes, 0, bytes.length);
-            long checksumValue = checksum.getValue();
-            dos.writeLong(checksumValue);
-            dos.writeInt(bytes.length);
-            dos.write(bytes);
-            // 对输出流进行一系列的flush，保证数据落地磁盘
-            // 之前用DataOutputStream输出的数据都是进入了BufferedOutputStream的缓冲区
-            // 所以在这里进行一次flush，数据就是进入底层的FileOutputStream
-            bos.flush();
-            //FileOutputStreamd flush 保证数据进入os cache
-            fos.flush();
-            //强制刷到磁盘
-            fos.getChannel().force(false);
+            try (FileOutputStream fos = new FileOutputStream(slotAllocationFile)) {
+                BufferedOutputStream bos = new BufferedOutputStream(fos);
+                DataOutputStream dos = new DataOutputStream(bos);
+                // 在磁盘文件里写入一份checksum校验和
+                Checksum checksum = new Adler32();
+                checksum.update(bytes, 0, bytes.length);
+                long checksumValue = checksum.getValue();
+                dos.writeLong(checksumValue);
+                dos.writeInt(bytes.length);
+                dos.write(bytes);
+                // 对输出流进行一系列的flush，保证数据落地磁盘
+                // 之前用DataOutputStream输出的数据都是进入了BufferedOutputStream的缓冲区
+                // 所以在这里进行一次flush，数据就是进入底层的FileOutputStream
+                bos.flush();
+                //FileOutputStreamd flush 保证数据进入os cache
+                fos.flush();
+                //强制刷到磁盘
+                fos.getChannel().force(false);
+            }
         } catch (Exception e) {
             LOG.error("persist slots allocation error......", e);
             return false;
@@ -56,17 +57,37 @@ public class FileUtils {
         return true;
     }
 
-    public static void main(String[] args) throws Exception {
-        String path = "/Users/wangsz/workspace/data/ss-01/slot_allocation";
-        FileInputStream fis = new FileInputStream(new File(path));
-        BufferedInputStream bis = new BufferedInputStream(fis);
-        DataInputStream dis = new DataInputStream(bis);
-        System.out.println("checksum:" + dis.readLong());
-        int fileLength = dis.readInt();
-        System.out.println("dataLength:" + fileLength);
-        byte[] fileByte = new byte[fileLength];
-        dis.readFully(fileByte);
-        System.out.println(new String(fileByte));
+    /**
+     * 读取持久化的槽位分配数据并校验checksum
+     *
+     * @return 文件不存在或者校验失败时返回null
+     */
+    public static byte[] readSlotsAllocation(String fileDataDir, String filename) {
+        File slotAllocationFile = new File(fileDataDir, filename);
+        if(!slotAllocationFile.exists()) {
+            return null;
+        }
+        try (DataInputStream dis = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(slotAllocationFile)))) {
+            long checksumValue = dis.readLong();
+            int length = dis.readInt();
+            if(length < 0 || length > slotAllocationFile.length()) {
+                LOG.warn("invalid slots allocation length " + length + " in " + slotAllocationFile);
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            dis.readFully(bytes);
+            Checksum checksum = new Adler32();
+            checksum.update(bytes, 0, bytes.length);
+            if(checksum.getValue() != checksumValue) {
+                LOG.warn("slots allocation checksum mismatch in " + slotAllocationFile);
+                return null;
+            }
+            return bytes;
+        } catch (Exception e) {
+            LOG.error("read slots allocation error......", e);
+            return null;
+        }
     }
 
 }